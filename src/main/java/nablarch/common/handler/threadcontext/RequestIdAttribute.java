@@ -1,5 +1,6 @@
 package nablarch.common.handler.threadcontext;
 
+import nablarch.common.util.RequestIdRegistry;
 import nablarch.common.util.RequestUtil;
 import nablarch.core.ThreadContext;
 import nablarch.core.util.StringUtil;
@@ -8,10 +9,17 @@ import nablarch.fw.Request;
 
 /**
  * スレッドコンテキストに保持するリクエストID属性。
+ * <p/>
+ * requestIdRegistry プロパティを設定した場合、抜き出したリクエストIDを{@link RequestIdRegistry}で正規化し、
+ * 同じリクエストIDに対して同じ文字列インスタンスをスレッドコンテキストに設定する。
  * 
  * @author Kiyohito Itoh
  */
 public class RequestIdAttribute implements ThreadContextAttribute<Request<?>> {
+
+    /** リクエストIDを正規化するレジストリ(正規化しない場合はnull) */
+    private RequestIdRegistry requestIdRegistry;
+
     /**
      * {@inheritDoc}
      * <pre>
@@ -33,6 +41,24 @@ public class RequestIdAttribute implements ThreadContextAttribute<Request<?>> {
         if (StringUtil.isNullOrEmpty(req.getRequestPath())) {
             return null;
         }
-        return RequestUtil.getRequestId(req.getRequestPath());
+        String requestId = RequestUtil.getRequestId(req.getRequestPath());
+        return (requestIdRegistry == null) ? requestId : requestIdRegistry.intern(requestId);
+    }
+
+    /**
+     * リクエストIDを正規化するレジストリを設定する。
+     * <p/>
+     * デフォルトはnull(正規化しない)。
+     * {@link RequestIdRegistry}の序数をリクエストIDごとの集計に使用する場合は、
+     * 集計処理と同じインスタンスを設定すること。
+     * <p/>
+     * リクエストIDはディスパッチの前に抜き出すため、存在しないリクエストパスのリクエストIDもレジストリに登録される。
+     * 不正なリクエストパスが大量に送信される環境では、レジストリにアプリケーションのリクエストIDを事前に登録し、
+     * それ以外を登録しない設定とすること({@link RequestIdRegistry#setFrozen(boolean)}を参照)。
+     * 
+     * @param requestIdRegistry リクエストIDを正規化するレジストリ
+     */
+    public void setRequestIdRegistry(RequestIdRegistry requestIdRegistry) {
+        this.requestIdRegistry = requestIdRegistry;
     }
 }
@@ -1,23 +1,47 @@
 package nablarch.common.util;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * {@link RequestIdExtractor}の基本実装クラス。<br />
  * リクエストパスから"?"や"#"以降を取り除いた文字列をリクエストIDとして扱う。
+ * <p/>
+ * リクエストパスは正規表現を使用せず、1回の走査で解析する。
+ * 結果は正規表現 "^([^#\\?]+).*$" の1番目のグループと同じとなる
+ * (すなわち、"?"や"#"以降に改行文字を含む場合はnullを返す)。
  * 
  * @author Naoki Yamamoto
  */
 public final class BasicRequestIdExtractor implements RequestIdExtractor {
 	
-	/** リクエストパス中のリクエストIDに相当する部分 */
-    private static final Pattern REQUEST_ID_IN_PATH = Pattern.compile("^([^#\\?]+).*$");
-	
     /** {@inheritDoc} **/
     @Override
     public String getRequestId(String path) {
-        Matcher m = REQUEST_ID_IN_PATH.matcher(path.trim());
-        return m.matches() ? m.group(1) : null; 
+        String trimmed = path.trim();
+        int length = trimmed.length();
+        int end = length;
+        for (int i = 0; i < length; i++) {
+            char c = trimmed.charAt(i);
+            if (c == '#' || c == '?') {
+                end = i;
+                break;
+            }
+        }
+        if (end == 0) {
+            return null;
+        }
+        for (int i = end; i < length; i++) {
+            if (isLineTerminator(trimmed.charAt(i))) {
+                return null;
+            }
+        }
+        return trimmed.substring(0, end);
+    }
+
+    /**
+     * 正規表現の"."に一致しない行末文字であるか否かを判定する。
+     * @param c 文字
+     * @return 行末文字の場合はtrue
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
     }
 }
\ No newline at end of file
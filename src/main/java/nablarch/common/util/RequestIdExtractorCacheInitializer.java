@@ -0,0 +1,80 @@
+package nablarch.common.util;
+
+import nablarch.core.repository.disposal.Disposable;
+import nablarch.core.repository.initialization.Initializable;
+
+/**
+ * {@link RequestUtil}が使用する{@link RequestIdExtractor}を、リポジトリの初期化時にキャッシュするクラス。
+ * <p/>
+ * 本クラスを初期化対象のコンポーネント(initializeList)に登録すると、
+ * requestIdExtractor プロパティに設定された{@link RequestIdExtractor}をキャッシュし、
+ * 以降の{@link RequestUtil#getRequestId(String)}ではリポジトリを参照しない。
+ * 廃棄対象のコンポーネント(disposableList)にも登録した場合、廃棄時にキャッシュを破棄する。
+ * <p/>
+ * 初期化対象のコンポーネントは、構築中のリポジトリが{@link nablarch.core.repository.SystemRepository}に
+ * 登録される前に初期化されるため、初期化時にリポジトリから{@link RequestIdExtractor}を取得することはできない。
+ * このため、requestIdExtractor プロパティには、リポジトリに"requestIdExtractor"という名前で登録したものと
+ * 同じコンポーネントを参照で設定すること。
+ * リポジトリに登録していない場合は、{@link BasicRequestIdExtractor}を設定すること。
+ * <p/>
+ * 設定例を以下に示す。
+ * <pre>
+ * {@code
+ * <component name="requestIdExtractor" class="nablarch.common.util.ShortRequestIdExtractor" />
+ *
+ * <component name="requestIdExtractorCacheInitializer"
+ *            class="nablarch.common.util.RequestIdExtractorCacheInitializer">
+ *   <property name="requestIdExtractor" ref="requestIdExtractor" />
+ * </component>
+ *
+ * <component name="initializer" class="nablarch.core.repository.initialization.BasicApplicationInitializer">
+ *   <property name="initializeList">
+ *     <list>
+ *       <component-ref name="requestIdExtractorCacheInitializer" />
+ *     </list>
+ *   </property>
+ * </component>
+ * }
+ * </pre>
+ */
+public class RequestIdExtractorCacheInitializer implements Initializable, Disposable {
+
+    /** キャッシュする{@link RequestIdExtractor} */
+    private RequestIdExtractor requestIdExtractor;
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * requestIdExtractor プロパティに設定された{@link RequestIdExtractor}をキャッシュする。
+     *
+     * @throws IllegalStateException requestIdExtractor プロパティが設定されていない場合
+     */
+    @Override
+    public void initialize() {
+        if (requestIdExtractor == null) {
+            throw new IllegalStateException("requestIdExtractor must be set.");
+        }
+        RequestUtil.cacheRequestIdExtractor(requestIdExtractor);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * キャッシュした{@link RequestIdExtractor}を破棄する。
+     */
+    @Override
+    public void dispose() {
+        RequestUtil.clearRequestIdExtractorCache();
+    }
+
+    /**
+     * キャッシュする{@link RequestIdExtractor}を設定する。
+     * <p/>
+     * リポジトリに"requestIdExtractor"という名前で登録したものと同じコンポーネントを設定すること。
+     *
+     * @param requestIdExtractor キャッシュする{@link RequestIdExtractor}
+     */
+    public void setRequestIdExtractor(RequestIdExtractor requestIdExtractor) {
+        this.requestIdExtractor = requestIdExtractor;
+    }
+}
@@ -0,0 +1,243 @@
+package nablarch.common.util;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * リクエストIDを正規化し、連番を割り当てるクラス。
+ * <p/>
+ * 同じ内容のリクエストIDに対して常に同じ文字列インスタンスを返すことで、
+ * スレッドコンテキストやログなどで保持されるリクエストIDの文字列を共有する。
+ * また、登録順に0から始まる連番(序数)を割り当てるため、
+ * リクエストIDごとの件数やヒストグラムを、文字列をキーとしたMapではなく配列で保持できる。
+ * <p/>
+ * 登録できるリクエストIDの数には上限があり、上限に達した後の新たなリクエストIDは登録しない
+ * (正規化せずにそのまま返し、序数は-1とする)。
+ * これにより、保持するリクエストIDが際限なく増加することはない。
+ * <p/>
+ * デフォルトでは、未登録のリクエストIDは参照された順に登録する。
+ * {@link nablarch.common.handler.threadcontext.RequestIdAttribute}から使用する場合、
+ * リクエストIDはディスパッチ先が存在するか否かが判明する前に参照されるため、
+ * 存在しないリクエストパスへのリクエストのリクエストIDも登録される。
+ * このため、存在しないリクエストパスが大量に送信されると上限に達し、
+ * 以降に初めて参照された正しいリクエストIDは正規化されず、序数も割り当てられない。
+ * <p/>
+ * これを避けるには、アプリケーションのリクエストIDを{@link #setRequestIds(List)}で事前に登録し、
+ * {@link #setFrozen(boolean)}にtrueを設定して、事前に登録したリクエストID以外を登録しないようにすること。
+ * <p/>
+ * 登録済みのリクエストIDの参照、および上限に達した後の未登録のリクエストIDの参照は、ロックを取得せずに行う。
+ *
+ * @see nablarch.common.handler.threadcontext.RequestIdAttribute#setRequestIdRegistry(RequestIdRegistry)
+ */
+@Published(tag = "architect")
+public class RequestIdRegistry {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(RequestIdRegistry.class);
+
+    /** 登録できるリクエストIDの数のデフォルト値 */
+    private static final int DEFAULT_MAX_SIZE = 4096;
+
+    /** 登録済みのリクエストID */
+    private static final class Entry {
+        /** 正規化したリクエストID */
+        private final String requestId;
+        /** 序数 */
+        private final int ordinal;
+
+        /**
+         * コンストラクタ。
+         * @param requestId 正規化したリクエストID
+         * @param ordinal   序数
+         */
+        private Entry(String requestId, int ordinal) {
+            this.requestId = requestId;
+            this.ordinal = ordinal;
+        }
+    }
+
+    /** リクエストIDをキーとした登録済みのリクエストID */
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    /** 序数の順に並べた正規化したリクエストID */
+    private final String[] requestIds;
+
+    /** 登録済みのリクエストIDの数 */
+    private volatile int size = 0;
+
+    /** 上限に達したことをログに出力したか否か */
+    private volatile boolean overflowLogged = false;
+
+    /** 未登録のリクエストIDを登録しないか否か */
+    private volatile boolean frozen = false;
+
+    /**
+     * デフォルトの上限(4096件)でインスタンスを生成する。
+     */
+    public RequestIdRegistry() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * 登録できるリクエストIDの数の上限を指定してインスタンスを生成する。
+     * @param maxSize 登録できるリクエストIDの数の上限(1以上)
+     */
+    public RequestIdRegistry(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive. maxSize = " + maxSize);
+        }
+        requestIds = new String[maxSize];
+    }
+
+    /**
+     * リクエストIDを事前に登録する。
+     * <p/>
+     * リストの順に序数を割り当てる(登録済みのリクエストIDは無視する)。
+     *
+     * @param requestIds 登録するリクエストID
+     * @throws IllegalArgumentException 登録できるリクエストIDの数の上限を超える場合
+     */
+    public synchronized void setRequestIds(List<String> requestIds) {
+        for (String requestId : requestIds) {
+            if (register(requestId) == null) {
+                throw new IllegalArgumentException("too many request ids. maxSize = " + this.requestIds.length);
+            }
+        }
+    }
+
+    /**
+     * 未登録のリクエストIDを登録しないか否かを設定する。
+     * <p/>
+     * trueを設定した場合、{@link #setRequestIds(List)}で事前に登録したリクエストID以外は登録せず、
+     * 上限に達した場合と同じく、正規化せずにそのまま返し、序数は-1とする。
+     * デフォルトはfalse。
+     *
+     * @param frozen 未登録のリクエストIDを登録しない場合はtrue
+     */
+    public void setFrozen(boolean frozen) {
+        this.frozen = frozen;
+    }
+
+    /**
+     * リクエストIDを正規化する。
+     * <p/>
+     * 未登録のリクエストIDは、上限に達しておらず、未登録のリクエストIDを登録しない設定でなければ登録する。
+     *
+     * @param requestId リクエストID
+     * @return 正規化したリクエストID。
+     *          上限に達したため登録できない場合、および未登録のリクエストIDを登録しない設定の場合は、
+     *          引数のリクエストIDをそのまま返す。
+     *          引数がnullの場合はnull。
+     */
+    public String intern(String requestId) {
+        if (requestId == null) {
+            return null;
+        }
+        Entry entry = lookup(requestId);
+        return (entry == null) ? requestId : entry.requestId;
+    }
+
+    /**
+     * リクエストIDの序数を取得する。
+     * <p/>
+     * 未登録のリクエストIDは、上限に達しておらず、未登録のリクエストIDを登録しない設定でなければ登録する。
+     *
+     * @param requestId リクエストID
+     * @return 0から始まる序数。
+     *          上限に達したため登録できない場合、未登録のリクエストIDを登録しない設定の場合、および引数がnullの場合は-1。
+     */
+    public int getOrdinal(String requestId) {
+        if (requestId == null) {
+            return -1;
+        }
+        Entry entry = lookup(requestId);
+        return (entry == null) ? -1 : entry.ordinal;
+    }
+
+    /**
+     * 序数に対応するリクエストIDを取得する。
+     *
+     * @param ordinal 序数
+     * @return 正規化したリクエストID
+     * @throws IndexOutOfBoundsException 序数に対応するリクエストIDが登録されていない場合
+     */
+    public String getRequestId(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException("request id is not registered. ordinal = " + ordinal);
+        }
+        return requestIds[ordinal];
+    }
+
+    /**
+     * 登録済みのリクエストIDの数を取得する。
+     * <p/>
+     * 序数は0から本メソッドの戻り値未満の範囲で割り当てられている。
+     *
+     * @return 登録済みのリクエストIDの数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 登録できるリクエストIDの数の上限を取得する。
+     * <p/>
+     * 序数を添字とした配列を作成する場合は、本メソッドの戻り値を大きさとすればよい。
+     *
+     * @return 登録できるリクエストIDの数の上限
+     */
+    public int getMaxSize() {
+        return requestIds.length;
+    }
+
+    /**
+     * 登録済みのリクエストIDを検索し、未登録の場合は登録する。
+     *
+     * @param requestId リクエストID
+     * @return 登録済みのリクエストID(登録できない場合はnull)
+     */
+    private Entry lookup(String requestId) {
+        Entry entry = entries.get(requestId);
+        if (entry != null || frozen) {
+            return entry;
+        }
+        if (size >= requestIds.length && overflowLogged) {
+            // 上限に達した旨をログに出力した後は、未登録のリクエストIDのためにロックを取得しない。
+            return null;
+        }
+        return register(requestId);
+    }
+
+    /**
+     * リクエストIDを登録する。
+     *
+     * @param requestId リクエストID
+     * @return 登録したリクエストID(上限に達したため登録できない場合はnull)
+     */
+    private synchronized Entry register(String requestId) {
+        Entry entry = entries.get(requestId);
+        if (entry != null) {
+            return entry;
+        }
+        int ordinal = size;
+        if (ordinal >= requestIds.length) {
+            if (!overflowLogged) {
+                overflowLogged = true;
+                LOGGER.logWarn("request id registry is full. request ids after this are not interned. "
+                             + "maxSize = " + requestIds.length + ", requestId = " + requestId);
+            }
+            return null;
+        }
+        // リクエストパスの部分文字列が元の文字配列を保持し続けないよう、複製して登録する。
+        entry = new Entry(new String(requestId), ordinal);
+        requestIds[ordinal] = entry.requestId;
+        entries.put(entry.requestId, entry);
+        size = ordinal + 1;
+        return entry;
+    }
+}
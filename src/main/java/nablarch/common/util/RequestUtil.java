@@ -13,6 +13,12 @@ public final class RequestUtil {
     /** デフォルトの{@link RequestIdExtractor} */
     private static final RequestIdExtractor DEFAULT_EXTRACTOR = new BasicRequestIdExtractor();
 
+    /** {@link RequestIdExtractor}を登録するリポジトリのキー */
+    private static final String EXTRACTOR_KEY = "requestIdExtractor";
+
+    /** キャッシュした{@link RequestIdExtractor}(キャッシュしていない場合はnull) */
+    private static volatile RequestIdExtractor cachedExtractor;
+
     /** 隠蔽コンストラクタ */
     private RequestUtil() {
     }
@@ -29,11 +35,53 @@ public final class RequestUtil {
     /**
      * リポジトリより{@link RequestIdExtractor}の実装クラスを取得する。<br />
      * リポジトリに存在しない場合は、{@link BasicRequestIdExtractor}を取得する。
+     * <p/>
+     * {@link #cacheRequestIdExtractor(RequestIdExtractor)}でキャッシュされている場合は、
+     * リポジトリを参照せずにキャッシュしたものを返す。
      * 
      * @return {@link RequestIdExtractor}の実装クラス
      */
     public static RequestIdExtractor getRequestIdExtractor() {
-        RequestIdExtractor extractor = SystemRepository.get("requestIdExtractor");
+        RequestIdExtractor cached = cachedExtractor;
+        return cached != null ? cached : lookupRequestIdExtractor();
+    }
+
+    /**
+     * 指定された{@link RequestIdExtractor}の実装クラスをキャッシュする。
+     * <p/>
+     * 以降の{@link #getRequestIdExtractor()}および{@link #getRequestId(String)}では、リポジトリを参照せずに
+     * キャッシュしたものを使用する。
+     * <p/>
+     * リポジトリの構築中(初期化対象のコンポーネントの初期化時)は、構築中のリポジトリがまだ参照できないため、
+     * キャッシュする実装クラスはリポジトリから取得せず、引数で受け取る。
+     * 通常は、{@link RequestIdExtractorCacheInitializer}を初期化対象のコンポーネントに登録して使用する。
+     * 
+     * @param extractor キャッシュする{@link RequestIdExtractor}の実装クラス
+     * @throws IllegalArgumentException 引数がnullの場合
+     */
+    public static void cacheRequestIdExtractor(RequestIdExtractor extractor) {
+        if (extractor == null) {
+            throw new IllegalArgumentException("extractor must not be null.");
+        }
+        cachedExtractor = extractor;
+    }
+
+    /**
+     * キャッシュした{@link RequestIdExtractor}を破棄する。
+     * <p/>
+     * 以降の{@link #getRequestIdExtractor()}および{@link #getRequestId(String)}では、呼び出しごとにリポジトリを参照する。
+     */
+    public static void clearRequestIdExtractorCache() {
+        cachedExtractor = null;
+    }
+
+    /**
+     * リポジトリより{@link RequestIdExtractor}の実装クラスを取得する。
+     * 
+     * @return {@link RequestIdExtractor}の実装クラス
+     */
+    private static RequestIdExtractor lookupRequestIdExtractor() {
+        RequestIdExtractor extractor = SystemRepository.get(EXTRACTOR_KEY);
         return extractor == null ? DEFAULT_EXTRACTOR : extractor;
     }
 }
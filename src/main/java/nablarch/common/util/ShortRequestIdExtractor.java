@@ -1,23 +1,40 @@
 package nablarch.common.util;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * {@link RequestIdExtractor}の実装クラス。<br />
  * リクエストパスの最後の"/"以降を抜き出し、抜き出した文字列から拡張子を取り除いたものをリクエストIDとして扱う。
+ * <p/>
+ * リクエストパスは正規表現を使用せずに解析する。
+ * 結果は正規表現 "^.*?([^/]+)$" の1番目のグループから "\\.[^\\.]*$" に一致する部分を取り除いたものと同じとなる
+ * (すなわち、最後の"/"より前に改行文字を含む場合はnullを返す)。
  * 
  * @author Naoki Yamamoto
  */
 public final class ShortRequestIdExtractor implements RequestIdExtractor {
     
-    /** リクエストパス中のリクエストIDに相当する部分 */
-    private static final Pattern REQUEST_ID_IN_PATH = Pattern.compile("^.*?([^/]+)$");
-
     /** {@inheritDoc} **/
     @Override
     public String getRequestId(String path) {
-        Matcher m = REQUEST_ID_IN_PATH.matcher(path.trim());
-        return m.matches() ? m.group(1).replaceAll("\\.[^\\.]*$", "") : null;
+        String trimmed = path.trim();
+        int start = trimmed.lastIndexOf('/') + 1;
+        if (start == trimmed.length()) {
+            return null;
+        }
+        for (int i = 0; i < start; i++) {
+            if (isLineTerminator(trimmed.charAt(i))) {
+                return null;
+            }
+        }
+        int extension = trimmed.lastIndexOf('.');
+        return trimmed.substring(start, (extension < start) ? trimmed.length() : extension);
+    }
+
+    /**
+     * 正規表現の"."に一致しない行末文字であるか否かを判定する。
+     * @param c 文字
+     * @return 行末文字の場合はtrue
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package nablarch.fw.handler;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 最大エントリ数を持つ、スレッドセーフなキャッシュ。
+ * <p/>
+ * 参照処理はロックを取得せずに行う。
+ * エントリ数が上限を超えた場合は、CLOCK(セカンドチャンス)方式で追い出し対象を決定する。
+ * すなわち、前回の追い出し以降に登録または参照されたエントリは一度だけ追い出しを免れ、
+ * 参照されていないエントリから順に破棄される。
+ *
+ * @param <K> キーの型
+ * @param <V> 値の型
+ */
+final class BoundedConcurrentCache<K, V> {
+
+    /** キャッシュエントリ */
+    private static final class Entry<V> {
+        /** 値 */
+        private final V value;
+        /**
+         * 前回の追い出し以降に参照されたか否か。
+         * (厳密な値は必要ないため、volatileとはしない)
+         */
+        private boolean referenced = true;
+
+        /**
+         * コンストラクタ。
+         * @param value 値
+         */
+        private Entry(V value) {
+            this.value = value;
+        }
+    }
+
+    /** エントリを保持するMap */
+    private final ConcurrentHashMap<K, Entry<V>> entries;
+
+    /** 最大エントリ数 */
+    private final int maxSize;
+
+    /** 追い出し処理のロック */
+    private final Object evictionLock = new Object();
+
+    /** 追い出し対象を走査するイテレータ(CLOCKの針) */
+    private Iterator<Map.Entry<K, Entry<V>>> hand;
+
+    /**
+     * コンストラクタ。
+     * @param maxSize 最大エントリ数(1以上)
+     */
+    BoundedConcurrentCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive. maxSize = " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<K, Entry<V>>();
+    }
+
+    /**
+     * キャッシュされた値を取得する。
+     * @param key キー
+     * @return キャッシュされた値(存在しない場合はnull)
+     */
+    V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry.value;
+    }
+
+    /**
+     * 値をキャッシュする。
+     * <p/>
+     * エントリ数が上限を超えた場合は、上限以下となるまでエントリを追い出す。
+     *
+     * @param key キー
+     * @param value 値
+     */
+    void put(K key, V value) {
+        entries.put(key, new Entry<V>(value));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * エントリを削除する。
+     * @param key キー
+     */
+    void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * 全てのエントリを削除する。
+     */
+    void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 現在のエントリ数を返す。
+     * @return エントリ数
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * エントリ数が上限以下となるまでエントリを追い出す。
+     */
+    private void evict() {
+        synchronized (evictionLock) {
+            while (entries.size() > maxSize) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = entries.entrySet().iterator();
+                    if (!hand.hasNext()) {
+                        return;
+                    }
+                }
+                Entry<V> entry = hand.next().getValue();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else {
+                    hand.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package nablarch.fw.handler;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 委譲対象クラスのデフォルトコンストラクタをキャッシュして使用する
+ * デリゲートファクトリ（{@link DelegateFactory}）の実装クラス。
+ * <p/>
+ * 委譲対象クラスごとに、初回のインスタンス生成時にデフォルトコンストラクタを取得し、
+ * アクセス可否の検証を済ませた上でキャッシュする。
+ * 2回目以降のインスタンス生成では、キャッシュしたコンストラクタを直接呼び出すため、
+ * {@link Class#newInstance()}が呼び出しの都度行うアクセスチェックが行われない。
+ * <p/>
+ * インスタンスを生成できない場合の例外は、{@link DefaultDelegateFactory}と同様に以下の通りとなる。
+ * <pre>
+ *   委譲対象クラスが抽象クラスやインタフェースである場合、
+ *   またはデフォルトコンストラクタが存在しない場合       : {@link InstantiationException}
+ *   委譲対象クラスまたはデフォルトコンストラクタが
+ *   publicでない場合                                     : {@link IllegalAccessException}
+ * </pre>
+ * コンストラクタで例外が送出された場合、実行時例外およびエラーはそのまま送出し、
+ * 検査例外は{@link RuntimeException}でラップして送出する。
+ */
+public class CachedConstructorDelegateFactory implements DelegateFactory {
+
+    /** 委譲対象クラスごとのデフォルトコンストラクタ */
+    private final ConcurrentMap<Class<?>, Constructor<?>> constructors =
+        new ConcurrentHashMap<Class<?>, Constructor<?>>();
+
+    @Override
+    public Object create(Class<?> clazz) throws InstantiationException, IllegalAccessException {
+        Constructor<?> constructor = constructors.get(clazz);
+        if (constructor == null) {
+            constructor = getDefaultConstructor(clazz);
+            constructors.putIfAbsent(clazz, constructor);
+        }
+        try {
+            return constructor.newInstance();
+        } catch (InvocationTargetException e) {
+            // コンストラクタで例外が送出された場合。
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * 委譲対象クラスのデフォルトコンストラクタを取得し、呼び出し可能な状態にして返す。
+     *
+     * @param clazz 委譲対象クラス
+     * @return デフォルトコンストラクタ
+     * @throws InstantiationException 委譲対象クラスが抽象クラスやインタフェースである場合、
+     *                                 またはデフォルトコンストラクタが存在しない場合
+     * @throws IllegalAccessException 委譲対象クラスまたはデフォルトコンストラクタがpublicでない場合
+     */
+    private static Constructor<?> getDefaultConstructor(Class<?> clazz)
+    throws InstantiationException, IllegalAccessException {
+        int classModifiers = clazz.getModifiers();
+        if (clazz.isInterface() || clazz.isArray() || clazz.isPrimitive()
+                || Modifier.isAbstract(classModifiers)) {
+            throw new InstantiationException(clazz.getName());
+        }
+        Constructor<?> constructor;
+        try {
+            constructor = clazz.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new InstantiationException(clazz.getName());
+        }
+        if (!Modifier.isPublic(classModifiers) || !Modifier.isPublic(constructor.getModifiers())) {
+            throw new IllegalAccessException(
+                "Class " + CachedConstructorDelegateFactory.class.getName()
+              + " can not access a non-public member of class " + clazz.getName());
+        }
+        // アクセス可否は検証済みのため、呼び出しの都度のアクセスチェックを省略する。
+        constructor.setAccessible(true);
+        return constructor;
+    }
+}
@@ -0,0 +1,311 @@
+package nablarch.fw.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+
+/**
+ * 委譲先クラスのインスタンスを再利用するデリゲートファクトリ（{@link DelegateFactory}）の実装クラス。
+ * <p/>
+ * 委譲先クラスごとに、以下のいずれかの方式でインスタンスを提供する。
+ * <pre>
+ *   singletonTargets に合致するクラス : クラスごとに1つのインスタンスを生成し、全てのリクエストで共有する。
+ *   pooledTargets に合致するクラス    : クラスごとにインスタンスをプールし、リクエストの処理が終了したら返却されたインスタンスを再利用する。
+ *   いずれにも合致しないクラス        : delegateFactory プロパティに設定されたデリゲートファクトリで都度インスタンスを生成する。
+ * </pre>
+ * singletonTargets および pooledTargets には、委譲先クラスの完全修飾名、
+ * もしくはパッケージ名に".*"を付与したパターン(配下のパッケージも対象となる)を設定する。
+ * 複数のパターンに合致する場合は、完全修飾名による指定が優先され、
+ * パッケージ名による指定同士では、より長いパッケージ名が優先される。
+ * <p/>
+ * singletonTargets に指定するクラスは、状態を持たないスレッドセーフなクラスでなければならない。
+ * pooledTargets に指定するクラスは、{@link ResettableDelegate}を実装することで、
+ * プールに戻される前にインスタンスの状態を初期化することができる。
+ * プールに保持するインスタンス数の上限は poolSize プロパティで設定する(デフォルトは10)。
+ * 上限を超えて返却されたインスタンスは破棄される。
+ * <p/>
+ * 設定例を以下に示す。
+ * <pre>
+ * {@code
+ * <component class="nablarch.fw.handler.CachingDelegateFactory">
+ *   <property name="singletonTargets">
+ *     <list>
+ *       <value>com.example.action.stateless.*</value>
+ *     </list>
+ *   </property>
+ *   <property name="pooledTargets">
+ *     <list>
+ *       <value>com.example.action.UploadAction</value>
+ *     </list>
+ *   </property>
+ * </component>
+ * }
+ * </pre>
+ *
+ * @see DispatchHandler#setDelegateFactory(DelegateFactory)
+ */
+public class CachingDelegateFactory implements ReleasableDelegateFactory {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(CachingDelegateFactory.class);
+
+    /** プールに保持するインスタンス数の上限のデフォルト値 */
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    /** パッケージ指定を表すパターンの接尾辞 */
+    private static final String PACKAGE_PATTERN_SUFFIX = ".*";
+
+    /** インスタンスの生成に使用するデリゲートファクトリ */
+    private DelegateFactory delegateFactory = new CachedConstructorDelegateFactory();
+
+    /** インスタンスを共有するクラスのパターン */
+    private List<String> singletonTargets = new ArrayList<String>();
+
+    /** インスタンスをプールするクラスのパターン */
+    private List<String> pooledTargets = new ArrayList<String>();
+
+    /** プールに保持するインスタンス数の上限 */
+    private int poolSize = DEFAULT_POOL_SIZE;
+
+    /** 委譲先クラスごとのインスタンスの提供方式 */
+    private final ConcurrentMap<Class<?>, InstanceProvider> providers =
+        new ConcurrentHashMap<Class<?>, InstanceProvider>();
+
+    /** 委譲先クラスのインスタンスの提供方式 */
+    private interface InstanceProvider {
+        /**
+         * インスタンスを取得する。
+         * @param clazz 委譲先クラス
+         * @return インスタンス
+         * @throws InstantiationException インスタンス生成に失敗した場合
+         * @throws IllegalAccessException クラスまたはコンストラクタにアクセスできない場合
+         */
+        Object get(Class<?> clazz) throws InstantiationException, IllegalAccessException;
+
+        /**
+         * インスタンスを返却する。
+         * @param delegate インスタンス
+         */
+        void release(Object delegate);
+    }
+
+    /** 都度インスタンスを生成する方式 */
+    private final InstanceProvider prototypeProvider = new InstanceProvider() {
+        @Override
+        public Object get(Class<?> clazz) throws InstantiationException, IllegalAccessException {
+            return delegateFactory.create(clazz);
+        }
+
+        @Override
+        public void release(Object delegate) {
+            // nop
+        }
+    };
+
+    /** インスタンスを共有する方式 */
+    private static final class SingletonProvider implements InstanceProvider {
+        /** 共有するインスタンス */
+        private final Object instance;
+
+        /**
+         * コンストラクタ。
+         * @param instance 共有するインスタンス
+         */
+        private SingletonProvider(Object instance) {
+            this.instance = instance;
+        }
+
+        @Override
+        public Object get(Class<?> clazz) {
+            return instance;
+        }
+
+        @Override
+        public void release(Object delegate) {
+            // nop
+        }
+    }
+
+    /** インスタンスをプールする方式 */
+    private final class PooledProvider implements InstanceProvider {
+        /** プールされたインスタンス */
+        private final Queue<Object> pool = new ConcurrentLinkedQueue<Object>();
+        /** プールされたインスタンス数 */
+        private final AtomicInteger pooledCount = new AtomicInteger(0);
+        /** プールに保持するインスタンス数の上限 */
+        private final int maxSize;
+
+        /**
+         * コンストラクタ。
+         * @param maxSize プールに保持するインスタンス数の上限
+         */
+        private PooledProvider(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public Object get(Class<?> clazz) throws InstantiationException, IllegalAccessException {
+            Object instance = pool.poll();
+            if (instance == null) {
+                return delegateFactory.create(clazz);
+            }
+            pooledCount.decrementAndGet();
+            return instance;
+        }
+
+        @Override
+        public void release(Object delegate) {
+            if (delegate instanceof ResettableDelegate) {
+                try {
+                    ((ResettableDelegate) delegate).reset();
+                } catch (RuntimeException e) {
+                    // 初期化に失敗したインスタンスは再利用しない。
+                    LOGGER.logWarn("failed to reset delegate. the instance is discarded. class = "
+                            + delegate.getClass().getName(), e);
+                    return;
+                }
+            }
+            if (pooledCount.incrementAndGet() > maxSize) {
+                pooledCount.decrementAndGet();
+                return;
+            }
+            pool.offer(delegate);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * このクラスの実装では、委譲先クラスに対する設定に従い、
+     * 共有インスタンス、プールされたインスタンス、新たに生成したインスタンスのいずれかを返す。
+     */
+    @Override
+    public Object create(Class<?> clazz) throws InstantiationException, IllegalAccessException {
+        InstanceProvider provider = providers.get(clazz);
+        if (provider == null) {
+            provider = createProvider(clazz);
+            InstanceProvider existing = providers.putIfAbsent(clazz, provider);
+            if (existing != null) {
+                provider = existing;
+            }
+        }
+        return provider.get(clazz);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * このクラスの実装では、プール対象のクラスのインスタンスであれば、
+     * {@link ResettableDelegate#reset()}で初期化した上でプールに戻す。
+     * プールに戻せないインスタンスは破棄する。
+     */
+    @Override
+    public void release(Object delegate) {
+        if (delegate == null) {
+            return;
+        }
+        InstanceProvider provider = providers.get(delegate.getClass());
+        if (provider != null) {
+            provider.release(delegate);
+        }
+    }
+
+    /**
+     * 委譲先クラスのインスタンスの提供方式を生成する。
+     * @param clazz 委譲先クラス
+     * @return インスタンスの提供方式
+     * @throws InstantiationException インスタンス生成に失敗した場合
+     * @throws IllegalAccessException クラスまたはコンストラクタにアクセスできない場合
+     */
+    private InstanceProvider createProvider(Class<?> clazz)
+    throws InstantiationException, IllegalAccessException {
+        String className = clazz.getName();
+        int singletonPriority = getMatchPriority(singletonTargets, className);
+        int pooledPriority = getMatchPriority(pooledTargets, className);
+        if (singletonPriority < 0 && pooledPriority < 0) {
+            return prototypeProvider;
+        }
+        if (singletonPriority >= pooledPriority) {
+            return new SingletonProvider(delegateFactory.create(clazz));
+        }
+        return new PooledProvider(poolSize);
+    }
+
+    /**
+     * クラス名がパターンに合致する場合の優先度を返す。
+     * @param patterns パターン
+     * @param className クラス名
+     * @return 優先度(値が大きいほど優先される)。合致しない場合は-1。
+     */
+    private static int getMatchPriority(List<String> patterns, String className) {
+        int priority = -1;
+        for (String pattern : patterns) {
+            if (pattern.endsWith(PACKAGE_PATTERN_SUFFIX)) {
+                String prefix = pattern.substring(0, pattern.length() - 1);
+                if (className.startsWith(prefix)) {
+                    priority = Math.max(priority, prefix.length());
+                }
+            } else if (pattern.equals(className)) {
+                return Integer.MAX_VALUE;
+            }
+        }
+        return priority;
+    }
+
+    /**
+     * インスタンスの生成に使用するデリゲートファクトリを設定する。
+     * 明示的に設定されない場合、{@link CachedConstructorDelegateFactory}を使用する。
+     *
+     * @param delegateFactory デリゲートファクトリ
+     */
+    public void setDelegateFactory(DelegateFactory delegateFactory) {
+        this.delegateFactory = delegateFactory;
+        providers.clear();
+    }
+
+    /**
+     * インスタンスを共有するクラスのパターンを設定する。
+     * <p/>
+     * 委譲先クラスの完全修飾名、もしくはパッケージ名に".*"を付与したパターンを設定する。
+     *
+     * @param singletonTargets インスタンスを共有するクラスのパターン
+     */
+    public void setSingletonTargets(List<String> singletonTargets) {
+        this.singletonTargets = new ArrayList<String>(singletonTargets);
+        providers.clear();
+    }
+
+    /**
+     * インスタンスをプールするクラスのパターンを設定する。
+     * <p/>
+     * 委譲先クラスの完全修飾名、もしくはパッケージ名に".*"を付与したパターンを設定する。
+     *
+     * @param pooledTargets インスタンスをプールするクラスのパターン
+     */
+    public void setPooledTargets(List<String> pooledTargets) {
+        this.pooledTargets = new ArrayList<String>(pooledTargets);
+        providers.clear();
+    }
+
+    /**
+     * プールに保持するインスタンス数の上限を設定する。
+     * <p/>
+     * デフォルトは10。
+     *
+     * @param poolSize プールに保持するインスタンス数の上限
+     */
+    public void setPoolSize(int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize must be positive.");
+        }
+        this.poolSize = poolSize;
+        providers.clear();
+    }
+}
@@ -0,0 +1,151 @@
+package nablarch.fw.handler;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * クラスをキーとした、スレッドセーフなキャッシュ。
+ * <p/>
+ * キーのクラスは弱参照で、値はソフト参照で保持する。
+ * このため、値がキーのクラス(そのクラスのメソッドなど)を参照していても、
+ * 本キャッシュがクラスおよびそのクラスローダを保持し続けることはない。
+ * アプリケーションが再デプロイされた場合、使用されなくなったクラスのエントリはガベージコレクションによって破棄される。
+ * <p/>
+ * 値の取得はロックを取得せずに行う。
+ * 破棄されたクラスのエントリは、値の登録時に取り除く。
+ * <p/>
+ * 値はメモリが不足した場合などに破棄されることがあるため、
+ * 利用側は値が取得できない場合に作成し直すこと。
+ *
+ * @param <V> 値の型
+ */
+final class ClassKeyedCache<V> {
+
+    /** エントリを保持するMap */
+    private final ConcurrentMap<Object, Reference<V>> entries = new ConcurrentHashMap<Object, Reference<V>>();
+
+    /** ガベージコレクションによって破棄されたクラスのキーが通知されるキュー */
+    private final ReferenceQueue<Class<?>> queue = new ReferenceQueue<Class<?>>();
+
+    /**
+     * 値を取得する。
+     * @param clazz キーとなるクラス
+     * @return 値(登録されていない場合、または破棄された場合はnull)
+     */
+    V get(Class<?> clazz) {
+        Reference<V> ref = entries.get(new LookupKey(clazz));
+        return (ref == null) ? null : ref.get();
+    }
+
+    /**
+     * 値が登録されていない場合に登録する。
+     * <p/>
+     * 他のスレッドが既に値を登録していた場合は、その値を返す。
+     * このため、同じクラスに対して並行に呼び出された場合も、全ての呼び出し元が同じ値を使用する。
+     *
+     * @param clazz キーとなるクラス
+     * @param value 値
+     * @return 登録済みの値(登録されていなかった場合は引数の値)
+     */
+    V putIfAbsent(Class<?> clazz, V value) {
+        expungeStaleEntries();
+        WeakKey key = new WeakKey(clazz, queue);
+        Reference<V> newRef = new SoftReference<V>(value);
+        while (true) {
+            Reference<V> ref = entries.putIfAbsent(key, newRef);
+            if (ref == null) {
+                return value;
+            }
+            V existing = ref.get();
+            if (existing != null) {
+                return existing;
+            }
+            if (entries.replace(key, ref, newRef)) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * ガベージコレクションによって破棄されたクラスのエントリを取り除く。
+     */
+    private void expungeStaleEntries() {
+        Reference<? extends Class<?>> stale;
+        while ((stale = queue.poll()) != null) {
+            entries.remove(stale);
+        }
+    }
+
+    /**
+     * キーとなるクラスを取得する。
+     * @param key キー
+     * @return キーとなるクラス(破棄された場合はnull)
+     */
+    private static Class<?> classOf(Object key) {
+        return (key instanceof WeakKey) ? ((WeakKey) key).get() : ((LookupKey) key).clazz;
+    }
+
+    /**
+     * エントリのキー。クラスを弱参照で保持する。
+     */
+    private static final class WeakKey extends WeakReference<Class<?>> {
+        /** クラスの識別ハッシュコード */
+        private final int hash;
+
+        /**
+         * コンストラクタ。
+         * @param clazz クラス
+         * @param queue クラスが破棄された場合に通知されるキュー
+         */
+        private WeakKey(Class<?> clazz, ReferenceQueue<Class<?>> queue) {
+            super(clazz, queue);
+            hash = System.identityHashCode(clazz);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            Class<?> clazz = get();
+            return clazz != null
+                && (obj instanceof WeakKey || obj instanceof LookupKey)
+                && clazz == classOf(obj);
+        }
+    }
+
+    /**
+     * 値の取得時に使用するキー。
+     */
+    private static final class LookupKey {
+        /** クラス */
+        private final Class<?> clazz;
+
+        /**
+         * コンストラクタ。
+         * @param clazz クラス
+         */
+        private LookupKey(Class<?> clazz) {
+            this.clazz = clazz;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(clazz);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return (obj instanceof WeakKey || obj instanceof LookupKey) && clazz == classOf(obj);
+        }
+    }
+}
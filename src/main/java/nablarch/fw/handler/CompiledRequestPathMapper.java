@@ -0,0 +1,201 @@
+package nablarch.fw.handler;
+
+/**
+ * リクエストパスから委譲先クラスの完全修飾名を算出するクラス。
+ * <p/>
+ * {@link RequestPathJavaPackageMapping}が正規表現を用いて行っていた以下の処理を、
+ * リクエストパスの1回の走査で、正規表現および中間文字列を使用せずに行う。
+ * <ol>
+ *   <li>リクエストパスのベースパス部分をマッピング先Javaパッケージに置き換える。</li>
+ *   <li>連続するドット(.)およびスラッシュ(/)を1つのドットに置き換え、先頭と末尾のドットを除去する。</li>
+ *   <li>小文字(もしくは"_")で始まる要素をパッケージ名、最初に現れる大文字で始まる要素をクラス名とし、
+ *       クラス名に接頭辞・接尾辞を付加する。</li>
+ * </ol>
+ * ベースパスに正規表現のメタ文字が含まれる場合は、従来の処理と結果が一致しないため使用できない。
+ * ({@link #isApplicable(String)}を参照)
+ */
+final class CompiledRequestPathMapper {
+
+    /** ベースパスの長さ */
+    private final int basePathLength;
+
+    /** 委譲対象クラス名の接頭辞 */
+    private final String classNamePrefix;
+
+    /** 委譲対象クラス名の接尾辞 */
+    private final String classNameSuffix;
+
+    /** 要素の先頭を待っている状態 */
+    private static final int SEGMENT_START = 0;
+
+    /** パッケージ名の要素を走査している状態 */
+    private static final int IN_PACKAGE = 1;
+
+    /** クラス名を走査している状態 */
+    private static final int IN_CLASS = 2;
+
+    /** クラス名より後ろの部分を走査している状態 */
+    private static final int REST = 3;
+
+    /**
+     * コンストラクタ。
+     * @param basePath ベースパス
+     * @param classNamePrefix 委譲対象クラス名の接頭辞
+     * @param classNameSuffix 委譲対象クラス名の接尾辞
+     */
+    CompiledRequestPathMapper(String basePath, String classNamePrefix, String classNameSuffix) {
+        this.basePathLength = basePath.length();
+        this.classNamePrefix = classNamePrefix;
+        this.classNameSuffix = classNameSuffix;
+    }
+
+    /**
+     * ベースパスが本クラスで扱えるものであるか否かを判定する。
+     * <p/>
+     * 従来の処理はベースパスを正規表現として置換に使用しているため、
+     * 正規表現のメタ文字を含むベースパスは本クラスでは扱わない。
+     *
+     * @param basePath ベースパス
+     * @return 正規表現のメタ文字を含まない場合はtrue
+     */
+    static boolean isApplicable(String basePath) {
+        for (int i = 0; i < basePath.length(); i++) {
+            if ("\\^$.|?*+()[]{}".indexOf(basePath.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * マッピング先Javaパッケージが本クラスで扱えるものであるか否かを判定する。
+     * <p/>
+     * 従来の処理はマッピング先Javaパッケージを置換文字列として使用しているため、
+     * 置換文字列の特殊文字を含むパッケージ名は本クラスでは扱わない。
+     *
+     * @param basePackage マッピング先Javaパッケージ
+     * @return 置換文字列の特殊文字を含まない場合はtrue
+     */
+    static boolean isApplicablePackage(String basePackage) {
+        return basePackage.indexOf('$') < 0 && basePackage.indexOf('\\') < 0;
+    }
+
+    /**
+     * リクエストパスから委譲先クラスの完全修飾名を算出する。
+     *
+     * @param requestPath リクエストパス(ベースパスで始まること)
+     * @param basePackage マッピング先Javaパッケージ
+     * @return 委譲先クラスの完全修飾名(マッピングできない場合はnull)
+     */
+    String map(String requestPath, String basePackage) {
+        int packageLength = basePackage.length();
+        int length = packageLength + 1 + requestPath.length() - basePathLength;
+
+        StringBuilder fqn = new StringBuilder(length + classNamePrefix.length() + classNameSuffix.length());
+        int state = SEGMENT_START;
+        boolean leading = true;
+        boolean separated = false;
+        for (int i = 0; i < length; i++) {
+            char c = charAt(requestPath, basePackage, i);
+            if (c == '.' || c == '/') {
+                // 連続する区切り文字は1つのドットとみなし、先頭と末尾の区切り文字は無視する。
+                separated = !leading;
+                continue;
+            }
+            leading = false;
+            if (separated) {
+                separated = false;
+                if (state == IN_PACKAGE) {
+                    fqn.append('.');
+                    state = SEGMENT_START;
+                } else if (state == IN_CLASS) {
+                    state = REST;
+                }
+            }
+            switch (state) {
+            case SEGMENT_START:
+                if (isLowerStart(c)) {
+                    state = IN_PACKAGE;
+                } else if (c >= 'A' && c <= 'Z') {
+                    fqn.append(classNamePrefix);
+                    state = IN_CLASS;
+                } else {
+                    return null;
+                }
+                fqn.append(c);
+                break;
+            case IN_PACKAGE:
+                if (!isIdentifierPart(c)) {
+                    return null;
+                }
+                fqn.append(c);
+                break;
+            case IN_CLASS:
+                if (isIdentifierPart(c)) {
+                    fqn.append(c);
+                    break;
+                }
+                state = REST;
+                if (isLineTerminator(c)) {
+                    return null;
+                }
+                break;
+            default:
+                if (isLineTerminator(c)) {
+                    return null;
+                }
+                break;
+            }
+        }
+        if (state != IN_CLASS && state != REST) {
+            return null;
+        }
+        return fqn.append(classNameSuffix).toString();
+    }
+
+    /**
+     * マッピング先Javaパッケージとベースパス以降のリクエストパスをドットで連結した文字列の、指定位置の文字を取得する。
+     * @param requestPath リクエストパス
+     * @param basePackage マッピング先Javaパッケージ
+     * @param index 位置
+     * @return 文字
+     */
+    private char charAt(String requestPath, String basePackage, int index) {
+        int packageLength = basePackage.length();
+        if (index < packageLength) {
+            return basePackage.charAt(index);
+        }
+        if (index == packageLength) {
+            return '.';
+        }
+        return requestPath.charAt(basePathLength + index - packageLength - 1);
+    }
+
+    /**
+     * パッケージ名の要素の先頭に使用できる文字か否かを判定する。
+     * @param c 文字
+     * @return 英小文字もしくは"_"の場合はtrue
+     */
+    private static boolean isLowerStart(char c) {
+        return (c >= 'a' && c <= 'z') || c == '_';
+    }
+
+    /**
+     * 識別子の2文字目以降に使用できる文字か否かを判定する。
+     * @param c 文字
+     * @return 英数字もしくは"_"の場合はtrue
+     */
+    private static boolean isIdentifierPart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    /**
+     * 行末文字か否かを判定する。
+     * (正規表現の"."に一致しない文字)
+     * @param c 文字
+     * @return 行末文字の場合はtrue
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -7,6 +7,8 @@ import nablarch.fw.Handler;
 import nablarch.fw.Result;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * ハンドラキューの委譲チェインとは独立したルールに従って、
@@ -26,6 +28,12 @@ implements Handler<TData, TResult> {
     /** デリゲートファクトリ */
     private DelegateFactory delegateFactory = new DefaultDelegateFactory();
 
+    /** 委譲先クラスをキーとした、Handler#handleメソッドのキャッシュ */
+    private final ConcurrentMap<Class<?>, Method> handleMethodCache = new ConcurrentHashMap<Class<?>, Method>();
+
+    /** ハンドラのクラスをキーとした、インターセプタの付与を判定するhandleメソッドのキャッシュ(直接呼び出し時に使用する) */
+    private final ConcurrentMap<Class<?>, Method> interceptedMethodCache = new ConcurrentHashMap<Class<?>, Method>();
+
     /**
      * 処理を委譲するハンドラの型を決定する。
      * 
@@ -48,6 +56,15 @@ implements Handler<TData, TResult> {
      *   immediate = true : ハンドラキューの先頭に追加。(即時に実行される。)
      *   immediate = false: ハンドラキューの末尾に追加。 
      * </pre>
+     * 
+     * directInvocation プロパティにtrueが設定され、かつ immediate = true の場合は、
+     * ハンドラキューに追加せずに委譲先ハンドラを直接呼び出す({@link #setDirectInvocation(boolean)}を参照)。
+     * 
+     * latencyRecorder プロパティが設定されている場合は、ディスパッチ先の処理時間(後続のハンドラの処理時間を含む)を
+     * ディスパッチ先クラスごとに記録する。
+     * 
+     * デリゲートファクトリが{@link ReleasableDelegateFactory}を実装している場合は、
+     * 後続のハンドラの処理が終了した時点で、生成したインスタンスをデリゲートファクトリに返却する。
      */
     @SuppressWarnings("unchecked")
     public TResult handle(TData req, ExecutionContext ctx) {
@@ -56,47 +73,116 @@ implements Handler<TData, TResult> {
         Object delegate = null;
         String fqn = null;
         Class<?> clazz = null;
+        DispatchLatencyRecorder recorder = latencyRecorder;
+        long startTime = 0L;
         try {
-            clazz = getHandlerClass(req, ctx);
-            fqn = clazz.getName();
-            // 委譲先クラスのインスタンスを生成する
-            delegate = delegateFactory.create(clazz);
-            
-            handler = createHandlerFor(delegate, ctx);
+            try {
+                clazz = getHandlerClass(req, ctx);
+                fqn = clazz.getName();
+                // 委譲先クラスのインスタンスを生成する
+                delegate = delegateFactory.create(clazz);
+                
+                handler = createHandlerFor(delegate, ctx);
+                
+            } catch (ClassNotFoundException e) {
+                // クラス名が存在しない場合は404エラーにする。
+                String message = "Couldn't find handler.: " + fqn;
+                writeNotFoundLog(LOGGER, message, e);
+                throw new Result.NotFound(message, e);
             
-        } catch (ClassNotFoundException e) {
-            // クラス名が存在しない場合は404エラーにする。
-            String message = "Couldn't find handler.: " + fqn;
-            LOGGER.logInfo(message, e);
-            throw new Result.NotFound(message, e);
-        
-        } catch (InstantiationException e) {
-            // Couldn't create an instance because the class was
-            // abstract or interface.
-            throw new RuntimeException(e);
+            } catch (InstantiationException e) {
+                // Couldn't create an instance because the class was
+                // abstract or interface.
+                throw new RuntimeException(e);
+                
+            } catch (IllegalAccessException e) {
+                // Couldn't create an instance because access to
+                // its constructor was not permitted.
+                throw new RuntimeException(e);
+            }
             
-        } catch (IllegalAccessException e) {
-            // Couldn't create an instance because access to
-            // its constructor was not permitted.
-            throw new RuntimeException(e);
-        }
-        
-        if (handler == null) {
-            String message = "Couldn't instantiate handler.: " + fqn;
-            LOGGER.logInfo(message);
-            throw new Result.NotFound(message);
+            startTime = (recorder == null) ? 0L : System.nanoTime();
+            if (handler == null) {
+                String message = "Couldn't instantiate handler.: " + fqn;
+                writeNotFoundLog(LOGGER, message, null);
+                throw new Result.NotFound(message);
+            }
+
+            if (immediate && directInvocation) {
+                // ハンドラキューを経由せずに直接実行する。
+                return invokeDirectly(handler, req, ctx);
+            }
+            if (immediate) {
+                // ハンドラキューの先頭に追加。(直後に実行される。)
+                ctx.addHandler(0, handler);
+            } else {
+                // ハンドラキューの最後尾に追加。
+                ctx.addHandler(handler);
+            }
+
+            return (TResult) ctx.handleNext(req);
+
+        } finally {
+            if (recorder != null && handler != null) {
+                recorder.record(clazz, System.nanoTime() - startTime);
+            }
+            if (delegate != null && delegateFactory instanceof ReleasableDelegateFactory) {
+                // 再利用されるインスタンスをデリゲートファクトリに返却する。
+                // (ハンドラの作成に失敗した場合も返却する。)
+                ((ReleasableDelegateFactory) delegateFactory).release(delegate);
+            }
         }
-                
-        if (immediate) {
-            // ハンドラキューの先頭に追加。(直後に実行される。)
-            ctx.addHandler(0, handler);
-        } else {
-            // ハンドラキューの最後尾に追加。
-            ctx.addHandler(handler);
+    }
+    /**
+     * 委譲先ハンドラをハンドラキューを経由せずに呼び出す。
+     * <p/>
+     * ハンドラキューに追加した場合と同様に、ハンドラのhandleメソッドに付与されたインターセプタを経由して呼び出す。
+     * また、{@link ExecutionContext#handleNext(Object)}と同様に、
+     * 呼び出しの間は処理対象のリクエストを実行コンテキストに設定し、呼び出し後に元に戻す。
+     *
+     * @param handler 委譲先ハンドラ
+     * @param req 入力データ
+     * @param ctx 実行コンテキスト
+     * @return 委譲先ハンドラの処理結果
+     */
+    private TResult invokeDirectly(Handler<TData, TResult> handler, TData req, ExecutionContext ctx) {
+        Handler<TData, TResult> intercepted = InterceptorChain.of(getInterceptedMethod(handler.getClass())).wrap(handler);
+        Object currentRequest = ctx.getCurrentRequestObject();
+        ctx.setCurrentRequestObject(req);
+        try {
+            return intercepted.handle(req, ctx);
+        } finally {
+            ctx.setCurrentRequestObject(currentRequest);
         }
+    }
 
-        return (TResult) ctx.handleNext(req);
+    /**
+     * インターセプタの付与を判定するhandleメソッドを取得する。
+     * <p/>
+     * ハンドラキューへの追加時にインターセプタを適用する{@link nablarch.fw.Interceptor.Factory#wrap(Handler)}と同じく、
+     * 引数を2つ持つhandleメソッドのうち、第1引数の型がObjectでないメソッドを優先して使用する。
+     * 取得したメソッドはハンドラのクラスごとにキャッシュする。
+     *
+     * @param handlerClass ハンドラのクラス
+     * @return handleメソッド
+     */
+    private Method getInterceptedMethod(Class<?> handlerClass) {
+        Method method = interceptedMethodCache.get(handlerClass);
+        if (method != null) {
+            return method;
+        }
+        for (Method candidate : handlerClass.getMethods()) {
+            if (candidate.getName().equals("handle") && candidate.getParameterTypes().length == 2) {
+                method = candidate;
+                if (!candidate.getParameterTypes()[0].equals(Object.class)) {
+                    break;
+                }
+            }
+        }
+        interceptedMethodCache.put(handlerClass, method);
+        return method;
     }
+
     /**
      * 渡されたインスタンスからハンドラインスタンスを作成して返す。
      * 
@@ -127,16 +213,35 @@ implements Handler<TData, TResult> {
         return null;
     }
 
+    /**
+     * ディスパッチ先のクラスおよびメソッドをリクエストスコープに設定する。
+     * <p/>
+     * ディスパッチ先のメソッドは委譲先クラスごとにキャッシュし、2回目以降はリフレクションによる検索を行わない。
+     *
+     * @param context 実行コンテキスト
+     * @param delegate 委譲先のインスタンス
+     * @throws NoSuchMethodException handleメソッドが存在しない場合
+     */
     private void saveHandlerClassAndMethodToRequestScope(ExecutionContext context, Object delegate) throws NoSuchMethodException {
         Class<?> clazz = delegate.getClass();
         context.setRequestScopedVar(MethodBinding.SCOPE_VAR_NAME_BOUND_CLASS, clazz);
 
-        Method handleMethod = clazz.getMethod("handle", Object.class, ExecutionContext.class);
+        Method handleMethod = handleMethodCache.get(clazz);
+        if (handleMethod == null) {
+            handleMethod = clazz.getMethod("handle", Object.class, ExecutionContext.class);
+            handleMethodCache.put(clazz, handleMethod);
+        }
         context.setRequestScopedVar(MethodBinding.SCOPE_VAR_NAME_BOUND_METHOD, handleMethod);
     }
     
     /** ディスパッチされたハンドラの実行タイミング。 */
     private boolean immediate = true;
+
+    /** ディスパッチされたハンドラをハンドラキューを経由せずに呼び出すか否か。 */
+    private boolean directInvocation = false;
+
+    /** ディスパッチ先クラスごとの処理時間を記録するオブジェクト(記録しない場合はnull) */
+    private DispatchLatencyRecorder latencyRecorder;
     
     /**
      * ディスパッチされたハンドラの実行タイミングを指定する。
@@ -152,6 +257,40 @@ implements Handler<TData, TResult> {
         this.immediate = immediate;
         return (TSelf) this;
     }
+
+    /**
+     * ディスパッチされたハンドラをハンドラキューを経由せずに呼び出すか否かを指定する。
+     * <p/>
+     * trueを指定した場合、ディスパッチされたハンドラをハンドラキューに追加せず、本ハンドラから直接呼び出す。
+     * 後続のハンドラの構成や実行結果は、ハンドラキューの先頭に追加した場合と変わらないが、
+     * リクエストごとのハンドラキューの更新が不要となる。
+     * ハンドラのhandleメソッドに付与されたインターセプタも、ハンドラキューに追加した場合と同様に適用する。
+     * ディスパッチされたハンドラの実行中にハンドラキューの内容を参照する処理が存在しない場合に使用すること。
+     * <p/>
+     * 本設定は、immediate プロパティがtrueの場合のみ有効となる。デフォルトはfalse。
+     *
+     * @param directInvocation ディスパッチされたハンドラを直接呼び出す場合はtrue
+     * @return このオブジェクト自体
+     */
+    @SuppressWarnings("unchecked")
+    public TSelf setDirectInvocation(boolean directInvocation) {
+        this.directInvocation = directInvocation;
+        return (TSelf) this;
+    }
+
+    /**
+     * ディスパッチ先クラスごとの処理時間を記録するオブジェクトを設定する。
+     * <p/>
+     * 設定しない場合は処理時間を記録しない。
+     *
+     * @param latencyRecorder ディスパッチ先クラスごとの処理時間を記録するオブジェクト
+     * @return このオブジェクト自体
+     */
+    @SuppressWarnings("unchecked")
+    public TSelf setLatencyRecorder(DispatchLatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+        return (TSelf) this;
+    }
     
     /**
      * アクセスログにディスパッチ先クラスを出力する。
@@ -169,6 +308,51 @@ implements Handler<TData, TResult> {
         //nop
     }
 
+    /** ディスパッチ先が存在しなかった旨のログ出力の頻度を制限するオブジェクト */
+    private LogRateLimiter notFoundLogLimiter = new LogRateLimiter(0L);
+
+    /**
+     * ディスパッチ先が存在しなかった旨のログをINFOレベルで出力する。
+     * <p/>
+     * {@link #setNotFoundLogIntervalMillis(long)}で出力間隔が設定されている場合は、
+     * 出力間隔内の2件目以降のログ出力を抑止し、次回の出力時に抑止した件数を付記する。
+     *
+     * @param logger  ロガー
+     * @param message メッセージ
+     * @param cause   原因となった例外(存在しない場合はnull)
+     */
+    protected void writeNotFoundLog(Logger logger, String message, Throwable cause) {
+        int suppressed = notFoundLogLimiter.acquire();
+        if (suppressed == LogRateLimiter.SUPPRESSED) {
+            return;
+        }
+        String msg = (suppressed == 0)
+                   ? message
+                   : message + " (" + suppressed + " similar messages were suppressed.)";
+        if (cause == null) {
+            logger.logInfo(msg);
+        } else {
+            logger.logInfo(msg, cause);
+        }
+    }
+
+    /**
+     * ディスパッチ先が存在しなかった旨のログの出力間隔(ミリ秒)を設定する。
+     * <p/>
+     * 存在しないリクエストパスへのアクセスが大量に行われた場合に、
+     * ログ出力が処理のボトルネックとなることを防ぐために使用する。
+     * 出力間隔内の2件目以降のログ出力は抑止され、抑止された件数が次回のログに付記される。
+     * デフォルトは0(全てのログを出力する)。
+     *
+     * @param notFoundLogIntervalMillis ログの出力間隔(ミリ秒)
+     * @return このオブジェクト自体
+     */
+    @SuppressWarnings("unchecked")
+    public TSelf setNotFoundLogIntervalMillis(long notFoundLogIntervalMillis) {
+        notFoundLogLimiter = new LogRateLimiter(notFoundLogIntervalMillis);
+        return (TSelf) this;
+    }
+
     /**
      * ハンドラファクトリを設定する。
      * 明示的に設定されない場合、デフォルト実装として{@link DefaultDelegateFactory}を使用する。
@@ -0,0 +1,199 @@
+package nablarch.fw.handler;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import nablarch.core.repository.disposal.Disposable;
+import nablarch.core.repository.initialization.Initializable;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * {@link DispatchHandler}のディスパッチ先クラスごとの処理時間を記録するクラス。
+ * <p/>
+ * ディスパッチ先クラスごとに固定サイズのヒストグラムを持ち、処理件数および
+ * 処理時間のパーセンタイル(50、99、99.9パーセンタイル)を参照できる。
+ * 処理時間の記録はロックの取得およびオブジェクトの生成を行わないため(ヒストグラムを作成する初回の記録を除く)、
+ * 高負荷時にも有効にしたままとすることを想定している。
+ * <p/>
+ * 本クラスを初期化対象のコンポーネント(initializeList)に登録した場合、
+ * objectName プロパティに設定した名前でプラットフォームMBeanサーバに登録し、
+ * JMXクライアントから記録内容を参照できるようにする。
+ * また、廃棄対象のコンポーネント(disposableList)に登録した場合、廃棄時にMBeanサーバから登録を解除する。
+ * <p/>
+ * 設定例を以下に示す。
+ * <pre>
+ * {@code
+ * <component name="dispatchLatencyRecorder" class="nablarch.fw.handler.DispatchLatencyRecorder">
+ *   <property name="objectName" value="nablarch.fw.handler:type=DispatchLatencyRecorder" />
+ * </component>
+ *
+ * <component class="nablarch.fw.handler.RequestPathJavaPackageMapping">
+ *   <property name="latencyRecorder" ref="dispatchLatencyRecorder" />
+ *   <!-- 他のプロパティは省略 -->
+ * </component>
+ * }
+ * </pre>
+ *
+ * @see DispatchHandler#setLatencyRecorder(DispatchLatencyRecorder)
+ */
+@Published(tag = "architect")
+public class DispatchLatencyRecorder implements DispatchLatencyRecorderMBean, Initializable, Disposable {
+
+    /** MBeanの登録名のデフォルト値 */
+    private static final String DEFAULT_OBJECT_NAME = "nablarch.fw.handler:type=DispatchLatencyRecorder";
+
+    /** ナノ秒をマイクロ秒に変換する除数 */
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    /** ディスパッチ先クラスごとのヒストグラム */
+    private final ConcurrentMap<Class<?>, LatencyHistogram> histograms =
+        new ConcurrentHashMap<Class<?>, LatencyHistogram>();
+
+    /** MBeanの登録名 */
+    private String objectName = DEFAULT_OBJECT_NAME;
+
+    /** 登録したMBeanの名前(登録していない場合はnull) */
+    private ObjectName registeredName;
+
+    /**
+     * ディスパッチ先クラスの処理時間を記録する。
+     *
+     * @param clazz ディスパッチ先クラス
+     * @param elapsedNanos 処理時間(ナノ秒)
+     */
+    public void record(Class<?> clazz, long elapsedNanos) {
+        LatencyHistogram histogram = histograms.get(clazz);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(clazz, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        histogram.record(elapsedNanos / NANOS_PER_MICRO);
+    }
+
+    @Override
+    public String[] getClassNames() {
+        List<String> classNames = new ArrayList<String>();
+        for (Class<?> clazz : histograms.keySet()) {
+            classNames.add(clazz.getName());
+        }
+        Collections.sort(classNames);
+        return classNames.toArray(new String[classNames.size()]);
+    }
+
+    @Override
+    public String[] getSummary() {
+        String[] classNames = getClassNames();
+        String[] summary = new String[classNames.length];
+        for (int i = 0; i < classNames.length; i++) {
+            LatencyHistogram histogram = findHistogram(classNames[i]);
+            summary[i] = classNames[i]
+                       + " count=" + histogram.getCount()
+                       + " p50=" + histogram.getValueAtPercentile(50)
+                       + " p99=" + histogram.getValueAtPercentile(99)
+                       + " p999=" + histogram.getValueAtPercentile(99.9)
+                       + " max=" + histogram.getMax();
+        }
+        return summary;
+    }
+
+    @Override
+    public long getCount(String className) {
+        LatencyHistogram histogram = findHistogram(className);
+        return (histogram == null) ? 0 : histogram.getCount();
+    }
+
+    @Override
+    public long getValueAtPercentile(String className, double percentile) {
+        LatencyHistogram histogram = findHistogram(className);
+        return (histogram == null) ? 0 : histogram.getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public long getMax(String className) {
+        LatencyHistogram histogram = findHistogram(className);
+        return (histogram == null) ? 0 : histogram.getMax();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * クラス名に対応するヒストグラムを取得する。
+     * @param className ディスパッチ先クラスの完全修飾名
+     * @return ヒストグラム(存在しない場合はnull)
+     */
+    private LatencyHistogram findHistogram(String className) {
+        for (Map.Entry<Class<?>, LatencyHistogram> entry : histograms.entrySet()) {
+            if (entry.getKey().getName().equals(className)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 本クラスをプラットフォームMBeanサーバに登録する。
+     *
+     * @throws IllegalStateException MBeanの登録に失敗した場合
+     */
+    @Override
+    public synchronized void initialize() {
+        if (registeredName != null) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(objectName);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            registeredName = name;
+        } catch (JMException e) {
+            throw new IllegalStateException("failed to register MBean. objectName = " + objectName, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * プラットフォームMBeanサーバから登録を解除する。
+     */
+    @Override
+    public synchronized void dispose() throws Exception {
+        if (registeredName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(registeredName)) {
+            server.unregisterMBean(registeredName);
+        }
+        registeredName = null;
+    }
+
+    /**
+     * MBeanの登録名を設定する。
+     * <p/>
+     * デフォルトは"nablarch.fw.handler:type=DispatchLatencyRecorder"。
+     * 複数のインスタンスを登録する場合は、それぞれ異なる名前を設定すること。
+     *
+     * @param objectName MBeanの登録名
+     */
+    public void setObjectName(String objectName) {
+        this.objectName = objectName;
+    }
+}
@@ -0,0 +1,54 @@
+package nablarch.fw.handler;
+
+/**
+ * {@link DispatchLatencyRecorder}が記録したディスパッチ先クラスごとの処理時間を参照するためのMBeanインタフェース。
+ * <p/>
+ * 処理時間の単位はマイクロ秒とする。
+ */
+public interface DispatchLatencyRecorderMBean {
+
+    /**
+     * 処理時間を記録したディスパッチ先クラスの完全修飾名を取得する。
+     * @return ディスパッチ先クラスの完全修飾名(辞書順)
+     */
+    String[] getClassNames();
+
+    /**
+     * ディスパッチ先クラスごとの処理時間の要約を取得する。
+     * <p/>
+     * 各要素は以下の形式となる。
+     * <pre>
+     *   クラス名 count=件数 p50=値 p99=値 p999=値 max=値
+     * </pre>
+     *
+     * @return ディスパッチ先クラスごとの処理時間の要約(クラス名の辞書順)
+     */
+    String[] getSummary();
+
+    /**
+     * ディスパッチ先クラスの処理件数を取得する。
+     * @param className ディスパッチ先クラスの完全修飾名
+     * @return 処理件数(記録が存在しない場合は0)
+     */
+    long getCount(String className);
+
+    /**
+     * ディスパッチ先クラスの処理時間の指定されたパーセンタイルの値を取得する。
+     * @param className ディスパッチ先クラスの完全修飾名
+     * @param percentile パーセンタイル(0より大きく100以下)
+     * @return 処理時間(マイクロ秒)。記録が存在しない場合は0。
+     */
+    long getValueAtPercentile(String className, double percentile);
+
+    /**
+     * ディスパッチ先クラスの処理時間の最大値を取得する。
+     * @param className ディスパッチ先クラスの完全修飾名
+     * @return 処理時間(マイクロ秒)。記録が存在しない場合は0。
+     */
+    long getMax(String className);
+
+    /**
+     * 記録した処理時間を全て破棄する。
+     */
+    void reset();
+}
@@ -0,0 +1,26 @@
+package nablarch.fw.handler;
+
+import java.util.Collection;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * ビルド時に作成された、委譲先クラスの索引。
+ * <p/>
+ * 本インタフェースの実装クラスは、{@link HandlerClassIndexProcessor}によってコンパイル時に生成され、
+ * {@link java.util.ServiceLoader}の仕組みで登録される。
+ * {@link RequestPathJavaPackageMapping}は、コンテキストクラスローダから本インタフェースの実装クラスを取得できた場合、
+ * 索引に含まれるクラスをクラスのロードを行わずに委譲先クラスとして使用する。
+ *
+ * @see HandlerClassIndexProcessor
+ */
+@Published(tag = "architect")
+public interface HandlerClassIndex {
+
+    /**
+     * 索引に含まれる委譲先クラスを取得する。
+     *
+     * @return 委譲先クラス
+     */
+    Collection<Class<?>> getHandlerClasses();
+}
@@ -0,0 +1,219 @@
+package nablarch.fw.handler;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * 委譲先クラスの索引({@link HandlerClassIndex})の実装クラスをコンパイル時に生成するアノテーションプロセッサ。
+ * <p/>
+ * 以下のオプションで指定されたパッケージ配下(サブパッケージを含む)の、publicかつ具象のトップレベルクラスを索引に登録する。
+ * <pre>
+ *   nablarch.handlerClassIndex.packages  : 索引の対象とするパッケージ(カンマ区切り、必須)
+ *   nablarch.handlerClassIndex.className : 生成するクラスの完全修飾名
+ *                                          (省略時は、最初に指定したパッケージ配下の GeneratedHandlerClassIndex)
+ * </pre>
+ * 生成したクラスはクラスリテラルで委譲先クラスを参照するため、索引を使用したディスパッチでは
+ * リフレクションによるクラスのロードが行われない。
+ * <p/>
+ * 本プロセッサは自動的には有効にならない。
+ * Mavenを使用する場合は、以下のようにmaven-compiler-pluginに設定すること。
+ * <pre>
+ * {@code
+ * <plugin>
+ *   <artifactId>maven-compiler-plugin</artifactId>
+ *   <configuration>
+ *     <annotationProcessors>
+ *       <annotationProcessor>nablarch.fw.handler.HandlerClassIndexProcessor</annotationProcessor>
+ *     </annotationProcessors>
+ *     <compilerArgs>
+ *       <arg>-Anablarch.handlerClassIndex.packages=com.example.action</arg>
+ *     </compilerArgs>
+ *   </configuration>
+ * </plugin>
+ * }
+ * </pre>
+ * 索引には、同一のコンパイル処理でコンパイルされたクラスのみが登録される。
+ * 索引は最初のラウンドで生成するため、他のアノテーションプロセッサが生成したクラスは登録されない。
+ * 差分コンパイルを行った場合は索引が不完全となるが、索引に存在しないクラスは
+ * {@link RequestPathJavaPackageMapping}が従来どおりクラスローダから取得する。
+ * また、事前ロードおよびメソッドの検証では、索引が存在してもクラスパスを走査するため、索引に存在しないクラスも対象となる。
+ *
+ * @see RequestPathJavaPackageMapping
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions({
+    HandlerClassIndexProcessor.OPTION_PACKAGES,
+    HandlerClassIndexProcessor.OPTION_CLASS_NAME
+})
+public class HandlerClassIndexProcessor extends AbstractProcessor {
+
+    /** 索引の対象とするパッケージを指定するオプション */
+    public static final String OPTION_PACKAGES = "nablarch.handlerClassIndex.packages";
+
+    /** 生成するクラスの完全修飾名を指定するオプション */
+    public static final String OPTION_CLASS_NAME = "nablarch.handlerClassIndex.className";
+
+    /** 生成するクラスのデフォルトのクラス名 */
+    private static final String DEFAULT_SIMPLE_CLASS_NAME = "GeneratedHandlerClassIndex";
+
+    /** サービスプロバイダ構成ファイルのパス */
+    private static final String SERVICE_FILE = "META-INF/services/" + HandlerClassIndex.class.getName();
+
+    /** 索引に登録するクラスの完全修飾名 */
+    private final Set<String> classNames = new TreeSet<String>();
+
+    /** 索引を生成済みか否か */
+    private boolean generated = false;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        List<String> packages = getPackages();
+        if (packages.isEmpty() || generated || roundEnv.processingOver()) {
+            return false;
+        }
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            if (isIndexTarget(type, packages)) {
+                classNames.add(type.getQualifiedName().toString());
+            }
+        }
+        // 最終ラウンドで生成したソースファイルはコンパイラの警告対象となるため、最初のラウンドで生成する。
+        try {
+            generate(getIndexClassName(packages));
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(
+                Kind.ERROR, "failed to generate handler class index. cause = " + e);
+        }
+        generated = true;
+        return false;
+    }
+
+    /**
+     * 索引の対象とするパッケージを取得する。
+     * @return 索引の対象とするパッケージ(オプションが指定されていない場合は空のリスト)
+     */
+    private List<String> getPackages() {
+        String option = processingEnv.getOptions().get(OPTION_PACKAGES);
+        if (option == null) {
+            return Collections.emptyList();
+        }
+        List<String> packages = new ArrayList<String>();
+        for (String packageName : Arrays.asList(option.split(","))) {
+            if (packageName.trim().length() > 0) {
+                packages.add(packageName.trim());
+            }
+        }
+        return packages;
+    }
+
+    /**
+     * 生成するクラスの完全修飾名を取得する。
+     * @param packages 索引の対象とするパッケージ
+     * @return 生成するクラスの完全修飾名
+     */
+    private String getIndexClassName(List<String> packages) {
+        String className = processingEnv.getOptions().get(OPTION_CLASS_NAME);
+        if (className != null && className.trim().length() > 0) {
+            return className.trim();
+        }
+        return packages.get(0) + '.' + DEFAULT_SIMPLE_CLASS_NAME;
+    }
+
+    /**
+     * 索引に登録するクラスか否かを判定する。
+     * @param type クラス
+     * @param packages 索引の対象とするパッケージ
+     * @return publicかつ具象のトップレベルクラスで、対象パッケージ配下に存在する場合はtrue
+     */
+    private boolean isIndexTarget(TypeElement type, List<String> packages) {
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL
+                || !type.getKind().isClass()
+                || type.getKind() == ElementKind.ENUM
+                || !type.getModifiers().contains(Modifier.PUBLIC)
+                || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        for (String target : packages) {
+            if (packageName.equals(target) || packageName.startsWith(target + '.')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 索引の実装クラスおよびサービスプロバイダ構成ファイルを生成する。
+     * @param indexClassName 生成するクラスの完全修飾名
+     * @throws IOException ファイルの出力に失敗した場合
+     */
+    private void generate(String indexClassName) throws IOException {
+        int lastDot = indexClassName.lastIndexOf('.');
+        String packageName = (lastDot < 0) ? "" : indexClassName.substring(0, lastDot);
+        String simpleName = indexClassName.substring(lastDot + 1);
+
+        Writer source = processingEnv.getFiler().createSourceFile(indexClassName).openWriter();
+        try {
+            PrintWriter out = new PrintWriter(source);
+            if (packageName.length() > 0) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("/** Generated by " + HandlerClassIndexProcessor.class.getName() + ". Do not edit. */");
+            out.println("public final class " + simpleName + " implements " + HandlerClassIndex.class.getName() + " {");
+            out.println();
+            out.println("    private static final java.util.List<Class<?>> CLASSES = java.util.Collections.unmodifiableList(");
+            out.println("        java.util.Arrays.<Class<?>>asList(");
+            int i = 0;
+            for (String className : classNames) {
+                out.println("            " + className + ".class" + (++i < classNames.size() ? "," : ""));
+            }
+            out.println("        ));");
+            out.println();
+            out.println("    public java.util.Collection<Class<?>> getHandlerClasses() {");
+            out.println("        return CLASSES;");
+            out.println("    }");
+            out.println("}");
+            out.flush();
+        } finally {
+            source.close();
+        }
+
+        FileObject serviceFile = processingEnv.getFiler().createResource(
+            StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+        Writer service = serviceFile.openWriter();
+        try {
+            service.write(indexClassName);
+            service.write('\n');
+        } finally {
+            service.close();
+        }
+        processingEnv.getMessager().printMessage(
+            Kind.NOTE, "generated handler class index. class = " + indexClassName + ", count = " + classNames.size());
+    }
+}
@@ -0,0 +1,156 @@
+package nablarch.fw.handler;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+
+/**
+ * クラスパス上の指定されたパッケージ配下に存在するクラスを列挙するクラス。
+ * <p/>
+ * ディレクトリおよびJARファイルに配置されたクラスを対象とする。
+ * それ以外の形式(アプリケーションサーバ固有の仮想ファイルシステムなど)で配置されたクラスは列挙されない。
+ * なお、ネストしたクラス(クラス名に"$"を含むクラス)は対象外とする。
+ */
+final class HandlerClassScanner {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(HandlerClassScanner.class);
+
+    /** クラスファイルの拡張子 */
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    /** 隠蔽コンストラクタ */
+    private HandlerClassScanner() {
+    }
+
+    /**
+     * 指定されたパッケージおよびそのサブパッケージに存在するクラスの完全修飾名を列挙する。
+     *
+     * @param loader      クラスローダ
+     * @param packageName パッケージ名
+     * @return クラスの完全修飾名(辞書順)
+     * @throws IOException クラスパスの読み込みに失敗した場合
+     */
+    static Set<String> scan(ClassLoader loader, String packageName) throws IOException {
+        Set<String> classNames = new TreeSet<String>();
+        String resourceName = packageName.replace('.', '/');
+        Enumeration<URL> resources = loader.getResources(resourceName);
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            String protocol = url.getProtocol();
+            if ("file".equals(protocol)) {
+                scanDirectory(toFile(url), packageName, classNames);
+            } else if ("jar".equals(protocol)) {
+                scanJar(url, resourceName, classNames);
+            } else {
+                LOGGER.logInfo("unsupported class path resource was skipped. url = " + url);
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * 指定されたパッケージのいずれかに存在するクラスの完全修飾名を列挙する。
+     *
+     * @param loader       クラスローダ
+     * @param packageNames パッケージ名
+     * @return クラスの完全修飾名(辞書順)
+     * @throws IOException クラスパスの読み込みに失敗した場合
+     */
+    static Set<String> scan(ClassLoader loader, List<String> packageNames) throws IOException {
+        Set<String> classNames = new TreeSet<String>();
+        for (String packageName : packageNames) {
+            classNames.addAll(scan(loader, packageName));
+        }
+        return classNames;
+    }
+
+    /**
+     * ディレクトリ配下のクラスを列挙する。
+     * @param dir         ディレクトリ
+     * @param packageName ディレクトリに対応するパッケージ名
+     * @param classNames  列挙したクラスの完全修飾名の格納先
+     */
+    private static void scanDirectory(File dir, String packageName, Set<String> classNames) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                scanDirectory(file, packageName + '.' + name, classNames);
+            } else if (isTopLevelClassFile(name)) {
+                classNames.add(packageName + '.' + name.substring(0, name.length() - CLASS_FILE_SUFFIX.length()));
+            }
+        }
+    }
+
+    /**
+     * JARファイル中のクラスを列挙する。
+     * @param url          パッケージを表すURL
+     * @param resourceName パッケージのリソース名
+     * @param classNames   列挙したクラスの完全修飾名の格納先
+     * @throws IOException JARファイルの読み込みに失敗した場合
+     */
+    private static void scanJar(URL url, String resourceName, Set<String> classNames) throws IOException {
+        URLConnection connection = url.openConnection();
+        if (!(connection instanceof JarURLConnection)) {
+            LOGGER.logInfo("unsupported class path resource was skipped. url = " + url);
+            return;
+        }
+        connection.setUseCaches(false);
+        JarFile jar = ((JarURLConnection) connection).getJarFile();
+        try {
+            String prefix = resourceName + '/';
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                String entryName = entries.nextElement().getName();
+                if (!entryName.startsWith(prefix)) {
+                    continue;
+                }
+                String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+                if (isTopLevelClassFile(fileName)) {
+                    classNames.add(entryName.substring(0, entryName.length() - CLASS_FILE_SUFFIX.length())
+                                            .replace('/', '.'));
+                }
+            }
+        } finally {
+            jar.close();
+        }
+    }
+
+    /**
+     * ネストしていないクラスのクラスファイルであるか否かを返す。
+     * @param fileName ファイル名
+     * @return ネストしていないクラスのクラスファイルであればtrue
+     */
+    private static boolean isTopLevelClassFile(String fileName) {
+        return fileName.endsWith(CLASS_FILE_SUFFIX) && fileName.indexOf('$') < 0;
+    }
+
+    /**
+     * URLをファイルに変換する。
+     * @param url URL
+     * @return ファイル
+     */
+    private static File toFile(URL url) {
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            return new File(url.getPath());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package nablarch.fw.handler;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+
+/**
+ * 委譲先クラスのメソッドを事前に解決し、検証するクラス。
+ * <p/>
+ * {@link Handler}を実装していない委譲先クラス(メソッド単位でディスパッチされるクラス)について、以下を行う。
+ * <ul>
+ *   <li>handle()メソッドと互換なシグニチャを持つメソッドの索引を作成し、{@link MethodBinding}の索引に登録する。</li>
+ *   <li>それらのメソッドに付与されたインターセプタの構成({@link InterceptorChain})を作成してキャッシュする。
+ *       インターセプタの実行順に定義されていないインターセプタが付与されている場合などは問題として報告する。</li>
+ *   <li>handle()メソッドと同じ型の引数を持つにもかかわらずディスパッチ先とならないメソッド
+ *       (staticメソッド、引数の順序が逆のメソッド、および非publicのメソッド)は、
+ *       厳密な検証を行う場合は問題として報告する。
+ *       厳密な検証を行わない場合は、ヘルパーメソッドの可能性があるため問題とはせず、
+ *       publicのメソッドは警告ログ、非publicのメソッドはデバッグログの出力のみ行う。</li>
+ * </ul>
+ * シグニチャの判定は{@link MethodBinding#qualifiesAsHandler(Method)}のデフォルトの判定処理に従う。
+ * <p/>
+ * 本クラスはコンポーネントの初期化時({@link nablarch.core.repository.SystemRepository}の構築前)に使用されるため、
+ * インターセプタの実行順はリポジトリから取得せず、引数で受け取る。
+ */
+final class HandlerMethodVerifier {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(HandlerMethodVerifier.class);
+
+    /** 隠蔽コンストラクタ */
+    private HandlerMethodVerifier() {
+    }
+
+    /**
+     * 委譲先クラスのメソッドを事前に解決し、検証する。
+     *
+     * @param clazz 委譲先クラス
+     * @param interceptorsOrder インターセプタの実行順(定義されていない場合はnull)
+     * @param strict ディスパッチ先とならないメソッドを問題として報告する場合はtrue
+     * @return 検出した問題(問題が存在しない場合は空のリスト)
+     */
+    static List<String> verify(Class<?> clazz, List<String> interceptorsOrder, boolean strict) {
+        List<String> problems = new ArrayList<String>();
+        if (Handler.class.isAssignableFrom(clazz)
+                || clazz.isInterface()
+                || Modifier.isAbstract(clazz.getModifiers())) {
+            return problems;
+        }
+        for (Method method : MethodBinding.prepareHandleMethods(clazz)) {
+            try {
+                InterceptorChain.prepare(method, interceptorsOrder);
+            } catch (RuntimeException e) {
+                problems.add(method + ": invalid interceptors. cause = " + e.getMessage());
+            }
+        }
+        for (Method method : clazz.getDeclaredMethods()) {
+            if (method.isSynthetic() || MethodBinding.hasHandlerSignature(method)) {
+                continue;
+            }
+            Class<?>[] paramTypes = method.getParameterTypes();
+            if (paramTypes.length != 2 || !Arrays.asList(paramTypes).contains(ExecutionContext.class)) {
+                continue;
+            }
+            if (strict) {
+                problems.add(method + ": not a handler method. handler method must be public, non-static and "
+                           + "take (request, ExecutionContext) as arguments.");
+            } else if (Modifier.isPublic(method.getModifiers())) {
+                LOGGER.logWarn(method + " is not a handler method. handler method must be non-static and "
+                             + "take (request, ExecutionContext) as arguments.");
+            } else if (LOGGER.isDebugEnabled()) {
+                LOGGER.logDebug(method + " is not public, so it is not a handler method.");
+            }
+        }
+        return problems;
+    }
+}
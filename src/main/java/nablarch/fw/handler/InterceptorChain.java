@@ -0,0 +1,233 @@
+package nablarch.fw.handler;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import nablarch.core.repository.SystemRepository;
+import nablarch.fw.Handler;
+import nablarch.fw.Interceptor;
+
+/**
+ * 委譲先メソッドに付与されたインターセプタの構成。
+ * <p/>
+ * {@link Interceptor.Factory#wrap(Handler, Annotation[])}がリクエストごとに行っていた
+ * インターセプタの抽出、並び替え、および実装クラスのコンストラクタの取得を、委譲先メソッドごとに1度だけ行いキャッシュする。
+ * リクエストごとには、インターセプタの実装クラスのインスタンス生成と設定のみを行う。
+ * <p/>
+ * インターセプタの実行順は、{@link Interceptor.Factory}と同じく、
+ * {@link SystemRepository}に"interceptorsOrder"という名前で登録されたリストに従う。
+ * リポジトリは構成の作成時にのみ参照し、キャッシュの取得時には参照しない。
+ * {@link SystemRepository}には再読み込みを通知する仕組みが存在しないため、
+ * リポジトリを再構築して実行順を置き換えた場合は{@link #clearCache()}を呼び出すこと。
+ * 呼び出し以降、インターセプタが付与されたメソッドの構成は、次回の取得時に作り直す。
+ * インターセプタが付与されていないメソッドの構成は実行順に依存しないため、作り直さない。
+ * <p/>
+ * 構成はアプリケーションのクラスを参照するため、クラスローダを保持し続けないよう、
+ * 委譲先メソッドを宣言したクラスごとに{@link ClassKeyedCache}で保持する。
+ */
+final class InterceptorChain {
+
+    /** インターセプタの実行順が定義されたリストのリポジトリ上の名前 */
+    private static final String INTERCEPTORS_ORDER_KEY = "interceptorsOrder";
+
+    /** 委譲先メソッドを宣言したクラスごとの、委譲先メソッドをキーとしたインターセプタの構成のキャッシュ */
+    private static final ClassKeyedCache<ConcurrentMap<Method, InterceptorChain>> CHAINS =
+        new ClassKeyedCache<ConcurrentMap<Method, InterceptorChain>>();
+
+    /** キャッシュの世代。{@link #clearCache()}を呼び出すごとに増加する。 */
+    private static volatile int generation = 0;
+
+    /** 構成を作成した時点のキャッシュの世代 */
+    private final int createdGeneration;
+
+    /** ハンドラを包む順に並べたインターセプタ */
+    private final List<Annotation> interceptors;
+
+    /** ハンドラを包む順に並べたインターセプタの実装クラスのコンストラクタ */
+    private final List<Constructor<?>> constructors;
+
+    /**
+     * コンストラクタ。
+     * @param annotations 委譲先メソッドに付与されたアノテーション
+     * @param interceptorsOrder インターセプタの実行順(定義されていない場合はnull)
+     * @param createdGeneration 構成を作成した時点のキャッシュの世代
+     */
+    @SuppressWarnings("unchecked")
+    private InterceptorChain(Annotation[] annotations, Object interceptorsOrder, int createdGeneration) {
+        List<Annotation> found = new ArrayList<Annotation>();
+        for (Annotation annotation : annotations) {
+            if (Interceptor.Factory.getInterceptorOf(annotation) != null) {
+                found.add(annotation);
+            }
+        }
+        this.createdGeneration = createdGeneration;
+        this.interceptors = Collections.unmodifiableList(sort(found, (List<String>) interceptorsOrder));
+        List<Constructor<?>> list = new ArrayList<Constructor<?>>();
+        for (Annotation interceptor : interceptors) {
+            Class<?> implClass = Interceptor.Factory.getInterceptorOf(interceptor).value();
+            try {
+                list.add(implClass.getConstructor());
+            } catch (NoSuchMethodException e) {
+                throw new RuntimeException(
+                    "Default constructor is needed to handle interception.: " + implClass.toString(), e);
+            }
+        }
+        this.constructors = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * 委譲先メソッドに付与されたインターセプタの構成を取得する。
+     *
+     * @param method 委譲先メソッド
+     * @return インターセプタの構成
+     * @throws IllegalArgumentException インターセプタの実行順に定義されていないインターセプタが付与されていた場合
+     */
+    static InterceptorChain of(Method method) {
+        ConcurrentMap<Method, InterceptorChain> chains = getChains(method);
+        InterceptorChain chain = chains.get(method);
+        int current = generation;
+        if (chain != null && (chain.isEmpty() || chain.createdGeneration == current)) {
+            return chain;
+        }
+        chain = new InterceptorChain(method.getAnnotations(), SystemRepository.getObject(INTERCEPTORS_ORDER_KEY), current);
+        chains.put(method, chain);
+        return chain;
+    }
+
+    /**
+     * 委譲先メソッドを宣言したクラスの、委譲先メソッドをキーとしたインターセプタの構成のキャッシュを取得する。
+     * @param method 委譲先メソッド
+     * @return インターセプタの構成のキャッシュ
+     */
+    private static ConcurrentMap<Method, InterceptorChain> getChains(Method method) {
+        ConcurrentMap<Method, InterceptorChain> chains = CHAINS.get(method.getDeclaringClass());
+        if (chains == null) {
+            chains = CHAINS.putIfAbsent(method.getDeclaringClass(), new ConcurrentHashMap<Method, InterceptorChain>());
+        }
+        return chains;
+    }
+
+    /**
+     * キャッシュしたインターセプタの構成を破棄する。
+     * <p/>
+     * 以降の{@link #of(Method)}では、インターセプタが付与されたメソッドの構成を、
+     * その時点でリポジトリに登録されている実行順に従って作り直す。
+     */
+    static synchronized void clearCache() {
+        generation++;
+    }
+
+    /**
+     * 委譲先メソッドに付与されたインターセプタの構成を事前に作成し、キャッシュする。
+     * <p/>
+     * {@link SystemRepository}の構築前(コンポーネントの初期化時など)にも使用できるよう、
+     * インターセプタの実行順はリポジトリから取得せず、引数で受け取る。
+     * このため、引数にはリポジトリに登録する実行順と同じものを渡すこと。
+     * 実行順が渡されなかった場合、インターセプタが付与されたメソッドの構成は、リポジトリの実行順に依存するためキャッシュしない。
+     *
+     * @param method 委譲先メソッド
+     * @param interceptorsOrder インターセプタの実行順(定義されていない場合はnull)
+     * @throws IllegalArgumentException インターセプタの実行順に定義されていないインターセプタが付与されていた場合
+     * @throws RuntimeException インターセプタの実装クラスがデフォルトコンストラクタを持たない場合
+     */
+    static void prepare(Method method, List<String> interceptorsOrder) {
+        InterceptorChain chain = new InterceptorChain(method.getAnnotations(), interceptorsOrder, generation);
+        if (interceptorsOrder == null && !chain.isEmpty()) {
+            return;
+        }
+        getChains(method).put(method, chain);
+    }
+
+    /**
+     * インターセプタが存在しないか否かを返す。
+     * @return インターセプタが存在しない場合はtrue
+     */
+    boolean isEmpty() {
+        return interceptors.isEmpty();
+    }
+
+    /**
+     * ハンドラをインターセプタで包む。
+     *
+     * @param <TData> 入力データの型
+     * @param <TResult> 結果データの型
+     * @param handler ハンドラ
+     * @return インターセプタで包んだハンドラ(インターセプタが存在しない場合は引数のハンドラ)
+     */
+    @SuppressWarnings("unchecked")
+    <TData, TResult> Handler<TData, TResult> wrap(Handler<TData, TResult> handler) {
+        Handler<TData, TResult> wrapped = handler;
+        for (int i = 0; i < constructors.size(); i++) {
+            Interceptor.Impl<TData, TResult, Annotation> impl =
+                (Interceptor.Impl<TData, TResult, Annotation>) newInstance(constructors.get(i));
+            impl.setOriginalHandler(wrapped);
+            impl.setInterceptor(interceptors.get(i));
+            wrapped = impl;
+        }
+        return wrapped;
+    }
+
+    /**
+     * インターセプタの実装クラスのインスタンスを生成する。
+     * @param constructor コンストラクタ
+     * @return インターセプタの実装クラスのインスタンス
+     */
+    private static Object newInstance(Constructor<?> constructor) {
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException e) {
+            throw new RuntimeException(e);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * インターセプタをハンドラを包む順に並び替える。
+     * <p/>
+     * 実行順が定義されていない場合は、アノテーションの順序のまま返す。
+     *
+     * @param interceptors インターセプタ
+     * @param order インターセプタの実行順(定義されていない場合はnull)
+     * @return ハンドラを包む順に並べたインターセプタ
+     * @throws IllegalArgumentException 実行順に定義されていないインターセプタが存在する場合
+     */
+    private static List<Annotation> sort(List<Annotation> interceptors, List<String> order) {
+        if (order == null) {
+            return interceptors;
+        }
+        List<Annotation> remaining = new ArrayList<Annotation>(interceptors);
+        List<Annotation> sorted = new ArrayList<Annotation>();
+        for (String name : order) {
+            for (Annotation interceptor : remaining) {
+                if (name.equals(interceptor.annotationType().getName())) {
+                    sorted.add(interceptor);
+                    remaining.remove(interceptor);
+                    break;
+                }
+            }
+        }
+        if (!remaining.isEmpty()) {
+            throw new IllegalArgumentException(
+                "interceptor is undefined in the interceptorsOrder. undefined interceptors=" + remaining);
+        }
+        Collections.reverse(sorted);
+        return sorted;
+    }
+}
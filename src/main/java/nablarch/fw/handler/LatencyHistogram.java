@@ -0,0 +1,131 @@
+package nablarch.fw.handler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 処理時間の分布を記録する、固定サイズのヒストグラム。
+ * <p/>
+ * 値(マイクロ秒)を対数的に区切ったバケットに記録する。
+ * 各バケットの幅は値の大きさに比例し、記録した値の相対誤差は最大で 1/64 (約1.6%) となる。
+ * 記録可能な最大値({@link #MAX_VALUE})を超える値は、最大値として記録する。
+ * <p/>
+ * 記録処理はロックの取得およびオブジェクトの生成を行わない。
+ * 参照処理は記録処理と並行して行えるが、参照結果は記録途中の値を含む近似値となる。
+ */
+final class LatencyHistogram {
+
+    /** バケット内を区切る精度(ビット数) */
+    private static final int SUB_BUCKET_BITS = 7;
+
+    /** 倍になるごとに追加されるバケット数 */
+    private static final int SUB_BUCKET_HALF_COUNT = 1 << (SUB_BUCKET_BITS - 1);
+
+    /** 記録可能な最大値(マイクロ秒、約1時間) */
+    static final long MAX_VALUE = (1L << 32) - 1;
+
+    /** 各バケットの記録件数 */
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+
+    /** 総記録件数 */
+    private final AtomicLong totalCount = new AtomicLong();
+
+    /** 記録した最大値 */
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * 値を記録する。
+     * @param value 値(マイクロ秒)。負数の場合は0として記録する。
+     */
+    void record(long value) {
+        long v = (value < 0) ? 0 : Math.min(value, MAX_VALUE);
+        counts.incrementAndGet(indexOf(v));
+        totalCount.incrementAndGet();
+        long max = maxValue.get();
+        while (v > max && !maxValue.compareAndSet(max, v)) {
+            max = maxValue.get();
+        }
+    }
+
+    /**
+     * 総記録件数を取得する。
+     * @return 総記録件数
+     */
+    long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * 記録した最大値を取得する。
+     * @return 記録した最大値(マイクロ秒)
+     */
+    long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * 指定されたパーセンタイルの値を取得する。
+     * <p/>
+     * 該当する値を含むバケットの上限値を返す。
+     *
+     * @param percentile パーセンタイル(0より大きく100以下)
+     * @return パーセンタイルの値(マイクロ秒)。記録件数が0の場合は0。
+     */
+    long getValueAtPercentile(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be in (0, 100]. percentile = " + percentile);
+        }
+        long total = totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1L, (long) Math.ceil(total * percentile / 100));
+        long accumulated = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            accumulated += counts.get(i);
+            if (accumulated >= target) {
+                return Math.min(highestValueOf(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    /**
+     * 記録した値を全て破棄する。
+     */
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        maxValue.set(0);
+    }
+
+    /**
+     * 値を記録するバケットのインデックスを算出する。
+     * @param value 値(0以上)
+     * @return バケットのインデックス
+     */
+    static int indexOf(long value) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude < SUB_BUCKET_BITS) {
+            return (int) value;
+        }
+        int shift = magnitude - (SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * バケットに記録される値の上限値を算出する。
+     * @param index バケットのインデックス
+     * @return バケットに記録される値の上限値
+     */
+    static long highestValueOf(int index) {
+        if (index < (1 << SUB_BUCKET_BITS)) {
+            return index;
+        }
+        int shift = (index >> (SUB_BUCKET_BITS - 1)) - 1;
+        long subBucket = index - shift * SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
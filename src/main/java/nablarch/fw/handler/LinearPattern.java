@@ -0,0 +1,1277 @@
+package nablarch.fw.handler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 対象文字列の長さに比例する時間で評価できる正規表現。
+ * <p/>
+ * パターンを非決定性有限オートマトンに変換し、対象文字列を1回だけ走査して全ての状態を並行に評価する。
+ * バックトラックを行わないため、パターンと対象文字列の組み合わせによって評価時間が爆発的に増加することはない。
+ * 評価時間はパターンの大きさと対象文字列の長さの積に比例する。
+ * <p/>
+ * グループの捕捉結果は、左側の選択肢、最長一致の量指定子を優先して決定する。
+ * 空文字列に一致し得るグループの繰り返しでは、同じ位置で同じ状態に至る評価を1つにまとめるため、
+ * 繰り返し内のグループの捕捉結果が{@link java.util.regex.Pattern}と異なる
+ * (例えば "a{0,1}(.*)*" を "/..a" に適用した場合、{@link java.util.regex.Pattern}ではグループ1が空文字列となる)。
+ * このため、捕捉グループを含み、かつ空文字列に一致し得る部分に量指定子を付けたパターン
+ * ((a*)*b、(.*?){2}、(x?)+ など)は拒否する。
+ * これ以外のパターンの捕捉結果は{@link java.util.regex.Pattern}と同じとなる。
+ * <p/>
+ * 以下の構文に対応する。
+ * <pre>
+ * 文字              x, \\, \., \t, \n, \r, \f, \a, \e, \xhh, \x{h...h}, \\uhhhh
+ * 文字クラス         [abc], [^abc], [a-z], ., \d, \D, \w, \W, \s, \S
+ * 境界              ^, $
+ * 量指定子           X?, X*, X+, X{n}, X{n,}, X{n,m} およびそれぞれの最短一致(X*? など)
+ * グループ           (X), (?:X), (?&lt;name&gt;X)
+ * 選択              X|Y
+ * </pre>
+ * 後方参照、先読み・後読み、強欲な量指定子、埋め込みフラグ、文字クラスの入れ子・積集合など、
+ * 上記以外の構文を含むパターン、および前述の捕捉結果が異なり得るパターンは、{@link IllegalArgumentException}を送出して拒否する。
+ */
+final class LinearPattern {
+
+    /** 命令の最大数 */
+    static final int MAX_PROGRAM_SIZE = 10000;
+
+    /** 繰り返し回数に指定できる最大値 */
+    static final int MAX_REPETITION = 1000;
+
+    /** 命令: 1文字に一致する */
+    private static final int CHAR = 0;
+    /** 命令: 行末文字以外の1文字に一致する */
+    private static final int ANY = 1;
+    /** 命令: 文字クラスに含まれる1文字に一致する */
+    private static final int CLASS = 2;
+    /** 命令: 2つの命令に分岐する(1つ目を優先する) */
+    private static final int SPLIT = 3;
+    /** 命令: 指定された命令に移動する */
+    private static final int JMP = 4;
+    /** 命令: 現在位置を記録する */
+    private static final int SAVE = 5;
+    /** 命令: 一致が成立する */
+    private static final int MATCH = 6;
+    /** 命令: 入力の先頭に一致する */
+    private static final int BOL = 7;
+    /** 命令: 入力の末尾に一致する */
+    private static final int EOL = 8;
+    /** 命令: 繰り返しの先頭に戻る(繰り返しで文字を消費しなかった場合は、繰り返しを終える) */
+    private static final int LOOP = 9;
+
+    /** パターン */
+    private final String source;
+
+    /** 捕捉グループの数 */
+    private final int groupCount;
+
+    /** 捕捉位置および繰り返しの開始位置の記録領域の大きさ */
+    private final int slotCount;
+
+    /** 命令の種類 */
+    private final int[] ops;
+
+    /** 命令の1つ目の引数 */
+    private final int[] args1;
+
+    /** 命令の2つ目の引数 */
+    private final int[] args2;
+
+    /** 文字クラスの命令が使用する文字クラス */
+    private final CharClass[] classes;
+
+    /**
+     * コンストラクタ。
+     * @param source     パターン
+     * @param groupCount 捕捉グループの数
+     * @param program    命令列
+     */
+    private LinearPattern(String source, int groupCount, Program program) {
+        this.source = source;
+        this.groupCount = groupCount;
+        this.slotCount = program.slotCount;
+        this.ops = Arrays.copyOf(program.ops, program.size);
+        this.args1 = Arrays.copyOf(program.args1, program.size);
+        this.args2 = Arrays.copyOf(program.args2, program.size);
+        this.classes = program.classes.toArray(new CharClass[program.size]);
+    }
+
+    /**
+     * パターンをコンパイルする。
+     *
+     * @param regex    パターン
+     * @param comments 空白およびコメントを無視する場合はtrue({@link java.util.regex.Pattern#COMMENTS}と同等)
+     * @return コンパイルしたパターン
+     * @throws IllegalArgumentException 対応していない構文を含む場合
+     */
+    static LinearPattern compile(String regex, boolean comments) {
+        Parser parser = new Parser(regex, comments);
+        Node node = parser.parse();
+        Program program = new Program(regex, parser.groupCount);
+        program.emit(SAVE, 0, 0);
+        program.emit(node);
+        program.emit(SAVE, 1, 0);
+        program.emit(MATCH, 0, 0);
+        return new LinearPattern(regex, parser.groupCount, program);
+    }
+
+    /**
+     * パターンを取得する。
+     * @return パターン
+     */
+    String pattern() {
+        return source;
+    }
+
+    /**
+     * 捕捉グループの数を取得する。
+     * @return 捕捉グループの数
+     */
+    int groupCount() {
+        return groupCount;
+    }
+
+    /**
+     * このパターンのマッチャを作成する。
+     * @return マッチャ
+     */
+    LinearMatcher matcher() {
+        return new LinearMatcher(this);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * 行末文字か否かを判定する。
+     * @param c 文字
+     * @return 行末文字の場合はtrue
+     */
+    private static boolean isLineTerminator(int c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * {@link LinearPattern}のマッチャ。
+     * <p/>
+     * 評価に使用する領域は作成時に確保し、評価のたびにオブジェクトを生成しない。
+     */
+    static final class LinearMatcher implements RewriteMatcher {
+
+        /** パターン */
+        private final LinearPattern pattern;
+
+        /** 捕捉位置および繰り返しの開始位置の記録領域の大きさ */
+        private final int slotCount;
+
+        /** 現在位置で評価する状態 */
+        private ThreadList current;
+
+        /** 次の位置で評価する状態 */
+        private ThreadList next;
+
+        /** 状態の追加で使用する作業領域(捕捉位置) */
+        private final int[] work;
+
+        /** 状態の追加で使用するスタック(種類) */
+        private final int[] stackKinds;
+
+        /** 状態の追加で使用するスタック(値1) */
+        private final int[] stackValues1;
+
+        /** 状態の追加で使用するスタック(値2) */
+        private final int[] stackValues2;
+
+        /** 命令ごとの、最後に状態を追加した世代 */
+        private final int[] marks;
+
+        /** 状態の世代 */
+        private int generation;
+
+        /** 直前の判定で一致した捕捉位置 */
+        private final int[] matchedSlots;
+
+        /** 直前の判定で一致したか否か */
+        private boolean matched;
+
+        /** 対象文字列 */
+        private String input;
+
+        /**
+         * コンストラクタ。
+         * @param pattern パターン
+         */
+        private LinearMatcher(LinearPattern pattern) {
+            this.pattern = pattern;
+            int size = pattern.ops.length;
+            slotCount = pattern.slotCount;
+            current = new ThreadList(size, slotCount);
+            next = new ThreadList(size, slotCount);
+            work = new int[slotCount];
+            stackKinds = new int[size * 2 + 1];
+            stackValues1 = new int[size * 2 + 1];
+            stackValues2 = new int[size * 2 + 1];
+            marks = new int[size];
+            matchedSlots = new int[slotCount];
+        }
+
+        @Override
+        public boolean matches(String input) {
+            return run(input, true);
+        }
+
+        @Override
+        public boolean find(String input) {
+            return run(input, false);
+        }
+
+        @Override
+        public String group(int group) {
+            if (!matched) {
+                throw new IllegalStateException("No match found");
+            }
+            if (group < 0 || group > pattern.groupCount) {
+                throw new IndexOutOfBoundsException("No group " + group);
+            }
+            int start = matchedSlots[group * 2];
+            int end = matchedSlots[group * 2 + 1];
+            return (start < 0 || end < 0) ? null : input.substring(start, end);
+        }
+
+        /**
+         * パターンを評価する。
+         * @param input 対象文字列
+         * @param whole 対象文字列全体との一致を判定する場合はtrue
+         * @return 一致した場合はtrue
+         */
+        private boolean run(String input, boolean whole) {
+            this.input = input;
+            matched = false;
+            int length = input.length();
+            int pos = 0;
+            current.clear();
+            nextGeneration();
+            Arrays.fill(work, -1);
+            addThread(current, 0, pos);
+            while (true) {
+                if (current.size == 0 && (matched || whole)) {
+                    break;
+                }
+                int c = (pos < length) ? input.codePointAt(pos) : -1;
+                int nextPos = (pos < length) ? pos + Character.charCount(c) : pos;
+                next.clear();
+                nextGeneration();
+                for (int i = 0; i < current.size; i++) {
+                    int pc = current.pcs[i];
+                    boolean consumed;
+                    switch (pattern.ops[pc]) {
+                    case MATCH:
+                        if (whole && pos != length) {
+                            continue;
+                        }
+                        System.arraycopy(current.slots[i], 0, matchedSlots, 0, slotCount);
+                        matched = true;
+                        // 優先度の低い状態は破棄する。
+                        i = current.size;
+                        continue;
+                    case CHAR:
+                        consumed = c == pattern.args1[pc];
+                        break;
+                    case ANY:
+                        consumed = c >= 0 && !isLineTerminator(c);
+                        break;
+                    default:
+                        consumed = c >= 0 && pattern.classes[pc].contains(c);
+                        break;
+                    }
+                    if (consumed) {
+                        System.arraycopy(current.slots[i], 0, work, 0, slotCount);
+                        addThread(next, pc + 1, nextPos);
+                    }
+                }
+                if (pos >= length) {
+                    break;
+                }
+                if (!matched && !whole) {
+                    Arrays.fill(work, -1);
+                    addThread(next, 0, nextPos);
+                }
+                ThreadList swap = current;
+                current = next;
+                next = swap;
+                pos = nextPos;
+            }
+            return matched;
+        }
+
+        /**
+         * 状態の世代を進める。
+         */
+        private void nextGeneration() {
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * 指定された命令から、文字を消費せずに到達できる状態を優先順に追加する。
+         * @param list 追加先
+         * @param pc   命令の位置
+         * @param pos  対象文字列の位置
+         */
+        private void addThread(ThreadList list, int pc, int pos) {
+            // 種類 0: 命令を評価する(値1 = 命令の位置)
+            // 種類 1: 捕捉位置を戻す(値1 = 記録領域の位置、値2 = 値)
+            int top = 0;
+            stackKinds[top] = 0;
+            stackValues1[top++] = pc;
+            while (top > 0) {
+                top--;
+                if (stackKinds[top] == 1) {
+                    work[stackValues1[top]] = stackValues2[top];
+                    continue;
+                }
+                int target = stackValues1[top];
+                if (marks[target] == generation) {
+                    continue;
+                }
+                marks[target] = generation;
+                switch (pattern.ops[target]) {
+                case JMP:
+                    stackKinds[top] = 0;
+                    stackValues1[top++] = pattern.args1[target];
+                    break;
+                case SPLIT:
+                    stackKinds[top] = 0;
+                    stackValues1[top++] = pattern.args2[target];
+                    stackKinds[top] = 0;
+                    stackValues1[top++] = pattern.args1[target];
+                    break;
+                case SAVE:
+                    int slot = pattern.args1[target];
+                    stackKinds[top] = 1;
+                    stackValues1[top] = slot;
+                    stackValues2[top++] = work[slot];
+                    work[slot] = pos;
+                    stackKinds[top] = 0;
+                    stackValues1[top++] = target + 1;
+                    break;
+                case BOL:
+                    if (pos == 0) {
+                        stackKinds[top] = 0;
+                        stackValues1[top++] = target + 1;
+                    }
+                    break;
+                case EOL:
+                    if (isEnd(pos)) {
+                        stackKinds[top] = 0;
+                        stackValues1[top++] = target + 1;
+                    }
+                    break;
+                case LOOP:
+                    // 文字を消費しない繰り返しは、java.util.regex.Pattern と同様に1回で終える。
+                    stackKinds[top] = 0;
+                    stackValues1[top++] = (work[pattern.args2[target]] == pos) ? target + 1 : pattern.args1[target];
+                    break;
+                default:
+                    list.add(target, work);
+                    break;
+                }
+            }
+        }
+
+        /**
+         * 指定された位置が入力の末尾({@link java.util.regex.Pattern}の"$"と同じ判定)であるか否かを判定する。
+         * <p/>
+         * 入力の末尾のほか、入力の末尾にある行末文字の直前も末尾とみなす。
+         *
+         * @param pos 対象文字列の位置
+         * @return 入力の末尾である場合はtrue
+         */
+        private boolean isEnd(int pos) {
+            int length = input.length();
+            if (pos < length - 2) {
+                return false;
+            }
+            if (pos == length - 2) {
+                return input.charAt(pos) == '\r' && input.charAt(pos + 1) == '\n';
+            }
+            if (pos < length) {
+                char c = input.charAt(pos);
+                if (c == '\n') {
+                    return !(pos > 0 && input.charAt(pos - 1) == '\r');
+                }
+                return isLineTerminator(c);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 評価中の状態の一覧。
+     */
+    private static final class ThreadList {
+
+        /** 状態の命令の位置 */
+        private final int[] pcs;
+
+        /** 状態の捕捉位置 */
+        private final int[][] slots;
+
+        /** 状態の数 */
+        private int size;
+
+        /**
+         * コンストラクタ。
+         * @param capacity  最大の状態数
+         * @param slotCount 捕捉位置の記録領域の大きさ
+         */
+        private ThreadList(int capacity, int slotCount) {
+            pcs = new int[capacity];
+            slots = new int[capacity][slotCount];
+        }
+
+        /**
+         * 状態を空にする。
+         */
+        private void clear() {
+            size = 0;
+        }
+
+        /**
+         * 状態を追加する。
+         * @param pc        命令の位置
+         * @param slotValue 捕捉位置
+         */
+        private void add(int pc, int[] slotValue) {
+            pcs[size] = pc;
+            System.arraycopy(slotValue, 0, slots[size], 0, slotValue.length);
+            size++;
+        }
+    }
+
+    /**
+     * 文字クラス。
+     */
+    private static final class CharClass {
+
+        /** 文字の範囲(下限、上限の順に並べたもの) */
+        private final int[] ranges;
+
+        /** 否定 */
+        private final boolean negated;
+
+        /**
+         * コンストラクタ。
+         * @param ranges  文字の範囲
+         * @param negated 否定
+         */
+        private CharClass(int[] ranges, boolean negated) {
+            this.ranges = ranges;
+            this.negated = negated;
+        }
+
+        /**
+         * 文字が含まれるか否かを判定する。
+         * @param c 文字
+         * @return 含まれる場合はtrue
+         */
+        private boolean contains(int c) {
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (ranges[i] <= c && c <= ranges[i + 1]) {
+                    return !negated;
+                }
+            }
+            return negated;
+        }
+    }
+
+    /**
+     * 構文木のノード。
+     */
+    private static final class Node {
+        /** 種類: 空 */
+        private static final int EMPTY = 0;
+        /** 種類: 文字 */
+        private static final int LITERAL = 1;
+        /** 種類: 任意の文字 */
+        private static final int DOT = 2;
+        /** 種類: 文字クラス */
+        private static final int CHAR_CLASS = 3;
+        /** 種類: 連接 */
+        private static final int CONCAT = 4;
+        /** 種類: 選択 */
+        private static final int ALTERNATION = 5;
+        /** 種類: 繰り返し */
+        private static final int REPEAT = 6;
+        /** 種類: グループ */
+        private static final int GROUP = 7;
+        /** 種類: 先頭 */
+        private static final int BEGIN = 8;
+        /** 種類: 末尾 */
+        private static final int END = 9;
+
+        /** 種類 */
+        private final int kind;
+        /** 文字、もしくはグループの番号(捕捉しない場合は-1) */
+        private int value;
+        /** 文字クラス */
+        private CharClass charClass;
+        /** 子ノード */
+        private final List<Node> children = new ArrayList<Node>();
+        /** 繰り返しの最小回数 */
+        private int min;
+        /** 繰り返しの最大回数(上限なしの場合は-1) */
+        private int max;
+        /** 最長一致か否か */
+        private boolean greedy;
+
+        /**
+         * コンストラクタ。
+         * @param kind 種類
+         */
+        private Node(int kind) {
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * パターンの構文解析器。
+     */
+    private static final class Parser {
+
+        /** パターン */
+        private final String regex;
+
+        /** 空白およびコメントを無視するか否か */
+        private final boolean comments;
+
+        /** 解析位置 */
+        private int pos;
+
+        /** 捕捉グループの数 */
+        private int groupCount;
+
+        /**
+         * コンストラクタ。
+         * @param regex    パターン
+         * @param comments 空白およびコメントを無視する場合はtrue
+         */
+        private Parser(String regex, boolean comments) {
+            this.regex = regex;
+            this.comments = comments;
+        }
+
+        /**
+         * パターン全体を解析する。
+         * @return 構文木
+         */
+        private Node parse() {
+            Node node = parseAlternation();
+            if (peek() >= 0) {
+                throw error("unmatched closing ')'");
+            }
+            return node;
+        }
+
+        /**
+         * 選択を解析する。
+         * @return 構文木
+         */
+        private Node parseAlternation() {
+            Node first = parseConcat();
+            if (peek() != '|') {
+                return first;
+            }
+            Node alternation = new Node(Node.ALTERNATION);
+            alternation.children.add(first);
+            while (peek() == '|') {
+                next();
+                alternation.children.add(parseConcat());
+            }
+            return alternation;
+        }
+
+        /**
+         * 連接を解析する。
+         * @return 構文木
+         */
+        private Node parseConcat() {
+            Node concat = new Node(Node.CONCAT);
+            while (peek() >= 0 && peek() != '|' && peek() != ')') {
+                concat.children.add(parseQuantifier(parseAtom()));
+            }
+            if (concat.children.isEmpty()) {
+                return new Node(Node.EMPTY);
+            }
+            return (concat.children.size() == 1) ? concat.children.get(0) : concat;
+        }
+
+        /**
+         * 量指定子を解析する。
+         * @param atom 量指定子の対象
+         * @return 構文木
+         */
+        private Node parseQuantifier(Node atom) {
+            int c = peek();
+            int min;
+            int max;
+            if (c == '*') {
+                next();
+                min = 0;
+                max = -1;
+            } else if (c == '+') {
+                next();
+                min = 1;
+                max = -1;
+            } else if (c == '?') {
+                next();
+                min = 0;
+                max = 1;
+            } else if (c == '{') {
+                next();
+                min = parseNumber();
+                max = min;
+                if (peek() == ',') {
+                    next();
+                    max = (peek() == '}') ? -1 : parseNumber();
+                }
+                if (next() != '}' || (max >= 0 && max < min)) {
+                    throw error("illegal repetition");
+                }
+            } else {
+                return atom;
+            }
+            if (atom.kind == Node.BEGIN || atom.kind == Node.END) {
+                throw error("quantifier on a boundary is not supported");
+            }
+            if (containsCapture(atom) && canMatchEmpty(atom)) {
+                throw error("quantifier on a capturing group which can match an empty string is not supported");
+            }
+            Node repeat = new Node(Node.REPEAT);
+            repeat.children.add(atom);
+            repeat.min = min;
+            repeat.max = max;
+            repeat.greedy = true;
+            if (peek() == '?') {
+                next();
+                repeat.greedy = false;
+            } else if (peek() == '+') {
+                throw error("possessive quantifier is not supported");
+            }
+            return repeat;
+        }
+
+        /**
+         * 捕捉グループを含むか否かを判定する。
+         * @param node 構文木
+         * @return 捕捉グループを含む場合はtrue
+         */
+        private static boolean containsCapture(Node node) {
+            if (node.kind == Node.GROUP && node.value >= 0) {
+                return true;
+            }
+            for (Node child : node.children) {
+                if (containsCapture(child)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 空文字列に一致し得るか否かを判定する。
+         * @param node 構文木
+         * @return 空文字列に一致し得る場合はtrue
+         */
+        private static boolean canMatchEmpty(Node node) {
+            switch (node.kind) {
+            case Node.LITERAL:
+            case Node.DOT:
+            case Node.CHAR_CLASS:
+                return false;
+            case Node.CONCAT:
+                for (Node child : node.children) {
+                    if (!canMatchEmpty(child)) {
+                        return false;
+                    }
+                }
+                return true;
+            case Node.ALTERNATION:
+                for (Node child : node.children) {
+                    if (canMatchEmpty(child)) {
+                        return true;
+                    }
+                }
+                return false;
+            case Node.REPEAT:
+                return node.min == 0 || canMatchEmpty(node.children.get(0));
+            case Node.GROUP:
+                return canMatchEmpty(node.children.get(0));
+            default:
+                // 空、先頭および末尾
+                return true;
+            }
+        }
+
+        /**
+         * 繰り返し回数を解析する。
+         * @return 繰り返し回数
+         */
+        private int parseNumber() {
+            int start = pos;
+            while (pos < regex.length() && regex.charAt(pos) >= '0' && regex.charAt(pos) <= '9') {
+                pos++;
+                if (pos - start > 4) {
+                    throw error("repetition count is too large");
+                }
+            }
+            if (start == pos) {
+                throw error("illegal repetition");
+            }
+            int number = Integer.parseInt(regex.substring(start, pos));
+            if (number > MAX_REPETITION) {
+                throw error("repetition count is too large");
+            }
+            return number;
+        }
+
+        /**
+         * 量指定子の対象を解析する。
+         * @return 構文木
+         */
+        private Node parseAtom() {
+            int c = next();
+            switch (c) {
+            case '(':
+                return parseGroup();
+            case '[':
+                return parseClass();
+            case '.':
+                return new Node(Node.DOT);
+            case '^':
+                return new Node(Node.BEGIN);
+            case '$':
+                return new Node(Node.END);
+            case '\\':
+                return parseEscape(false);
+            case '*':
+            case '+':
+            case '?':
+            case '{':
+                throw error("dangling meta character '" + (char) c + "'");
+            default:
+                return literal(c);
+            }
+        }
+
+        /**
+         * グループを解析する。
+         * @return 構文木
+         */
+        private Node parseGroup() {
+            Node group = new Node(Node.GROUP);
+            if (regex.startsWith("?:", pos)) {
+                pos += 2;
+                group.value = -1;
+            } else if (regex.startsWith("?<", pos) && pos + 2 < regex.length()
+                    && Character.isLetter(regex.charAt(pos + 2))) {
+                int end = regex.indexOf('>', pos);
+                if (end < 0) {
+                    throw error("named group has no end");
+                }
+                pos = end + 1;
+                group.value = ++groupCount;
+            } else if (regex.startsWith("?", pos)) {
+                throw error("special group is not supported");
+            } else {
+                group.value = ++groupCount;
+            }
+            group.children.add(parseAlternation());
+            if (next() != ')') {
+                throw error("unclosed group");
+            }
+            return group;
+        }
+
+        /**
+         * 文字クラスを解析する。
+         * @return 構文木
+         */
+        private Node parseClass() {
+            boolean negated = false;
+            if (peek() == '^') {
+                next();
+                negated = true;
+            }
+            List<int[]> ranges = new ArrayList<int[]>();
+            boolean first = true;
+            while (true) {
+                int c = next();
+                if (c < 0) {
+                    throw error("unclosed character class");
+                }
+                if (c == ']') {
+                    if (first) {
+                        throw error("empty character class is not supported");
+                    }
+                    break;
+                }
+                first = false;
+                if (c == '[' || (c == '&' && peek() == '&')) {
+                    throw error("nested character class is not supported");
+                }
+                int lower;
+                if (c == '\\') {
+                    Node escaped = parseEscape(true);
+                    if (escaped.kind == Node.CHAR_CLASS) {
+                        ranges.add(escaped.charClass.ranges);
+                        continue;
+                    }
+                    lower = escaped.value;
+                } else {
+                    lower = c;
+                }
+                if (peek() == '-' && peekAfterHyphen() != ']') {
+                    next();
+                    int d = next();
+                    int upper;
+                    if (d == '\\') {
+                        Node escaped = parseEscape(true);
+                        if (escaped.kind == Node.CHAR_CLASS) {
+                            throw error("illegal character range");
+                        }
+                        upper = escaped.value;
+                    } else if (d < 0 || d == '[') {
+                        throw error("illegal character range");
+                    } else {
+                        upper = d;
+                    }
+                    if (upper < lower) {
+                        throw error("illegal character range");
+                    }
+                    ranges.add(new int[] {lower, upper});
+                } else {
+                    ranges.add(new int[] {lower, lower});
+                }
+            }
+            Node node = new Node(Node.CHAR_CLASS);
+            node.charClass = new CharClass(flatten(ranges), negated);
+            return node;
+        }
+
+        /**
+         * 文字クラス中の"-"の次の文字を先読みする。
+         * @return "-"の次の文字(存在しない場合は-1)
+         */
+        private int peekAfterHyphen() {
+            int saved = pos;
+            next();
+            int c = peek();
+            pos = saved;
+            return c;
+        }
+
+        /**
+         * エスケープを解析する。"\"の次の位置から解析する。
+         * @param inClass 文字クラス中のエスケープの場合はtrue
+         * @return 構文木
+         */
+        private Node parseEscape(boolean inClass) {
+            if (pos >= regex.length()) {
+                throw error("unexpected end of pattern");
+            }
+            int c = regex.codePointAt(pos);
+            pos += Character.charCount(c);
+            switch (c) {
+            case 't':
+                return literal('\t');
+            case 'n':
+                return literal('\n');
+            case 'r':
+                return literal('\r');
+            case 'f':
+                return literal('\f');
+            case 'a':
+                return literal('\u0007');
+            case 'e':
+                return literal('\u001B');
+            case 'x':
+                if (regex.startsWith("{", pos)) {
+                    int end = regex.indexOf('}', pos);
+                    if (end < 0) {
+                        throw error("unclosed hexadecimal escape");
+                    }
+                    int value = parseHex(pos + 1, end);
+                    pos = end + 1;
+                    return literal(value);
+                }
+                pos += 2;
+                return literal(parseHex(pos - 2, pos));
+            case 'u':
+                pos += 4;
+                return literal(parseHex(pos - 4, pos));
+            case 'd':
+                return charClass(new int[] {'0', '9'}, false);
+            case 'D':
+                return charClass(new int[] {'0', '9'}, true);
+            case 'w':
+                return charClass(new int[] {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'}, false);
+            case 'W':
+                return charClass(new int[] {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'}, true);
+            case 's':
+                return charClass(new int[] {'\t', '\r', ' ', ' '}, false);
+            case 'S':
+                return charClass(new int[] {'\t', '\r', ' ', ' '}, true);
+            default:
+                if (Character.isLetterOrDigit(c)) {
+                    throw error("escape sequence '\\" + new String(Character.toChars(c)) + "' is not supported");
+                }
+                return literal(c);
+            }
+        }
+
+        /**
+         * 16進数を解析する。
+         * @param start 開始位置
+         * @param end   終了位置
+         * @return 値
+         */
+        private int parseHex(int start, int end) {
+            if (end > regex.length() || start >= end || end - start > 6) {
+                throw error("illegal hexadecimal escape");
+            }
+            int value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = Character.digit(regex.charAt(i), 16);
+                if (digit < 0) {
+                    throw error("illegal hexadecimal escape");
+                }
+                value = value * 16 + digit;
+            }
+            if (value > Character.MAX_CODE_POINT) {
+                throw error("illegal hexadecimal escape");
+            }
+            return value;
+        }
+
+        /**
+         * 文字クラスのノードを作成する。
+         * @param ranges  文字の範囲
+         * @param negated 否定
+         * @return 構文木
+         */
+        private static Node charClass(int[] ranges, boolean negated) {
+            Node node = new Node(Node.CHAR_CLASS);
+            node.charClass = new CharClass(negated ? complement(ranges) : ranges, false);
+            return node;
+        }
+
+        /**
+         * 文字のノードを作成する。
+         * @param c 文字
+         * @return 構文木
+         */
+        private static Node literal(int c) {
+            Node node = new Node(Node.LITERAL);
+            node.value = c;
+            return node;
+        }
+
+        /**
+         * 次の文字を読み進めずに取得する。
+         * @return 次の文字(パターンの終端の場合は-1)
+         */
+        private int peek() {
+            skipIgnorable();
+            return (pos < regex.length()) ? regex.codePointAt(pos) : -1;
+        }
+
+        /**
+         * 次の文字を取得し、読み進める。
+         * @return 次の文字(パターンの終端の場合は-1)
+         */
+        private int next() {
+            int c = peek();
+            if (c >= 0) {
+                pos += Character.charCount(c);
+            }
+            return c;
+        }
+
+        /**
+         * 空白およびコメントを無視する場合に、空白およびコメントを読み飛ばす。
+         */
+        private void skipIgnorable() {
+            if (!comments) {
+                return;
+            }
+            while (pos < regex.length()) {
+                char c = regex.charAt(pos);
+                if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r') {
+                    pos++;
+                } else if (c == '#') {
+                    while (pos < regex.length() && !isLineTerminator(regex.charAt(pos))) {
+                        pos++;
+                    }
+                } else {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * 対応していない構文を表す例外を作成する。
+         * @param reason 理由
+         * @return 例外
+         */
+        private IllegalArgumentException error(String reason) {
+            return new IllegalArgumentException(
+                    "pattern cannot be evaluated in linear time. " + reason + ". pattern = " + regex);
+        }
+    }
+
+    /**
+     * 文字の範囲の一覧を、下限、上限の順に並べた配列に変換する。
+     * @param ranges 文字の範囲の一覧
+     * @return 配列
+     */
+    private static int[] flatten(List<int[]> ranges) {
+        int size = 0;
+        for (int[] range : ranges) {
+            size += range.length;
+        }
+        int[] flat = new int[size];
+        int i = 0;
+        for (int[] range : ranges) {
+            System.arraycopy(range, 0, flat, i, range.length);
+            i += range.length;
+        }
+        return flat;
+    }
+
+    /**
+     * 文字の範囲の補集合を求める。
+     * @param ranges 昇順に並んだ、重ならない文字の範囲
+     * @return 補集合
+     */
+    private static int[] complement(int[] ranges) {
+        List<int[]> result = new ArrayList<int[]>();
+        int lower = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] > lower) {
+                result.add(new int[] {lower, ranges[i] - 1});
+            }
+            lower = ranges[i + 1] + 1;
+        }
+        if (lower <= Character.MAX_CODE_POINT) {
+            result.add(new int[] {lower, Character.MAX_CODE_POINT});
+        }
+        return flatten(result);
+    }
+
+    /**
+     * 構文木から生成する命令列。
+     */
+    private static final class Program {
+
+        /** パターン */
+        private final String regex;
+
+        /** 命令の種類 */
+        private int[] ops = new int[16];
+
+        /** 命令の1つ目の引数 */
+        private int[] args1 = new int[16];
+
+        /** 命令の2つ目の引数 */
+        private int[] args2 = new int[16];
+
+        /** 命令ごとの文字クラス */
+        private final List<CharClass> classes = new ArrayList<CharClass>();
+
+        /** 命令の数 */
+        private int size;
+
+        /** 捕捉位置および繰り返しの開始位置の記録領域の大きさ */
+        private int slotCount;
+
+        /**
+         * コンストラクタ。
+         * @param regex      パターン
+         * @param groupCount 捕捉グループの数
+         */
+        private Program(String regex, int groupCount) {
+            this.regex = regex;
+            this.slotCount = (groupCount + 1) * 2;
+        }
+
+        /**
+         * 命令を追加する。
+         * @param op   命令の種類
+         * @param arg1 1つ目の引数
+         * @param arg2 2つ目の引数
+         * @return 追加した命令の位置
+         */
+        private int emit(int op, int arg1, int arg2) {
+            if (size >= MAX_PROGRAM_SIZE) {
+                throw new IllegalArgumentException(
+                        "pattern cannot be evaluated in linear time. pattern is too large. pattern = " + regex);
+            }
+            if (size == ops.length) {
+                ops = Arrays.copyOf(ops, size * 2);
+                args1 = Arrays.copyOf(args1, size * 2);
+                args2 = Arrays.copyOf(args2, size * 2);
+            }
+            ops[size] = op;
+            args1[size] = arg1;
+            args2[size] = arg2;
+            classes.add(null);
+            return size++;
+        }
+
+        /**
+         * 構文木の命令を追加する。
+         * @param node 構文木
+         */
+        private void emit(Node node) {
+            switch (node.kind) {
+            case Node.EMPTY:
+                break;
+            case Node.LITERAL:
+                emit(CHAR, node.value, 0);
+                break;
+            case Node.DOT:
+                emit(ANY, 0, 0);
+                break;
+            case Node.CHAR_CLASS:
+                classes.set(emit(CLASS, 0, 0), node.charClass);
+                break;
+            case Node.BEGIN:
+                emit(BOL, 0, 0);
+                break;
+            case Node.END:
+                emit(EOL, 0, 0);
+                break;
+            case Node.CONCAT:
+                for (Node child : node.children) {
+                    emit(child);
+                }
+                break;
+            case Node.GROUP:
+                if (node.value > 0) {
+                    emit(SAVE, node.value * 2, 0);
+                }
+                emit(node.children.get(0));
+                if (node.value > 0) {
+                    emit(SAVE, node.value * 2 + 1, 0);
+                }
+                break;
+            case Node.ALTERNATION:
+                emitAlternation(node.children);
+                break;
+            default:
+                emitRepeat(node);
+                break;
+            }
+        }
+
+        /**
+         * 選択の命令を追加する。
+         * @param branches 選択肢
+         */
+        private void emitAlternation(List<Node> branches) {
+            List<Integer> jumps = new ArrayList<Integer>();
+            for (int i = 0; i < branches.size() - 1; i++) {
+                int split = emit(SPLIT, 0, 0);
+                args1[split] = size;
+                emit(branches.get(i));
+                jumps.add(emit(JMP, 0, 0));
+                args2[split] = size;
+            }
+            emit(branches.get(branches.size() - 1));
+            for (int jump : jumps) {
+                args1[jump] = size;
+            }
+        }
+
+        /**
+         * 繰り返しの命令を追加する。
+         * @param node 繰り返しのノード
+         */
+        private void emitRepeat(Node node) {
+            Node body = node.children.get(0);
+            if (node.max < 0) {
+                // X{n,} : X を n 回評価した後、分岐、開始位置の記録、X、分岐への移動 を繰り返す。
+                for (int i = 0; i < node.min; i++) {
+                    emit(body);
+                }
+                int slot = slotCount++;
+                int split = emitSplit(0, 0, node.greedy);
+                setPreferred(split, size, node.greedy);
+                emit(SAVE, slot, 0);
+                emit(body);
+                emit(LOOP, split, slot);
+                setAlternative(split, size, node.greedy);
+                return;
+            }
+            for (int i = 0; i < node.min; i++) {
+                emit(body);
+            }
+            List<Integer> splits = new ArrayList<Integer>();
+            for (int i = node.min; i < node.max; i++) {
+                int split = emitSplit(0, 0, node.greedy);
+                setPreferred(split, size, node.greedy);
+                splits.add(split);
+                emit(body);
+            }
+            for (int split : splits) {
+                setAlternative(split, size, node.greedy);
+            }
+        }
+
+        /**
+         * 繰り返しの分岐命令を追加する。
+         * @param repeat 繰り返す場合の移動先
+         * @param exit   繰り返しを終える場合の移動先
+         * @param greedy 最長一致の場合はtrue
+         * @return 追加した命令の位置
+         */
+        private int emitSplit(int repeat, int exit, boolean greedy) {
+            return greedy ? emit(SPLIT, repeat, exit) : emit(SPLIT, exit, repeat);
+        }
+
+        /**
+         * 分岐命令の、繰り返す場合の移動先を設定する。
+         * @param split  分岐命令の位置
+         * @param target 移動先
+         * @param greedy 最長一致の場合はtrue
+         */
+        private void setPreferred(int split, int target, boolean greedy) {
+            if (greedy) {
+                args1[split] = target;
+            } else {
+                args2[split] = target;
+            }
+        }
+
+        /**
+         * 分岐命令の、繰り返しを終える場合の移動先を設定する。
+         * @param split  分岐命令の位置
+         * @param target 移動先
+         * @param greedy 最長一致の場合はtrue
+         */
+        private void setAlternative(int split, int target, boolean greedy) {
+            if (greedy) {
+                args2[split] = target;
+            } else {
+                args1[split] = target;
+            }
+        }
+    }
+}
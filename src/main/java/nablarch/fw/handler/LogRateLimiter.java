@@ -0,0 +1,55 @@
+package nablarch.fw.handler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ログ出力の頻度を制限するクラス。
+ * <p/>
+ * 指定された間隔につき1回だけログ出力を許可し、それ以外の出力要求は抑止した件数として数える。
+ * 出力間隔に0を指定した場合は、全ての出力要求を許可する。
+ */
+final class LogRateLimiter {
+
+    /** ログ出力を抑止したことを表す値 */
+    static final int SUPPRESSED = -1;
+
+    /** ログの出力間隔(ミリ秒) */
+    private final long intervalMillis;
+
+    /** 次にログ出力を許可する時刻 */
+    private final AtomicLong nextPermittedTime = new AtomicLong(0L);
+
+    /** 前回のログ出力以降に抑止した件数 */
+    private final AtomicInteger suppressedCount = new AtomicInteger(0);
+
+    /**
+     * コンストラクタ。
+     * @param intervalMillis ログの出力間隔(ミリ秒)
+     */
+    LogRateLimiter(long intervalMillis) {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException("intervalMillis must not be negative.");
+        }
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * ログ出力の許可を取得する。
+     *
+     * @return 許可された場合は前回のログ出力以降に抑止した件数。
+     *          抑止された場合は{@link #SUPPRESSED}。
+     */
+    int acquire() {
+        if (intervalMillis == 0) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        long next = nextPermittedTime.get();
+        if (now >= next && nextPermittedTime.compareAndSet(next, now + intervalMillis)) {
+            return suppressedCount.getAndSet(0);
+        }
+        suppressedCount.incrementAndGet();
+        return SUPPRESSED;
+    }
+}
@@ -4,12 +4,15 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import nablarch.fw.ExecutionContext;
 import nablarch.fw.Handler;
 import nablarch.fw.HandlerWrapper;
-import nablarch.fw.Interceptor;
 import nablarch.fw.Result;
 import nablarch.fw.Result.NotFound;
 
@@ -36,6 +39,46 @@ implements HandlerWrapper<TData, TResult> {
     // ------------------------------------------------ structure
     /** ディスパッチの対象となるオブジェクト */
     private final Object delegate;
+
+    /**
+     * 委譲対象となるメソッドの索引。
+     * <p/>
+     * {@link #qualifiesAsHandler(Method)}はサブクラスでオーバーライドされ得るため、
+     * 本クラスの具象クラスごと、委譲対象オブジェクトのクラスごとに作成する。
+     * ただし、{@link #qualifiesAsHandler(Method)}をオーバーライドしていない具象クラスは、
+     * 本クラスをキーとした索引を共有する({@link #prepareHandleMethods(Class)}で事前に作成した索引も、この索引に登録される)。
+     * 索引はアプリケーションのクラスを参照するため、クラスローダを保持し続けないよう{@link ClassKeyedCache}で保持する。
+     */
+    private static final ClassKeyedCache<ClassKeyedCache<HandleMethodIndex>> HANDLE_METHOD_INDEXES =
+        new ClassKeyedCache<ClassKeyedCache<HandleMethodIndex>>();
+
+    /** 委譲対象オブジェクトのクラスが持つ、委譲対象となるメソッドの索引 */
+    private static final class HandleMethodIndex {
+        /** メソッド名をキーとした委譲対象メソッド */
+        private final Map<String, Method> byName;
+        /** 小文字に変換したメソッド名をキーとした委譲対象メソッド */
+        private final Map<String, Method> byLowerCaseName;
+
+        /**
+         * コンストラクタ。
+         * @param byName メソッド名をキーとした委譲対象メソッド
+         * @param byLowerCaseName 小文字に変換したメソッド名をキーとした委譲対象メソッド
+         */
+        private HandleMethodIndex(Map<String, Method> byName, Map<String, Method> byLowerCaseName) {
+            this.byName = Collections.unmodifiableMap(byName);
+            this.byLowerCaseName = Collections.unmodifiableMap(byLowerCaseName);
+        }
+
+        /**
+         * 委譲対象メソッドを取得する。
+         * @param name メソッド名(大文字小文字は同一視)
+         * @return 委譲対象メソッド(存在しない場合はnull)
+         */
+        private Method get(String name) {
+            Method method = byName.get(name);
+            return (method != null) ? method : byLowerCaseName.get(name.toLowerCase());
+        }
+    }
     
     // ------------------------------------------------ constructor
     /**
@@ -47,7 +90,18 @@ implements HandlerWrapper<TData, TResult> {
         this.delegate = delegate;
     }
     
-    // ------------------------------ the api must be implemented by subclasses 
+    /**
+     * キャッシュした、委譲対象メソッドに付与されたインターセプタの構成を破棄する。
+     * <p/>
+     * インターセプタの構成は、{@link nablarch.core.repository.SystemRepository}に
+     * "interceptorsOrder"という名前で登録された実行順とともに、委譲対象メソッドごとにキャッシュされる。
+     * リポジトリを再構築してインターセプタの実行順を置き換えた場合は、本メソッドを呼び出すこと。
+     */
+    public static void clearInterceptorChainCache() {
+        InterceptorChain.clearCache();
+    }
+
+    // ------------------------------ the api must be implemented by subclasses
     /**
      * 入力データおよび実行コンテキストの内容に応じて、委譲対象のメソッドを決定する。
      * @param data 入力データ
@@ -70,29 +124,117 @@ implements HandlerWrapper<TData, TResult> {
      * </pre>
      *
      * なお、該当するメソッドが存在しなかった場合はnullを返す。
+     * <p/>
+     * 委譲対象となるメソッドは、委譲対象オブジェクトのクラスごとに初回の呼び出し時に索引化し、
+     * 以降の呼び出しでは索引から取得する。
      *
      * @param name 委譲対象となるメソッド名
      * @return 委譲対象となるメソッド
      *          (該当するメソッドが存在しなかった場合はnull)
      */
     protected Method getHandleMethod(String name) {
-        name = name.toLowerCase();
-        for (Method method : delegate.getClass().getMethods()) {
-            if (!method.getName().toLowerCase().equals(name)) {
+        ClassKeyedCache<HandleMethodIndex> indexes = getHandleMethodIndexes(getClass());
+        Class<?> delegateClass = delegate.getClass();
+        HandleMethodIndex index = indexes.get(delegateClass);
+        if (index == null) {
+            index = indexes.putIfAbsent(delegateClass, createHandleMethodIndex(delegateClass, this));
+        }
+        return index.get(name);
+    }
+
+    /**
+     * 委譲対象オブジェクトのクラスが持つ、委譲対象となるメソッドの索引を事前に作成する。
+     * <p/>
+     * 作成した索引は、{@link #qualifiesAsHandler(Method)}をオーバーライドしていない全ての具象クラスで使用される。
+     * アプリケーションの起動時に呼び出すことで、最初のリクエストでのリフレクションによるメソッドの検索を避けられる。
+     *
+     * @param delegateClass 委譲対象オブジェクトのクラス
+     * @return 委譲対象となるメソッド(大文字小文字を同一視して同じ名前となるメソッドは1つのみ)
+     */
+    static Collection<Method> prepareHandleMethods(Class<?> delegateClass) {
+        ClassKeyedCache<HandleMethodIndex> indexes = getHandleMethodIndexes(MethodBinding.class);
+        HandleMethodIndex index = indexes.get(delegateClass);
+        if (index == null) {
+            index = indexes.putIfAbsent(delegateClass, createHandleMethodIndex(delegateClass, null));
+        }
+        return index.byLowerCaseName.values();
+    }
+
+    /**
+     * 本クラスの具象クラスが使用する、委譲対象オブジェクトのクラスごとの索引を取得する。
+     *
+     * @param bindingClass 本クラスの具象クラス
+     * @return 委譲対象オブジェクトのクラスごとの索引
+     */
+    private static ClassKeyedCache<HandleMethodIndex> getHandleMethodIndexes(Class<?> bindingClass) {
+        ClassKeyedCache<HandleMethodIndex> indexes = HANDLE_METHOD_INDEXES.get(bindingClass);
+        if (indexes != null) {
+            return indexes;
+        }
+        Class<?> qualifierClass = getQualifierDeclaringClass(bindingClass);
+        indexes = (qualifierClass == bindingClass)
+                ? new ClassKeyedCache<HandleMethodIndex>()
+                : getHandleMethodIndexes(qualifierClass);
+        return HANDLE_METHOD_INDEXES.putIfAbsent(bindingClass, indexes);
+    }
+
+    /**
+     * {@link #qualifiesAsHandler(Method)}を宣言しているクラスを取得する。
+     *
+     * @param bindingClass 本クラスの具象クラス
+     * @return {@link #qualifiesAsHandler(Method)}をオーバーライドしているクラス(オーバーライドしていない場合は本クラス)
+     */
+    private static Class<?> getQualifierDeclaringClass(Class<?> bindingClass) {
+        for (Class<?> clazz = bindingClass; clazz != MethodBinding.class; clazz = clazz.getSuperclass()) {
+            try {
+                clazz.getDeclaredMethod("qualifiesAsHandler", Method.class);
+                return clazz;
+            } catch (NoSuchMethodException e) {
+                // スーパークラスを確認する。
+            }
+        }
+        return MethodBinding.class;
+    }
+
+    /**
+     * 委譲対象オブジェクトのクラスが持つ、委譲対象となるメソッドの索引を作成する。
+     * <p/>
+     * 大文字小文字を同一視して同じ名前となるメソッドが複数存在する場合は、
+     * {@link Class#getMethods()}が返す順で最初に{@link #qualifiesAsHandler(Method)}を満たすメソッドを使用する。
+     *
+     * @param delegateClass 委譲対象オブジェクトのクラス
+     * @param binding 委譲対象となるメソッドを判定するインスタンス(nullの場合は{@link #hasHandlerSignature(Method)}で判定する)
+     * @return 委譲対象となるメソッドの索引
+     */
+    private static HandleMethodIndex createHandleMethodIndex(Class<?> delegateClass, MethodBinding<?, ?> binding) {
+        Map<String, Method> byLowerCaseName = new HashMap<String, Method>();
+        Method[] methods = delegateClass.getMethods();
+        for (Method method : methods) {
+            String lowerCaseName = method.getName().toLowerCase();
+            boolean qualifies = (binding == null) ? hasHandlerSignature(method) : binding.qualifiesAsHandler(method);
+            if (byLowerCaseName.containsKey(lowerCaseName) || !qualifies) {
                 continue;
             }
-            if (qualifiesAsHandler(method)) {
-                method.setAccessible(true); // 無名クラスへのアクセスを許可
-                return method;
+            method.setAccessible(true); // 無名クラスへのアクセスを許可
+            byLowerCaseName.put(lowerCaseName, method);
+        }
+        Map<String, Method> byName = new HashMap<String, Method>();
+        for (Method method : methods) {
+            Method handleMethod = byLowerCaseName.get(method.getName().toLowerCase());
+            if (handleMethod != null) {
+                byName.put(method.getName(), handleMethod);
             }
         }
-        return null;
+        return new HandleMethodIndex(byName, byLowerCaseName);
     }
     
     // ------------------------------------------------ Handler I/F
     /**
      * getMethodBoundTo() で取得したメソッドに対して後続処理を委譲し、
      * その結果を返す。
+     * <p/>
+     * メソッドにインターセプタが付与されている場合は、インターセプタを経由して委譲する。
+     * インターセプタの構成はメソッドごとにキャッシュされ、リクエストごとには再構築しない。
      * @param req 入力オブジェクト
      * @param ctx 実行コンテキスト
      * @return 処理結果オブジェクト
@@ -106,31 +248,46 @@ implements HandlerWrapper<TData, TResult> {
                 "Couldn't find method to delegate.: " + req.toString()
             );
         }
+        InterceptorChain interceptors = InterceptorChain.of(boundMethod);
+        if (interceptors.isEmpty()) {
+            saveBoundClassAndMethodToRequestScope(ctx, boundMethod.getDeclaringClass(), boundMethod);
+            return invoke(boundMethod, req, ctx);
+        }
         Handler<TData, TResult> handler = new Handler<TData, TResult>() {
-            @SuppressWarnings("unchecked")
             public TResult handle(TData req, ExecutionContext ctx) {
-                try {
-                    saveBoundClassAndMethodToRequestScope(ctx, boundMethod.getDeclaringClass(), boundMethod);
-                    return (TResult) boundMethod.invoke(delegate, req, ctx);
-
-                } catch (IllegalAccessException e) {
-                    // 事前にチェックしているのでここにはこないはず。
-                    throw new RuntimeException(e);
-                } catch (InvocationTargetException e) {
-                    // 委譲先のメソッドで例外が送出された場合。
-                    Throwable cause = e.getCause();
-                    if (RuntimeException.class.isAssignableFrom(cause.getClass())) {
-                        throw (RuntimeException) cause;
-                    }
-                    if (Error.class.isAssignableFrom(cause.getClass())) {
-                        throw (Error) cause;
-                    }
-                    throw new RuntimeException(cause);
-                }
+                saveBoundClassAndMethodToRequestScope(ctx, boundMethod.getDeclaringClass(), boundMethod);
+                return invoke(boundMethod, req, ctx);
             }
         };
-        return Interceptor.Factory.wrap(handler, boundMethod.getAnnotations())
-                                  .handle(req, ctx);
+        return interceptors.wrap(handler).handle(req, ctx);
+    }
+
+    /**
+     * 委譲対象のメソッドを呼び出す。
+     * @param boundMethod 委譲対象のメソッド
+     * @param req 入力オブジェクト
+     * @param ctx 実行コンテキスト
+     * @return 処理結果オブジェクト
+     */
+    @SuppressWarnings("unchecked")
+    private TResult invoke(Method boundMethod, TData req, ExecutionContext ctx) {
+        try {
+            return (TResult) boundMethod.invoke(delegate, req, ctx);
+
+        } catch (IllegalAccessException e) {
+            // 事前にチェックしているのでここにはこないはず。
+            throw new RuntimeException(e);
+        } catch (InvocationTargetException e) {
+            // 委譲先のメソッドで例外が送出された場合。
+            Throwable cause = e.getCause();
+            if (RuntimeException.class.isAssignableFrom(cause.getClass())) {
+                throw (RuntimeException) cause;
+            }
+            if (Error.class.isAssignableFrom(cause.getClass())) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
     }
 
     /**
@@ -156,6 +313,18 @@ implements HandlerWrapper<TData, TResult> {
      * @return 与えられたメソッドのシグニチャがhandle()と互換ならtrue。
      */
     protected boolean qualifiesAsHandler(Method method) {
+        return hasHandlerSignature(method);
+    }
+
+    /**
+     * 与えられたメソッドがhandle()メソッドと互換なシグニチャを持てばtrueを返す。
+     * <p/>
+     * {@link #qualifiesAsHandler(Method)}のデフォルトの判定処理。
+     *
+     * @param method 検証対象のメソッド
+     * @return 与えられたメソッドのシグニチャがhandle()と互換ならtrue。
+     */
+    static boolean hasHandlerSignature(Method method) {
         int modifiers = method.getModifiers();
         if (!Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers)) {
             return false;
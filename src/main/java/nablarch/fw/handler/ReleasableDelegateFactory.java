@@ -0,0 +1,23 @@
+package nablarch.fw.handler;
+
+/**
+ * 生成したインスタンスの返却を受け付けるデリゲートファクトリ。
+ * <p/>
+ * {@link DispatchHandler}は、本インタフェースを実装したデリゲートファクトリを使用する場合、
+ * ディスパッチ先の処理が終了した時点で{@link #release(Object)}を呼び出し、
+ * {@link #create(Class)}で生成したインスタンスを返却する。
+ *
+ * @see DispatchHandler#setDelegateFactory(DelegateFactory)
+ */
+public interface ReleasableDelegateFactory extends DelegateFactory {
+
+    /**
+     * {@link #create(Class)}で生成したインスタンスを返却する。
+     * <p/>
+     * 返却されたインスタンスは他のリクエストの処理に再利用される可能性があるため、
+     * 呼び出し元は返却後にインスタンスを参照してはならない。
+     *
+     * @param delegate 返却するインスタンス
+     */
+    void release(Object delegate);
+}
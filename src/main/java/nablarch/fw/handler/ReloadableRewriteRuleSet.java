@@ -0,0 +1,298 @@
+package nablarch.fw.handler;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.repository.disposal.Disposable;
+import nablarch.core.repository.initialization.Initializable;
+import nablarch.core.util.FileUtil;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 置換ルールの定義をファイルから読み込み、ファイルが更新された場合に読み込み直す{@link RewriteRuleSet}。
+ * <p/>
+ * 初期化時に定義ファイルを読み込み、以降は一定間隔でファイルの更新日時およびサイズを確認する。
+ * ファイルが更新されていた場合は、バックグラウンドのスレッドで置換ルールを作成(パターンの解析などを含む)した後、
+ * 評価対象の置換ルールを1回の参照の差し替えで置き換える。
+ * 置換処理はロックを取得せず、処理の開始時点の置換ルールで最後まで評価する。
+ * 既存の置換ルールのオブジェクトは変更しないため、読み込み中の置換処理が作成途中の置換ルールを参照することはない。
+ * <p/>
+ * 読み込み直した定義ファイルに誤りがある場合は、ワーニングログを出力し、それまでの置換ルールを使い続ける。
+ * 初期化時の読み込みに失敗した場合は例外を送出する。
+ * <p/>
+ * 定義ファイルは1行に1つの設定を「設定名 値」の形式で記述する。
+ * 空行および"#"で始まる行は無視する。
+ * "pattern" の行から次の "pattern" の行までが1つの置換ルールとなり、定義順に評価される。
+ * <pre>
+ * 設定名      内容                                         対応するメソッド
+ * pattern     パスのパターン(置換ルールの開始)             {@link RewriteRule#setPattern(String)}
+ * condition   適用条件                                     {@link RewriteRule#addCondition(String)}
+ * rewriteTo   置換後の文字列                               {@link RewriteRule#setRewriteTo(String)}
+ * export      変数定義                                     {@link RewriteRule#addExport(String)}
+ * </pre>
+ * 定義ファイルの例を以下に示す。
+ * <pre>
+ * # スマートフォンからのアクセスは専用の画面に振り分ける。
+ * pattern    ^/app/(\w+)$
+ * condition  %{request:device} ^(phone|tablet)$
+ * rewriteTo  /sp/${1}
+ *
+ * pattern    ^/legacy/(.*)$
+ * rewriteTo  /app/${1}
+ * </pre>
+ * 置換ルールのオブジェクトは{@link #createRule()}で作成する。
+ * 本クラスのサブクラスで、処理対象オブジェクトに応じた置換ルールを作成すること。
+ * <p/>
+ * 本クラスは初期化対象のコンポーネント(initializeList)および廃棄対象のコンポーネント(disposableList)に登録して使用する。
+ * 読み込み直した場合、評価結果の件数はクリアされる。
+ *
+ * @param <TData> 処理対象オブジェクトの型
+ */
+@Published(tag = "architect")
+public abstract class ReloadableRewriteRuleSet<TData> extends RewriteRuleSet<TData>
+implements Initializable, Disposable {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get(ReloadableRewriteRuleSet.class);
+
+    /** 定義ファイルのパス */
+    private String filePath;
+
+    /** 定義ファイルの文字コード */
+    private String encoding = "UTF-8";
+
+    /** ファイルの更新を確認する間隔(ミリ秒) */
+    private long checkInterval = 5000L;
+
+    /** 最後に読み込んだ定義ファイルの更新日時 */
+    private long loadedLastModified = -1L;
+
+    /** 最後に読み込んだ定義ファイルのサイズ */
+    private long loadedLength = -1L;
+
+    /** ファイルの更新を確認するスレッド(開始していない場合はnull) */
+    private ScheduledExecutorService watcher;
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 定義ファイルを読み込み、ファイルの更新を確認するスレッドを開始する。
+     *
+     * @throws IllegalArgumentException 定義ファイルの内容に誤りがある場合
+     * @throws IllegalStateException 定義ファイルの読み込みに失敗した場合
+     */
+    @Override
+    public synchronized void initialize() {
+        if (watcher != null) {
+            return;
+        }
+        reload();
+        if (checkInterval <= 0) {
+            return;
+        }
+        watcher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "rewrite-rule-watcher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        watcher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reloadIfModified();
+                } catch (RuntimeException e) {
+                    LOGGER.logWarn("failed to reload rewrite rules. previous rules are still used. file = "
+                                 + filePath, e);
+                }
+            }
+        }, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * ファイルの更新を確認するスレッドを停止する。
+     */
+    @Override
+    public synchronized void dispose() {
+        if (watcher == null) {
+            return;
+        }
+        watcher.shutdownNow();
+        watcher = null;
+    }
+
+    /**
+     * 定義ファイルが前回の読み込みから更新されている場合は、読み込み直す。
+     * <p/>
+     * 読み込みに失敗した場合、それまでの置換ルールを使い続ける。
+     * 失敗した定義ファイルは、再度更新されるまで読み込まない。
+     *
+     * @return 読み込み直した場合はtrue
+     * @throws IllegalArgumentException 定義ファイルの内容に誤りがある場合
+     * @throws IllegalStateException 定義ファイルの読み込みに失敗した場合
+     */
+    public synchronized boolean reloadIfModified() {
+        File file = getFile();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        if (lastModified == loadedLastModified && length == loadedLength) {
+            return false;
+        }
+        loadedLastModified = lastModified;
+        loadedLength = length;
+        setRules(load(file));
+        return true;
+    }
+
+    /**
+     * 定義ファイルを読み込み、評価対象の置換ルールを置き換える。
+     *
+     * @throws IllegalArgumentException 定義ファイルの内容に誤りがある場合
+     * @throws IllegalStateException 定義ファイルの読み込みに失敗した場合
+     */
+    public synchronized void reload() {
+        File file = getFile();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        setRules(load(file));
+        loadedLastModified = lastModified;
+        loadedLength = length;
+    }
+
+    /**
+     * 定義ファイルを取得する。
+     * @return 定義ファイル
+     * @throws IllegalStateException 定義ファイルのパスが設定されていない場合
+     */
+    private File getFile() {
+        if (filePath == null) {
+            throw new IllegalStateException("filePath must be set.");
+        }
+        return new File(filePath);
+    }
+
+    /**
+     * 定義ファイルを読み込み、置換ルールを作成する。
+     *
+     * @param file 定義ファイル
+     * @return 置換ルール(定義順)
+     */
+    private List<RewriteRule<TData, ?>> load(File file) {
+        List<RewriteRule<TData, ?>> rules = new ArrayList<RewriteRule<TData, ?>>();
+        BufferedReader reader = null;
+        int lineNumber = 0;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), encoding));
+            RewriteRule<TData, ?> rule = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.length() == 0 || line.startsWith("#")) {
+                    continue;
+                }
+                int separator = indexOfWhitespace(line);
+                if (separator < 0) {
+                    throw new IllegalArgumentException("value is not specified.");
+                }
+                String name = line.substring(0, separator);
+                String value = line.substring(separator).trim();
+                if ("pattern".equals(name)) {
+                    rule = createRule();
+                    rule.setPattern(value);
+                    rules.add(rule);
+                } else if (rule == null) {
+                    throw new IllegalArgumentException("pattern must be specified first.");
+                } else if ("condition".equals(name)) {
+                    rule.addCondition(value);
+                } else if ("rewriteTo".equals(name)) {
+                    rule.setRewriteTo(value);
+                } else if ("export".equals(name)) {
+                    rule.addExport(value);
+                } else {
+                    throw new IllegalArgumentException("unknown setting name. name = " + name);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to read rewrite rule file. file = " + file.getPath(), e);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid rewrite rule file. file = " + file.getPath()
+                                             + ", line = " + lineNumber + ", cause = " + e.getMessage(), e);
+        } finally {
+            FileUtil.closeQuietly(reader);
+        }
+        LOGGER.logInfo("loaded rewrite rules. file = " + file.getPath() + ", count = " + rules.size());
+        return rules;
+    }
+
+    /**
+     * 最初の空白文字の位置を取得する。
+     * @param line 文字列
+     * @return 最初の空白文字の位置(存在しない場合は-1)
+     */
+    private static int indexOfWhitespace(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (Character.isWhitespace(line.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 置換ルールを作成する。
+     * <p/>
+     * 定義ファイルの "pattern" の行ごとに呼び出される。
+     * 呼び出しのたびに新しいオブジェクトを返すこと。
+     *
+     * @return 置換ルール
+     */
+    protected abstract RewriteRule<TData, ?> createRule();
+
+    /**
+     * 定義ファイルのパスを設定する。
+     * @param filePath 定義ファイルのパス
+     */
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * 定義ファイルの文字コードを設定する。
+     * <p/>
+     * デフォルトは"UTF-8"。
+     *
+     * @param encoding 定義ファイルの文字コード
+     */
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * ファイルの更新を確認する間隔(ミリ秒)を設定する。
+     * <p/>
+     * デフォルトは5000(5秒)。
+     * 0以下を設定した場合は、ファイルの更新を確認するスレッドを開始しない
+     * (読み込み直す場合は{@link #reloadIfModified()}または{@link #reload()}を呼び出す)。
+     *
+     * @param checkInterval ファイルの更新を確認する間隔(ミリ秒)
+     */
+    public void setCheckInterval(long checkInterval) {
+        this.checkInterval = checkInterval;
+    }
+}
@@ -1,12 +1,34 @@
 package nablarch.fw.handler;
 
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import nablarch.core.log.Logger;
 import nablarch.core.log.LoggerManager;
+import nablarch.core.repository.initialization.Initializable;
 import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
 import nablarch.fw.Request;
 import nablarch.fw.Result;
 
@@ -107,13 +129,82 @@ import nablarch.fw.Result;
  * この仕様は、Nablarch のバッチ処理で過去に使用していたドット区切りのリクエストパス（例： ss01A001.B01AA001Action/B01AA0010）との互換性を保つために存在している。
  * <p/>
  * リクエストパスのパターンの記法についての詳細は{@link nablarch.fw.RequestPathMatchingHelper}を参照すること。
+ * <p/>
+ * リクエストパスから委譲先クラス名への変換は、正規表現を使用せずにリクエストパスを1回走査して行う。
+ * ただし、ベースパスに正規表現のメタ文字が含まれる場合は、従来どおり正規表現を使用して変換する。
+ * <p/>
+ * <h3>委譲先クラスのキャッシュ</h3>
+ * 一度解決した委譲先クラスは、リクエストパスとマッピング先Javaパッケージの組み合わせをキーとしてキャッシュし、
+ * 以降の同一リクエストパスに対するディスパッチでは、クラス名の算出およびクラスのロードを省略する。
+ * キャッシュの最大エントリ数は classCacheSize プロパティで設定する(デフォルトは1000件)。
+ * 最大エントリ数を超えた場合は、最近参照されていないエントリから破棄する。
+ * 0を設定した場合はキャッシュを行わない。
+ * <p/>
+ * キャッシュは委譲先クラスおよびクラスのロードに使用したコンテキストクラスローダを弱参照で保持する。
+ * そのため、破棄されたクラスローダがキャッシュによって解放されなくなることはなく、
+ * コンテキストクラスローダが異なるスレッドからのディスパッチでは、改めてクラスの解決を行う。
+ * <p/>
+ * <h3>委譲先クラスが存在しないリクエストパスのキャッシュ</h3>
+ * notFoundCacheExpirationMillis プロパティを設定した場合、委譲先クラスが存在しなかったリクエストパスを
+ * 設定した期間だけキャッシュし、期間内の同一リクエストパスへのディスパッチではクラスのロードを行わずに
+ * {@link nablarch.fw.Result.NotFound}を送出する。
+ * 委譲先クラスの完全修飾名に変換できなかったリクエストパスも同様にキャッシュし、変換を行わずに送出する。
+ * 脆弱性スキャナなどから存在しないリクエストパスへのアクセスが大量に行われた場合の負荷を抑えることを想定している。
+ * キャッシュの最大エントリ数は notFoundCacheSize プロパティで設定する(デフォルトは1000件。0を設定した場合はキャッシュしない)。
+ * <p/>
+ * なお、大量のアクセスによるログ出力の負荷を抑えるには、あわせて notFoundLogIntervalMillis プロパティを設定し、
+ * ディスパッチ先が存在しなかった旨のログの出力頻度を制限すること。
+ * <p/>
+ * <h3>委譲先クラスの事前ロード</h3>
+ * preload プロパティにtrueを設定し、本ハンドラを初期化対象のコンポーネント(initializeList)に登録した場合、
+ * 初期化時に basePackage プロパティおよび optionalPackageMappingEntries の各エントリのマッピング先Javaパッケージ配下を走査し、
+ * 委譲先となり得るクラス(クラス名の接頭辞・接尾辞の設定に合致するクラス)を並列にロードする。
+ * ロードしたクラスは完全修飾名をキーとするディスパッチテーブルに保持し、ディスパッチ時にはクラスのロードを行わずに使用する。
+ * これにより、デプロイ直後のリクエストでクラスのロードおよび初期化の処理時間が発生することを避けられる。
+ * <p/>
+ * 並列に行うのはクラスのロードのみであり、static初期化子は実行しない。
+ * ロードしたクラスのうち、{@link Handler}を実装したクラス、およびhandle()メソッドと互換なシグニチャを持つメソッドを持つクラスのみを、
+ * 初期化処理を実行するスレッドで順に初期化する。
+ * このため、委譲先クラスと同じ命名規則に合致するだけのクラスのstatic初期化子は実行されず、
+ * 相互に参照するクラスの初期化が並列に行われてデッドロックすることもない。
+ * <p/>
+ * 事前ロードは、ディレクトリもしくはJARファイルとしてクラスパス上に配置されたクラスのみを対象とする。
+ * クラスの初期化に失敗した場合は、初期化処理で例外を送出する。
+ * ロードに使用するスレッド数は preloadThreads プロパティで設定する(デフォルトは利用可能なプロセッサ数)。
+ * ロードが preloadTimeout プロパティに設定した時間(デフォルトは60秒)内に完了しない場合も、初期化処理で例外を送出する。
+ * <p/>
+ * 事前ロードしたクラスのうち{@link Handler}を実装していないクラスについては、ディスパッチ先となるメソッドの検索、
+ * およびメソッドに付与されたインターセプタの構成の作成も初期化時に行い、キャッシュする
+ * ({@link MethodBinding#qualifiesAsHandler(Method)}をオーバーライドしていない{@link MethodBinding}が使用する)。
+ * これにより、デプロイ直後のリクエストでリフレクションによる処理時間が発生することを避けられる。
+ * 初期化処理は{@link nablarch.core.repository.SystemRepository}の構築前に行われるため、
+ * インターセプタの実行順はリポジトリから取得できない。
+ * このため、インターセプタが付与されたメソッドの構成は、
+ * リポジトリに"interceptorsOrder"という名前で登録したリストを interceptorsOrder プロパティにも設定した場合のみ作成する。
+ * <p/>
+ * あわせて verifyHandlerMethods プロパティにtrueを設定した場合、事前ロードしたクラスのメソッドに付与されたインターセプタの構成を検証し、
+ * 不正なインターセプタの構成(実行順に定義されていないインターセプタなど)を検出した場合は、
+ * 検出した全ての問題を含む例外を初期化処理で送出する。
+ * ディスパッチ先とならないメソッド(staticメソッド、引数の順序が逆のメソッド、非publicのメソッド)は、
+ * デフォルトでは問題とはせず、publicメソッドの場合のみ警告ログを出力する。
+ * strictHandlerMethods プロパティにtrueを設定した場合は、これらのメソッドも問題として報告する。
+ * <p/>
+ * <h3>ビルド時に作成した委譲先クラスの索引の使用</h3>
+ * {@link HandlerClassIndexProcessor}によって生成された委譲先クラスの索引({@link HandlerClassIndex})が
+ * クラスパス上に存在する場合、最初のディスパッチ時に索引からディスパッチテーブルを構築し、
+ * 索引に含まれるクラスへのディスパッチではクラスのロードを行わない。
+ * 索引に含まれないクラスは、従来どおりコンテキストクラスローダから取得する。
+ * 差分コンパイルを行った場合などは索引が不完全となるため、事前ロードを行う場合は索引が存在してもクラスパスを走査し、
+ * 索引に含まれるクラスとあわせて対象とする(索引に含まれない対象クラスが見つかった場合は、その件数をログに出力する)。
+ * 索引を使用しない場合は useHandlerClassIndex プロパティにfalseを設定する。
  * 
  * @see Request#getRequestPath()
  * @see nablarch.fw.RequestPathMatchingHelper
  * @author Iwauo Tajima
  */
 public class RequestPathJavaPackageMapping
-extends DispatchHandler<Request<?>, Object, RequestPathJavaPackageMapping> {
+extends DispatchHandler<Request<?>, Object, RequestPathJavaPackageMapping>
+implements Initializable {
     // ---------------------------------------------------------- Structure
     /** ロガー */
     private static final Logger
@@ -136,6 +227,225 @@ extends DispatchHandler<Request<?>, Object, RequestPathJavaPackageMapping> {
     
     /** 委譲対象クラス名の接頭辞 */ 
     private String classNamePrefix = "";
+
+    /** リクエストパスを委譲先クラスの完全修飾名に変換するオブジェクト(未作成の場合はnull) */
+    private volatile CompiledRequestPathMapper compiledMapper;
+
+    /** 委譲先クラスのキャッシュの最大エントリ数のデフォルト値 */
+    private static final int DEFAULT_CLASS_CACHE_SIZE = 1000;
+
+    /** 解決済みの委譲先クラスのキャッシュ(キャッシュしない場合はnull) */
+    private BoundedConcurrentCache<ClassCacheKey, ResolvedClass> classCache =
+        new BoundedConcurrentCache<ClassCacheKey, ResolvedClass>(DEFAULT_CLASS_CACHE_SIZE);
+
+    /** 委譲先クラスが存在しないリクエストパスのキャッシュの最大エントリ数のデフォルト値 */
+    private static final int DEFAULT_NOT_FOUND_CACHE_SIZE = 1000;
+
+    /** 委譲先クラスが存在しないリクエストパスのキャッシュの有効期間(ミリ秒)。0の場合はキャッシュしない。 */
+    private long notFoundCacheExpirationMillis = 0L;
+
+    /** 委譲先クラスが存在しないリクエストパスのキャッシュ(キャッシュしない場合はnull) */
+    private BoundedConcurrentCache<ClassCacheKey, UnresolvedClass> notFoundCache =
+        new BoundedConcurrentCache<ClassCacheKey, UnresolvedClass>(DEFAULT_NOT_FOUND_CACHE_SIZE);
+
+    /** 事前ロードの対象となるクラス名(パッケージ名 + 接頭辞・接尾辞を除いたクラス名)を表す正規表現 */
+    private static final Pattern PRELOAD_TARGET = Pattern.compile(
+    "(?:[_a-z][_a-zA-Z0-9]*\\.)*[A-Z][_a-zA-Z0-9]*"
+    );
+
+    /** 委譲先クラスを事前ロードするか否か */
+    private boolean preload = false;
+
+    /** 事前ロードに使用するスレッド数 */
+    private int preloadThreads = Runtime.getRuntime().availableProcessors();
+
+    /** 事前ロードの完了を待つ時間(ミリ秒) */
+    private long preloadTimeout = 60000L;
+
+    /** 事前ロードしたクラスのメソッドを検証するか否か */
+    private boolean verifyHandlerMethods = false;
+
+    /** ディスパッチ先とならないメソッドを検証で問題とするか否か */
+    private boolean strictHandlerMethods = false;
+
+    /** メソッドの解決および検証に使用するインターセプタの実行順(設定されていない場合はnull) */
+    private List<String> interceptorsOrder;
+
+    /** 事前ロードしたクラスのディスパッチテーブル(事前ロードしていない場合はnull) */
+    private volatile DispatchTable dispatchTable;
+
+    /** 委譲先クラスの索引を使用するか否か */
+    private boolean useHandlerClassIndex = true;
+
+    /** 委譲先クラスの索引の読み込みを試行済みか否か */
+    private volatile boolean handlerClassIndexLoaded = false;
+
+    /** 事前ロードしたクラス、もしくは索引に含まれるクラスのディスパッチテーブル */
+    private static final class DispatchTable {
+        /** 完全修飾名をキーとした委譲先クラス */
+        private final Map<String, Class<?>> classes;
+        /** クラスのロードに使用したコンテキストクラスローダ */
+        private final ClassLoader loader;
+
+        /**
+         * コンストラクタ。
+         * @param classes 完全修飾名をキーとした委譲先クラス
+         * @param loader クラスのロードに使用したコンテキストクラスローダ
+         */
+        private DispatchTable(Map<String, Class<?>> classes, ClassLoader loader) {
+            this.classes = Collections.unmodifiableMap(new HashMap<String, Class<?>>(classes));
+            this.loader = loader;
+        }
+
+        /**
+         * 事前ロードした委譲先クラスを取得する。
+         * @param fqn 完全修飾名
+         * @param currentLoader 現在のコンテキストクラスローダ
+         * @return 委譲先クラス(事前ロードしていない場合や、クラスローダが異なる場合はnull)
+         */
+        private Class<?> get(String fqn, ClassLoader currentLoader) {
+            return (currentLoader == loader) ? classes.get(fqn) : null;
+        }
+    }
+
+    /** 委譲先クラスのキャッシュのキー */
+    private static final class ClassCacheKey {
+        /** リクエストパス */
+        private final String requestPath;
+        /** マッピング先Javaパッケージ */
+        private final String basePackage;
+        /** ハッシュ値 */
+        private final int hash;
+
+        /**
+         * コンストラクタ。
+         * @param requestPath リクエストパス
+         * @param basePackage マッピング先Javaパッケージ
+         */
+        private ClassCacheKey(String requestPath, String basePackage) {
+            this.requestPath = requestPath;
+            this.basePackage = basePackage;
+            this.hash = requestPath.hashCode() * 31 + basePackage.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ClassCacheKey)) {
+                return false;
+            }
+            ClassCacheKey other = (ClassCacheKey) obj;
+            return hash == other.hash
+                && requestPath.equals(other.requestPath)
+                && basePackage.equals(other.basePackage);
+        }
+    }
+
+    /**
+     * 解決済みの委譲先クラス。
+     * <p/>
+     * クラスローダを解放できなくなることを避けるため、委譲先クラスおよび
+     * クラスのロードに使用したコンテキストクラスローダは弱参照で保持する。
+     */
+    private static final class ResolvedClass {
+        /** 委譲先クラス */
+        private final WeakReference<Class<?>> clazz;
+        /** クラスのロードに使用したコンテキストクラスローダ */
+        private final WeakReference<ClassLoader> loader;
+
+        /**
+         * コンストラクタ。
+         * @param clazz 委譲先クラス
+         * @param loader クラスのロードに使用したコンテキストクラスローダ
+         */
+        private ResolvedClass(Class<?> clazz, ClassLoader loader) {
+            this.clazz = new WeakReference<Class<?>>(clazz);
+            this.loader = (loader == null) ? null : new WeakReference<ClassLoader>(loader);
+        }
+
+        /**
+         * 指定されたコンテキストクラスローダで解決した委譲先クラスを返す。
+         * @param currentLoader 現在のコンテキストクラスローダ
+         * @return 委譲先クラス(異なるクラスローダで解決されたものや、既に回収されている場合はnull)
+         */
+        private Class<?> get(ClassLoader currentLoader) {
+            ClassLoader cachedLoader = (loader == null) ? null : loader.get();
+            if (cachedLoader != currentLoader) {
+                return null;
+            }
+            return clazz.get();
+        }
+    }
+
+    /**
+     * 存在しなかった委譲先クラス。
+     */
+    private static final class UnresolvedClass {
+        /** 委譲先クラスの完全修飾名(完全修飾名に変換できなかった場合はnull) */
+        private final String fqn;
+        /** 完全修飾名に変換できなかった場合の{@link nablarch.fw.Result.NotFound}のメッセージ */
+        private final String unmappedMessage;
+        /** クラスのロードに使用したコンテキストクラスローダ */
+        private final WeakReference<ClassLoader> loader;
+        /** 有効期限 */
+        private final long expiresAt;
+
+        /**
+         * コンストラクタ。
+         * @param fqn 委譲先クラスの完全修飾名(完全修飾名に変換できなかった場合はnull)
+         * @param unmappedMessage 完全修飾名に変換できなかった場合の{@link nablarch.fw.Result.NotFound}のメッセージ
+         * @param loader クラスのロードに使用したコンテキストクラスローダ
+         * @param expiresAt 有効期限
+         */
+        private UnresolvedClass(String fqn, String unmappedMessage, ClassLoader loader, long expiresAt) {
+            this.fqn = fqn;
+            this.unmappedMessage = unmappedMessage;
+            this.loader = (loader == null) ? null : new WeakReference<ClassLoader>(loader);
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * このエントリが有効か否かを返す。
+         * @param currentLoader 現在のコンテキストクラスローダ
+         * @param now 現在時刻
+         * @return 同一のクラスローダで解決され、かつ有効期限内であればtrue
+         */
+        private boolean isValid(ClassLoader currentLoader, long now) {
+            ClassLoader cachedLoader = (loader == null) ? null : loader.get();
+            return cachedLoader == currentLoader && now < expiresAt;
+        }
+    }
+
+    /**
+     * キャッシュにより委譲先クラスが存在しないと判定されたことを表す例外。
+     * <p/>
+     * 大量に送出されることを想定し、スタックトレースは保持しない。
+     */
+    private static final class CachedClassNotFoundException extends ClassNotFoundException {
+
+        /** シリアルバージョンUID */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * コンストラクタ。
+         * @param fqn 委譲先クラスの完全修飾名
+         */
+        private CachedClassNotFoundException(String fqn) {
+            super(fqn + " (cached)");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
     
     // ---------------------------------------------------------- Handler I/F
     /**
@@ -163,34 +473,176 @@ extends DispatchHandler<Request<?>, Object, RequestPathJavaPackageMapping> {
      */
     protected Class<?> getHandlerClass(Request<?> req, ExecutionContext ctx)
     throws ClassNotFoundException {
-        if (!req.getRequestPath().startsWith(basePath)) {
-            String message = "Couldn't map request.: " + req.getRequestPath();
+        String requestPath = req.getRequestPath();
+        if (!requestPath.startsWith(basePath)) {
+            String message = "Couldn't map request.: " + requestPath;
             
-            LOGGER.logInfo(message);
+            writeNotFoundLog(LOGGER, message, null);
             throw new Result.NotFound(message);
         }
         
         String basePackage = getBasePackage(req, ctx);
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+
+        BoundedConcurrentCache<ClassCacheKey, ResolvedClass> cache = classCache;
+        ClassCacheKey cacheKey = null;
+        if (cache != null) {
+            cacheKey = new ClassCacheKey(requestPath, basePackage);
+            ResolvedClass resolved = cache.get(cacheKey);
+            Class<?> clazz = (resolved == null) ? null : resolved.get(loader);
+            if (clazz != null) {
+                writeDispatchingClassLog(req, ctx, clazz.getName());
+                return clazz;
+            }
+        }
+
+        long expiration = notFoundCacheExpirationMillis;
+        BoundedConcurrentCache<ClassCacheKey, UnresolvedClass> notFound = notFoundCache;
+        ClassCacheKey notFoundKey = null;
+        if (expiration > 0 && notFound != null) {
+            notFoundKey = (cacheKey == null) ? new ClassCacheKey(requestPath, basePackage) : cacheKey;
+            UnresolvedClass unresolved = notFound.get(notFoundKey);
+            if (unresolved != null) {
+                if (unresolved.isValid(loader, System.currentTimeMillis())) {
+                    if (unresolved.fqn == null) {
+                        writeNotFoundLog(LOGGER, unresolved.unmappedMessage, null);
+                        throw new Result.NotFound(unresolved.unmappedMessage);
+                    }
+                    throw new CachedClassNotFoundException(unresolved.fqn);
+                }
+                notFound.remove(notFoundKey);
+            }
+        }
+        
+        CompiledRequestPathMapper mapper = getCompiledMapper();
+        String fqn = (mapper != null && CompiledRequestPathMapper.isApplicablePackage(basePackage))
+                   ? mapper.map(requestPath, basePackage)
+                   : mapByPattern(requestPath, basePackage);
+        if (fqn == null) {
+            String message = "Couldn't map request.: " + toMappedUri(requestPath, basePackage);
+            if (notFoundKey != null) {
+                notFound.put(notFoundKey, new UnresolvedClass(
+                        null, message, loader, System.currentTimeMillis() + expiration));
+            }
+            writeNotFoundLog(LOGGER, message, null);
+            throw new Result.NotFound(message);
+        }
         
-        String mappedUri = req.getRequestPath()
-                              .replaceFirst(basePath, basePackage + ".")
-                              .replaceAll("[./]+", ".")
-                              .replaceAll("^\\.|\\.$", "");
+        writeDispatchingClassLog(req, ctx, fqn);
+
+        DispatchTable table = getDispatchTable(loader);
+        Class<?> clazz = (table == null) ? null : table.get(fqn, loader);
+        if (clazz == null) {
+            try {
+                clazz = Class.forName(fqn, true, loader);
+            } catch (ClassNotFoundException e) {
+                if (notFoundKey != null) {
+                    notFound.put(notFoundKey, new UnresolvedClass(
+                            fqn, null, loader, System.currentTimeMillis() + expiration));
+                }
+                throw e;
+            }
+        }
+        if (cache != null) {
+            cache.put(cacheKey, new ResolvedClass(clazz, loader));
+        }
+        return clazz;
+    }
 
-        Matcher m = MAPPING_RULE.matcher(mappedUri);
+    /**
+     * リクエストパスを1回の走査で委譲先クラスの完全修飾名に変換するオブジェクトを取得する。
+     *
+     * @return 変換を行うオブジェクト(ベースパスに正規表現のメタ文字が含まれ、使用できない場合はnull)
+     */
+    private CompiledRequestPathMapper getCompiledMapper() {
+        CompiledRequestPathMapper mapper = compiledMapper;
+        if (mapper == null && CompiledRequestPathMapper.isApplicable(basePath)) {
+            mapper = new CompiledRequestPathMapper(basePath, classNamePrefix, classNameSuffix);
+            compiledMapper = mapper;
+        }
+        return mapper;
+    }
+
+    /**
+     * 正規表現を使用して、リクエストパスを委譲先クラスの完全修飾名に変換する。
+     *
+     * @param requestPath リクエストパス
+     * @param basePackage マッピング先Javaパッケージ
+     * @return 委譲先クラスの完全修飾名(変換できない場合はnull)
+     */
+    private String mapByPattern(String requestPath, String basePackage) {
+        Matcher m = MAPPING_RULE.matcher(toMappedUri(requestPath, basePackage));
         if (!m.matches()) {
-            String message = "Couldn't map request.: " + mappedUri;
-            LOGGER.logInfo(message);
-            throw new Result.NotFound(message);
+            return null;
         }
         String packageName  = (m.group(1) == null) ? "" : m.group(1);
         String className    = classNamePrefix + m.group(2) + classNameSuffix;
-        String fqn          = packageName + className;
-        
-        writeDispatchingClassLog(req, ctx, fqn);
+        return packageName + className;
+    }
 
-        ClassLoader loader = Thread.currentThread().getContextClassLoader();
-        return Class.forName(fqn, true, loader);
+    /**
+     * リクエストパスのベースパス部分をマッピング先Javaパッケージに置き換え、
+     * 区切り文字をドットに正規化した文字列を返す。
+     *
+     * @param requestPath リクエストパス
+     * @param basePackage マッピング先Javaパッケージ
+     * @return マッピング先Javaパッケージに置き換えたリクエストパス
+     */
+    private String toMappedUri(String requestPath, String basePackage) {
+        return requestPath
+                  .replaceFirst(basePath, basePackage + ".")
+                  .replaceAll("[./]+", ".")
+                  .replaceAll("^\\.|\\.$", "");
+    }
+
+    /**
+     * ディスパッチテーブルを取得する。
+     * <p/>
+     * 事前ロードによってディスパッチテーブルが構築されていない場合は、
+     * 初回の呼び出し時に委譲先クラスの索引からディスパッチテーブルを構築する。
+     *
+     * @param loader コンテキストクラスローダ
+     * @return ディスパッチテーブル(構築できない場合はnull)
+     */
+    private DispatchTable getDispatchTable(ClassLoader loader) {
+        DispatchTable table = dispatchTable;
+        if (table != null || !useHandlerClassIndex || handlerClassIndexLoaded) {
+            return table;
+        }
+        Map<String, Class<?>> indexed = loadHandlerClassIndex(loader);
+        if (indexed != null) {
+            table = new DispatchTable(indexed, loader);
+            dispatchTable = table;
+        }
+        handlerClassIndexLoaded = true;
+        return table;
+    }
+
+    /**
+     * クラスパス上に存在する委譲先クラスの索引を読み込む。
+     *
+     * @param loader クラスローダ
+     * @return 完全修飾名をキーとした委譲先クラス(索引が存在しない、もしくは読み込めない場合はnull)
+     */
+    private Map<String, Class<?>> loadHandlerClassIndex(ClassLoader loader) {
+        Map<String, Class<?>> classes = null;
+        try {
+            for (HandlerClassIndex index : ServiceLoader.load(HandlerClassIndex.class, loader)) {
+                if (classes == null) {
+                    classes = new HashMap<String, Class<?>>();
+                }
+                for (Class<?> clazz : index.getHandlerClasses()) {
+                    classes.put(clazz.getName(), clazz);
+                }
+            }
+        } catch (ServiceConfigurationError e) {
+            LOGGER.logWarn("failed to load handler class index. handler class index is not used.", e);
+            return null;
+        }
+        if (classes != null) {
+            LOGGER.logInfo("loaded handler class index. count = " + classes.size());
+        }
+        return classes;
     }
 
     /**
@@ -216,6 +668,276 @@ extends DispatchHandler<Request<?>, Object, RequestPathJavaPackageMapping> {
         return basePackage;
     }
 
+    // ---------------------------------------------------- Initializable I/F
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * preload プロパティがtrueの場合、マッピング先Javaパッケージ配下の委譲先クラスを並列にロードし、
+     * ハンドラとなるクラスを初期化した上で、ディスパッチテーブルを構築する。
+     * あわせて、ロードしたクラスのディスパッチ先となるメソッド、およびメソッドに付与されたインターセプタの構成を作成する。
+     * 委譲先クラスの索引が存在する場合は、クラスパスの走査で見つかったクラスに加えて、索引に含まれるクラスも対象とする。
+     * verifyHandlerMethods プロパティがtrueの場合は、ロードしたクラスのメソッドを検証する。
+     *
+     * @throws IllegalStateException クラスパスの走査、もしくはクラスのロード・初期化に失敗した場合。
+     *                                ロードが設定した時間内に完了しなかった場合。
+     *                                またはメソッドの検証で問題を検出した場合。
+     */
+    @Override
+    public void initialize() {
+        if (!preload) {
+            return;
+        }
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null) {
+            loader = RequestPathJavaPackageMapping.class.getClassLoader();
+        }
+        Map<String, Class<?>> indexed = useHandlerClassIndex ? loadHandlerClassIndex(loader) : null;
+        List<String> targets = new ArrayList<String>();
+        for (String fqn : findPreloadCandidates(loader, indexed)) {
+            if (isPreloadTarget(fqn)) {
+                targets.add(fqn);
+            }
+        }
+        Map<String, Class<?>> classes = loadClasses(targets, loader);
+        if (indexed != null) {
+            logClassesNotIndexed(classes.values(), indexed);
+        }
+        int initialized = initializeHandlerClasses(classes, loader);
+        List<String> problems = prepareHandlerMethods(classes.values());
+        if (verifyHandlerMethods) {
+            reportHandlerMethodProblems(problems, classes.size());
+        }
+        dispatchTable = new DispatchTable(classes, loader);
+        LOGGER.logInfo("preloaded handler classes. count = " + targets.size() + ", initialized = " + initialized);
+    }
+
+    /**
+     * 委譲先クラスのディスパッチ先となるメソッド、およびメソッドに付与されたインターセプタの構成を作成してキャッシュし、
+     * 検出した問題を返す。
+     *
+     * @param classes 委譲先クラス
+     * @return 検出した問題
+     */
+    private List<String> prepareHandlerMethods(Collection<Class<?>> classes) {
+        List<String> problems = new ArrayList<String>();
+        for (Class<?> clazz : classes) {
+            problems.addAll(HandlerMethodVerifier.verify(clazz, interceptorsOrder, strictHandlerMethods));
+        }
+        return problems;
+    }
+
+    /**
+     * 委譲先クラスのメソッドの検証で検出した問題を報告する。
+     *
+     * @param problems 検出した問題
+     * @param classCount 検証したクラスの数
+     * @throws IllegalStateException 問題を検出した場合
+     */
+    private static void reportHandlerMethodProblems(List<String> problems, int classCount) {
+        if (!problems.isEmpty()) {
+            StringBuilder message = new StringBuilder("invalid handler methods were found. count = ")
+                    .append(problems.size());
+            for (String problem : problems) {
+                message.append(Logger.LS).append("    ").append(problem);
+            }
+            throw new IllegalStateException(message.toString());
+        }
+        LOGGER.logInfo("verified handler methods. class count = " + classCount);
+    }
+
+    /**
+     * 事前ロードの候補となるクラスの完全修飾名を取得する。
+     * <p/>
+     * クラスパスの走査によって取得する。
+     * 委譲先クラスの索引が存在する場合は、索引に含まれるクラスもあわせて候補とする。
+     * 差分コンパイルなどによって索引が不完全な場合も、索引に含まれないクラスが対象から漏れることはない。
+     *
+     * @param loader クラスローダ
+     * @param indexed 完全修飾名をキーとした索引に含まれるクラス(索引が存在しない場合はnull)
+     * @return 事前ロードの対象とするパッケージ配下のクラスの完全修飾名
+     */
+    private Set<String> findPreloadCandidates(ClassLoader loader, Map<String, Class<?>> indexed) {
+        Set<String> packages = getPreloadPackages();
+        Set<String> scanned;
+        try {
+            scanned = HandlerClassScanner.scan(loader, new ArrayList<String>(packages));
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to scan handler classes.", e);
+        }
+        if (indexed == null) {
+            return scanned;
+        }
+        Set<String> candidates = new LinkedHashSet<String>();
+        for (String fqn : indexed.keySet()) {
+            for (String packageName : packages) {
+                if (fqn.startsWith(packageName + '.')) {
+                    candidates.add(fqn);
+                    break;
+                }
+            }
+        }
+        candidates.addAll(scanned);
+        return candidates;
+    }
+
+    /**
+     * 事前ロードしたクラスのうち、索引に登録されるべきであるにもかかわらず索引に含まれないクラスの数をログに出力する。
+     * <p/>
+     * {@link HandlerClassIndexProcessor}と同じく、publicかつ具象のトップレベルクラスを索引に登録されるべきクラスとする。
+     *
+     * @param classes 事前ロードしたクラス
+     * @param indexed 完全修飾名をキーとした索引に含まれるクラス
+     */
+    private static void logClassesNotIndexed(Collection<Class<?>> classes, Map<String, Class<?>> indexed) {
+        int notIndexed = 0;
+        for (Class<?> clazz : classes) {
+            int modifiers = clazz.getModifiers();
+            if (!indexed.containsKey(clazz.getName())
+                    && Modifier.isPublic(modifiers)
+                    && !Modifier.isAbstract(modifiers)
+                    && !clazz.isInterface()
+                    && clazz.getEnclosingClass() == null) {
+                notIndexed++;
+            }
+        }
+        if (notIndexed > 0) {
+            LOGGER.logInfo("found preload target classes which are not in the handler class index. "
+                         + "the index may be incomplete. count = " + notIndexed);
+        }
+    }
+
+    /**
+     * 事前ロードの対象とするパッケージを取得する。
+     * @return basePackage および optionalPackageMappingEntries に設定されたマッピング先Javaパッケージ
+     */
+    private Set<String> getPreloadPackages() {
+        Set<String> packages = new LinkedHashSet<String>();
+        packages.add(basePackage);
+        if (optionalPackageMappingEntries != null) {
+            for (JavaPackageMappingEntry entry : optionalPackageMappingEntries) {
+                if (entry.getBasePackage() != null) {
+                    packages.add(entry.getBasePackage());
+                }
+            }
+        }
+        // パッケージ未指定の場合はクラスパス全体の走査となるため対象外とする。
+        packages.remove("");
+        return packages;
+    }
+
+    /**
+     * 事前ロードの対象となるクラスか否かを判定する。
+     * @param fqn クラスの完全修飾名
+     * @return クラス名の接頭辞・接尾辞の設定に合致し、リクエストパスからマッピングされ得るクラスであればtrue
+     */
+    private boolean isPreloadTarget(String fqn) {
+        int lastDot = fqn.lastIndexOf('.');
+        String simpleName = fqn.substring(lastDot + 1);
+        if (simpleName.length() <= classNamePrefix.length() + classNameSuffix.length()
+                || !simpleName.startsWith(classNamePrefix)
+                || !simpleName.endsWith(classNameSuffix)) {
+            return false;
+        }
+        String mappedName = fqn.substring(0, lastDot + 1)
+                          + simpleName.substring(classNamePrefix.length(),
+                                                 simpleName.length() - classNameSuffix.length());
+        return PRELOAD_TARGET.matcher(mappedName).matches();
+    }
+
+    /**
+     * クラスを並列にロードする。
+     * <p/>
+     * クラスの初期化(static初期化子の実行)は行わない。
+     *
+     * @param classNames ロードするクラスの完全修飾名
+     * @param loader クラスローダ
+     * @return 完全修飾名をキーとしたクラス
+     * @throws IllegalStateException ロードに失敗した場合、または設定した時間内に完了しなかった場合
+     */
+    private Map<String, Class<?>> loadClasses(List<String> classNames, final ClassLoader loader) {
+        Map<String, Class<?>> classes = new HashMap<String, Class<?>>();
+        if (classNames.isEmpty()) {
+            return classes;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(preloadThreads, classNames.size()));
+        try {
+            List<Future<Class<?>>> futures = new ArrayList<Future<Class<?>>>(classNames.size());
+            for (final String className : classNames) {
+                futures.add(executor.submit(new Callable<Class<?>>() {
+                    @Override
+                    public Class<?> call() throws ClassNotFoundException {
+                        return Class.forName(className, false, loader);
+                    }
+                }));
+            }
+            long deadline = System.currentTimeMillis() + preloadTimeout;
+            for (int i = 0; i < classNames.size(); i++) {
+                try {
+                    long remaining = Math.max(deadline - System.currentTimeMillis(), 0L);
+                    classes.put(classNames.get(i), futures.get(i).get(remaining, TimeUnit.MILLISECONDS));
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(
+                        "failed to preload handler class. class = " + classNames.get(i), e.getCause());
+                } catch (TimeoutException e) {
+                    throw new IllegalStateException(
+                        "preloading handler classes timed out. timeout = " + preloadTimeout + "ms", e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("preloading handler classes was interrupted.", e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return classes;
+    }
+
+    /**
+     * ロードしたクラスのうち、ハンドラとなるクラスを順に初期化する。
+     *
+     * @param classes 完全修飾名をキーとしたクラス
+     * @param loader クラスローダ
+     * @return 初期化したクラスの数
+     * @throws IllegalStateException クラスの初期化に失敗した場合
+     */
+    private static int initializeHandlerClasses(Map<String, Class<?>> classes, ClassLoader loader) {
+        int initialized = 0;
+        for (Map.Entry<String, Class<?>> entry : classes.entrySet()) {
+            if (!isHandlerClass(entry.getValue())) {
+                continue;
+            }
+            try {
+                Class.forName(entry.getKey(), true, loader);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("failed to preload handler class. class = " + entry.getKey(), e);
+            } catch (LinkageError e) {
+                throw new IllegalStateException("failed to preload handler class. class = " + entry.getKey(), e);
+            }
+            initialized++;
+        }
+        return initialized;
+    }
+
+    /**
+     * ハンドラとなるクラスか否かを判定する。
+     * <p/>
+     * 本メソッドはクラスを初期化しない。
+     *
+     * @param clazz クラス
+     * @return {@link Handler}を実装しているか、handle()メソッドと互換なシグニチャを持つメソッドを持つ場合はtrue
+     */
+    private static boolean isHandlerClass(Class<?> clazz) {
+        if (Handler.class.isAssignableFrom(clazz)) {
+            return true;
+        }
+        for (Method method : clazz.getMethods()) {
+            if (method.getDeclaringClass() != Object.class && MethodBinding.hasHandlerSignature(method)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // ---------------------------------------------------- constructors
     /**
      * デフォルトコンストラクタ。
@@ -260,6 +982,7 @@ extends DispatchHandler<Request<?>, Object, RequestPathJavaPackageMapping> {
             );
         }
         this.basePath = basePath;
+        clearClassCache();
         return this;
     }
 
@@ -276,6 +999,7 @@ extends DispatchHandler<Request<?>, Object, RequestPathJavaPackageMapping> {
             );
         }
         this.basePackage = basePackage;
+        clearClassCache();
         return this;
     }
     
@@ -287,6 +1011,7 @@ extends DispatchHandler<Request<?>, Object, RequestPathJavaPackageMapping> {
      */
     public RequestPathJavaPackageMapping setOptionalPackageMappingEntries(List<JavaPackageMappingEntry> optionalPackageMappingEntries) {
         this.optionalPackageMappingEntries = optionalPackageMappingEntries;
+        clearClassCache();
         return this;
     }
 
@@ -301,6 +1026,7 @@ extends DispatchHandler<Request<?>, Object, RequestPathJavaPackageMapping> {
             throw new IllegalArgumentException("prefix must not be null.");
         }
         classNamePrefix = prefix;
+        clearClassCache();
         return this;
     }
     
@@ -315,8 +1041,183 @@ extends DispatchHandler<Request<?>, Object, RequestPathJavaPackageMapping> {
             throw new IllegalArgumentException("suffix must not be null.");
         }
         classNameSuffix = suffix;
+        clearClassCache();
         return this;
     }
-    
-    
+
+    /**
+     * 委譲先クラスのキャッシュの最大エントリ数を設定する。
+     * <p/>
+     * 0を設定した場合は、委譲先クラスのキャッシュを行わない。
+     * デフォルトは1000件。
+     *
+     * @param classCacheSize 委譲先クラスのキャッシュの最大エントリ数
+     * @return このオブジェクト自体
+     */
+    public RequestPathJavaPackageMapping setClassCacheSize(int classCacheSize) {
+        if (classCacheSize < 0) {
+            throw new IllegalArgumentException("classCacheSize must not be negative.");
+        }
+        classCache = (classCacheSize == 0)
+                   ? null
+                   : new BoundedConcurrentCache<ClassCacheKey, ResolvedClass>(classCacheSize);
+        return this;
+    }
+
+    /**
+     * 委譲先クラスが存在しないリクエストパスをキャッシュする期間(ミリ秒)を設定する。
+     * <p/>
+     * 0を設定した場合は、委譲先クラスが存在しないリクエストパスをキャッシュしない。
+     * デフォルトは0。
+     *
+     * @param notFoundCacheExpirationMillis キャッシュする期間(ミリ秒)
+     * @return このオブジェクト自体
+     */
+    public RequestPathJavaPackageMapping setNotFoundCacheExpirationMillis(long notFoundCacheExpirationMillis) {
+        if (notFoundCacheExpirationMillis < 0) {
+            throw new IllegalArgumentException("notFoundCacheExpirationMillis must not be negative.");
+        }
+        this.notFoundCacheExpirationMillis = notFoundCacheExpirationMillis;
+        return this;
+    }
+
+    /**
+     * 委譲先クラスが存在しないリクエストパスのキャッシュの最大エントリ数を設定する。
+     * <p/>
+     * 0を設定した場合は、notFoundCacheExpirationMillis プロパティの設定によらずキャッシュしない。
+     * デフォルトは1000件。
+     *
+     * @param notFoundCacheSize 最大エントリ数
+     * @return このオブジェクト自体
+     * @throws IllegalArgumentException 負数を設定した場合
+     */
+    public RequestPathJavaPackageMapping setNotFoundCacheSize(int notFoundCacheSize) {
+        if (notFoundCacheSize < 0) {
+            throw new IllegalArgumentException("notFoundCacheSize must not be negative.");
+        }
+        notFoundCache = (notFoundCacheSize == 0)
+                      ? null
+                      : new BoundedConcurrentCache<ClassCacheKey, UnresolvedClass>(notFoundCacheSize);
+        return this;
+    }
+
+    /**
+     * 初期化時に委譲先クラスを事前ロードするか否かを設定する。
+     * <p/>
+     * trueを設定した場合、本ハンドラを初期化対象のコンポーネントとして登録すること。
+     * デフォルトはfalse。
+     *
+     * @param preload 委譲先クラスを事前ロードする場合はtrue
+     * @return このオブジェクト自体
+     */
+    public RequestPathJavaPackageMapping setPreload(boolean preload) {
+        this.preload = preload;
+        return this;
+    }
+
+    /**
+     * 事前ロードに使用するスレッド数を設定する。
+     * <p/>
+     * デフォルトは利用可能なプロセッサ数。
+     *
+     * @param preloadThreads 事前ロードに使用するスレッド数
+     * @return このオブジェクト自体
+     */
+    public RequestPathJavaPackageMapping setPreloadThreads(int preloadThreads) {
+        if (preloadThreads <= 0) {
+            throw new IllegalArgumentException("preloadThreads must be positive.");
+        }
+        this.preloadThreads = preloadThreads;
+        return this;
+    }
+
+    /**
+     * 事前ロードの完了を待つ時間(ミリ秒)を設定する。
+     * <p/>
+     * デフォルトは60000(60秒)。
+     * この時間内にクラスのロードが完了しない場合、初期化処理で例外を送出する。
+     *
+     * @param preloadTimeout 事前ロードの完了を待つ時間(ミリ秒)
+     * @return このオブジェクト自体
+     */
+    public RequestPathJavaPackageMapping setPreloadTimeout(long preloadTimeout) {
+        if (preloadTimeout <= 0) {
+            throw new IllegalArgumentException("preloadTimeout must be positive.");
+        }
+        this.preloadTimeout = preloadTimeout;
+        return this;
+    }
+
+    /**
+     * 事前ロードしたクラスのメソッドを検証するか否かを設定する。
+     * <p/>
+     * preload プロパティがtrueの場合のみ有効。
+     * デフォルトはfalse。
+     *
+     * @param verifyHandlerMethods 事前ロードしたクラスのメソッドを検証する場合はtrue
+     * @return このオブジェクト自体
+     */
+    public RequestPathJavaPackageMapping setVerifyHandlerMethods(boolean verifyHandlerMethods) {
+        this.verifyHandlerMethods = verifyHandlerMethods;
+        return this;
+    }
+
+    /**
+     * ディスパッチ先とならないメソッドを、メソッドの検証で問題とするか否かを設定する。
+     * <p/>
+     * trueを設定した場合、handle()メソッドと同じ型の引数を持つにもかかわらずディスパッチ先とならないメソッド
+     * (staticメソッド、引数の順序が逆のメソッド、および非publicのメソッド)を問題として報告し、初期化処理で例外を送出する。
+     * verifyHandlerMethods プロパティがtrueの場合のみ有効。デフォルトはfalse。
+     *
+     * @param strictHandlerMethods ディスパッチ先とならないメソッドを問題とする場合はtrue
+     * @return このオブジェクト自体
+     */
+    public RequestPathJavaPackageMapping setStrictHandlerMethods(boolean strictHandlerMethods) {
+        this.strictHandlerMethods = strictHandlerMethods;
+        return this;
+    }
+
+    /**
+     * 事前ロードしたクラスのメソッドの解決および検証に使用するインターセプタの実行順を設定する。
+     * <p/>
+     * リポジトリに"interceptorsOrder"という名前で登録したリストと同じものを設定する。
+     * 設定されていない場合、インターセプタが付与されたメソッドの構成は事前に作成せず、
+     * インターセプタが実行順に定義されているか否かも検証しない。
+     *
+     * @param interceptorsOrder インターセプタの実行順(インターセプタのアノテーションの完全修飾名のリスト)
+     * @return このオブジェクト自体
+     */
+    public RequestPathJavaPackageMapping setInterceptorsOrder(List<String> interceptorsOrder) {
+        this.interceptorsOrder = interceptorsOrder;
+        return this;
+    }
+
+    /**
+     * ビルド時に作成した委譲先クラスの索引を使用するか否かを設定する。
+     * <p/>
+     * デフォルトはtrue。
+     *
+     * @param useHandlerClassIndex 委譲先クラスの索引を使用する場合はtrue
+     * @return このオブジェクト自体
+     * @see HandlerClassIndexProcessor
+     */
+    public RequestPathJavaPackageMapping setUseHandlerClassIndex(boolean useHandlerClassIndex) {
+        this.useHandlerClassIndex = useHandlerClassIndex;
+        return this;
+    }
+
+    /**
+     * 委譲先クラスのキャッシュ、およびリクエストパスの変換を行うオブジェクトを破棄する。
+     */
+    private void clearClassCache() {
+        compiledMapper = null;
+        BoundedConcurrentCache<ClassCacheKey, ResolvedClass> cache = classCache;
+        if (cache != null) {
+            cache.clear();
+        }
+        BoundedConcurrentCache<ClassCacheKey, UnresolvedClass> notFound = notFoundCache;
+        if (notFound != null) {
+            notFound.clear();
+        }
+    }
 }
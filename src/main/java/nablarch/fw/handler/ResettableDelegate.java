@@ -0,0 +1,20 @@
+package nablarch.fw.handler;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * プールして再利用される委譲先クラスが実装するインタフェース。
+ * <p/>
+ * {@link CachingDelegateFactory}でプール対象とした委譲先クラスが本インタフェースを実装している場合、
+ * インスタンスをプールに戻す前に{@link #reset()}が呼び出される。
+ *
+ * @see CachingDelegateFactory#setPooledTargets(java.util.List)
+ */
+@Published
+public interface ResettableDelegate {
+
+    /**
+     * 次のリクエストの処理に再利用できるよう、インスタンスの状態を初期化する。
+     */
+    void reset();
+}
@@ -0,0 +1,32 @@
+package nablarch.fw.handler;
+
+/**
+ * 置換ルールのパターンを評価するマッチャ。
+ * <p/>
+ * 1つのマッチャは1つのスレッドから使用され、評価のたびに対象文字列を差し替えて再利用される。
+ */
+interface RewriteMatcher {
+
+    /**
+     * 対象文字列全体がパターンに一致するか否かを判定する。
+     * @param input 対象文字列
+     * @return 一致する場合はtrue
+     */
+    boolean matches(String input);
+
+    /**
+     * 対象文字列がパターンに一致する部分を含むか否かを判定する。
+     * @param input 対象文字列
+     * @return 一致する部分を含む場合はtrue
+     */
+    boolean find(String input);
+
+    /**
+     * 直前の判定で一致した部分のうち、指定されたグループに一致した文字列を取得する。
+     * @param group グループの番号
+     * @return グループに一致した文字列(グループが一致に関与しなかった場合はnull)
+     * @throws IllegalStateException 直前の判定で一致しなかった場合
+     * @throws IndexOutOfBoundsException 指定された番号のグループが存在しない場合
+     */
+    String group(int group);
+}
@@ -0,0 +1,235 @@
+package nablarch.fw.handler;
+
+/**
+ * 置換ルールのパスのパターン(正規表現)から、一致する文字列が必ず含む固定文字列を抽出するクラス。
+ * <p/>
+ * パターンはパス全体との一致({@link java.util.regex.Matcher#matches()})に使用されるため、
+ * パターンの先頭の固定文字列は、一致するパスの接頭辞となる。
+ * <p/>
+ * 解析はパターンの最上位(グループの外側)の固定文字列のみを対象とし、
+ * 最上位の選択(|)やフラグの指定など、固定文字列を正しく判定できない構文が含まれる場合は、
+ * 固定文字列が存在しないものとして扱う。
+ * このため、抽出した固定文字列を含まない文字列はパターンに一致しないことが保証されるが、
+ * 固定文字列を含む文字列がパターンに一致するとは限らない。
+ */
+final class RewritePatternAnalyzer {
+
+    /** 一致する文字列の接頭辞となる固定文字列 */
+    private final String prefix;
+
+    /** 一致する文字列が必ず含む固定文字列のうち、接頭辞以外で最長のもの */
+    private final String requiredLiteral;
+
+    /**
+     * コンストラクタ。
+     * @param prefix          接頭辞となる固定文字列
+     * @param requiredLiteral 必ず含む固定文字列
+     */
+    private RewritePatternAnalyzer(String prefix, String requiredLiteral) {
+        this.prefix = prefix;
+        this.requiredLiteral = requiredLiteral;
+    }
+
+    /**
+     * 一致する文字列の接頭辞となる固定文字列を取得する。
+     * @return 接頭辞となる固定文字列(存在しない場合は空文字列)
+     */
+    String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * 一致する文字列が必ず含む固定文字列のうち、接頭辞以外で最長のものを取得する。
+     * @return 必ず含む固定文字列(存在しない場合は空文字列)
+     */
+    String getRequiredLiteral() {
+        return requiredLiteral;
+    }
+
+    /**
+     * パターンを解析する。
+     *
+     * @param regex パターン
+     * @return 解析結果
+     */
+    static RewritePatternAnalyzer analyze(String regex) {
+        StringBuilder run = new StringBuilder();
+        String prefix = null;
+        String required = "";
+        int depth = 0;
+        int i = regex.startsWith("^") ? 1 : 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            int next;
+            Character literal = null;
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    return empty();
+                }
+                char escaped = regex.charAt(i + 1);
+                if (escaped == 'Q' || escaped == 'E') {
+                    return empty();
+                }
+                if (!Character.isLetterOrDigit(escaped)) {
+                    literal = escaped;
+                    next = i + 2;
+                } else {
+                    next = skipEscape(regex, i);
+                }
+            } else if (c == '[') {
+                next = skipCharacterClass(regex, i);
+                if (next < 0) {
+                    return empty();
+                }
+            } else if (c == '(') {
+                if (depth == 0 && isFlagGroup(regex, i)) {
+                    return empty();
+                }
+                depth++;
+                next = i + 1;
+            } else if (c == ')') {
+                depth--;
+                next = i + 1;
+            } else if (c == '|') {
+                if (depth == 0) {
+                    return empty();
+                }
+                next = i + 1;
+            } else if (c == '{') {
+                next = regex.indexOf('}', i);
+                if (next < 0) {
+                    return empty();
+                }
+                next++;
+            } else if (".$^*+?}".indexOf(c) >= 0) {
+                next = i + 1;
+            } else {
+                literal = c;
+                next = i + 1;
+            }
+
+            if (depth == 0 && literal != null) {
+                char quantifier = (next < regex.length()) ? regex.charAt(next) : 0;
+                if (quantifier == '*' || quantifier == '?' || quantifier == '{') {
+                    literal = null;
+                } else if (quantifier == '+') {
+                    run.append(literal.charValue());
+                    literal = null;
+                }
+            } else {
+                literal = null;
+            }
+
+            if (literal != null) {
+                run.append(literal.charValue());
+            } else {
+                if (prefix == null) {
+                    prefix = run.toString();
+                } else if (run.length() > required.length()) {
+                    required = run.toString();
+                }
+                run.setLength(0);
+            }
+            i = next;
+        }
+        if (prefix == null) {
+            prefix = run.toString();
+        } else if (run.length() > required.length()) {
+            required = run.toString();
+        }
+        return new RewritePatternAnalyzer(prefix, required);
+    }
+
+    /**
+     * 固定文字列が存在しない解析結果を返す。
+     * @return 解析結果
+     */
+    private static RewritePatternAnalyzer empty() {
+        return new RewritePatternAnalyzer("", "");
+    }
+
+    /**
+     * 英数字のエスケープ(文字クラス、文字コードの指定、後方参照など)の次の位置を返す。
+     * <p/>
+     * 引数の長さが判断できないエスケープは、後続の英数字を全て引数とみなす。
+     * 引数を長く見積もった場合も、固定文字列が短くなるだけであり、誤った固定文字列は抽出されない。
+     *
+     * @param regex パターン
+     * @param start ""の位置
+     * @return エスケープの次の位置
+     */
+    private static int skipEscape(String regex, int start) {
+        char escaped = regex.charAt(start + 1);
+        int i = start + 2;
+        if (i < regex.length() && (escaped == 'x' || escaped == 'p' || escaped == 'P' || escaped == 'N')
+                && regex.charAt(i) == '{') {
+            int end = regex.indexOf('}', i);
+            return (end < 0) ? regex.length() : end + 1;
+        }
+        if (escaped == 'k' && i < regex.length() && regex.charAt(i) == '<') {
+            int end = regex.indexOf('>', i);
+            return (end < 0) ? regex.length() : end + 1;
+        }
+        if (escaped == 'c') {
+            return Math.min(i + 1, regex.length());
+        }
+        if (escaped == 'p' || escaped == 'P') {
+            return Math.min(i + 1, regex.length());
+        }
+        if (escaped == 'x' || escaped == 'u' || Character.isDigit(escaped)) {
+            while (i < regex.length() && Character.isLetterOrDigit(regex.charAt(i))) {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * 文字クラスの終端の次の位置を返す。
+     * @param regex パターン
+     * @param start 文字クラスの開始位置
+     * @return 文字クラスの終端の次の位置(終端が存在しない場合は-1)
+     */
+    private static int skipCharacterClass(String regex, int start) {
+        int nest = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                nest++;
+                i++;
+                // 先頭の"^"および"]"はそれぞれ否定・文字として扱われる。
+                if (i < regex.length() && regex.charAt(i) == '^') {
+                    i++;
+                }
+                if (i < regex.length() && regex.charAt(i) == ']') {
+                    i++;
+                }
+                continue;
+            }
+            if (c == ']' && --nest == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * 以降の文字列の一致方法を変更するフラグ指定であるか否かを判定する。
+     * @param regex パターン
+     * @param start "("の位置
+     * @return 捕捉しないグループおよび先読み・後読み以外の"(?"で始まる構文の場合はtrue
+     */
+    private static boolean isFlagGroup(String regex, int start) {
+        if (!regex.startsWith("(?", start) || start + 2 >= regex.length()) {
+            return false;
+        }
+        char c = regex.charAt(start + 2);
+        return c != ':' && c != '=' && c != '!' && c != '<' && c != '>';
+    }
+}
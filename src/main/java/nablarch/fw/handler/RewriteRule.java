@@ -1,9 +1,10 @@
 package nablarch.fw.handler;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -33,6 +34,8 @@ public abstract class RewriteRule<TData, TSelf> {
         private final Pattern pattern;
         /** 否定 */
         private final boolean invertMatch;
+        /** 線形時間で評価するパターン(使用しない場合はnull) */
+        private LinearPattern linearPattern;
         
         /**
          * コンストラクタ。
@@ -52,23 +55,109 @@ public abstract class RewriteRule<TData, TSelf> {
         }
         
         /**
-         * この条件にマッチするかどうかを返す。
-         * @param value    判定対象値
-         * @param backRefs バックリファレンス用のホルダ
-         * @return この条件にマッチしていればtrue
+         * 判定対象値がこの条件のパターンを含むかどうかを返す。
+         * <p/>
+         * パターンを含む場合、バックリファレンスはマッチャから取得できる。
+         * 
+         * @param value   判定対象値
+         * @param matcher この条件のパターンのマッチャ
+         * @return 判定対象値がこの条件のパターンを含む場合はtrue
          */
-        public boolean satisfiedBy(Object value, Map<String, List<String>> backRefs) {
+        public boolean find(Object value, RewriteMatcher matcher) {
             String val = (value == null) ? "" : StringUtil.toString(value);
-            Matcher m = pattern.matcher(val);
-            boolean found = m.find();
-            if (found) {
-                List<String> backRef = new ArrayList<String>();
-                for (int i = 0; i <= m.groupCount(); i++) {
-                    backRef.add(m.group(i));
-                }
-                backRefs.put(paramType + ":" + paramName, backRef);
+            return matcher.find(val);
+        }
+
+        /**
+         * この条件のパターンのマッチャを作成する。
+         * @return マッチャ
+         */
+        public RewriteMatcher matcher() {
+            return (linearPattern == null) ? new RegexMatcher(pattern) : linearPattern.matcher();
+        }
+
+        /**
+         * 指定された変数を判定対象とする条件であるか否かを返す。
+         * @param type 変数種別
+         * @param name 変数名
+         * @return 指定された変数を判定対象とする場合はtrue
+         */
+        public boolean isFor(String type, String name) {
+            return paramType.equals(type) && paramName.equals(name);
+        }
+    }
+
+    /**
+     * 置換処理中のバックリファレンス。
+     * <p/>
+     * パスおよび適用条件の判定に使用したマッチャを保持し、
+     * バックリファレンスの文字列は埋め込み文字列に含まれる場合にのみマッチャから取り出す。
+     * マッチャはスレッドごとに再利用し、置換処理のたびに作成しない。
+     */
+    private static final class BackReferences {
+        /** 作成時点の置換ルールの設定の版数 */
+        private final int version;
+        /** パスのマッチャ */
+        private final RewriteMatcher pathMatcher;
+        /** 適用条件のマッチャ */
+        private final RewriteMatcher[] conditionMatchers;
+        /** 適用条件ごとの、判定対象値がパターンを含んだか否か */
+        private final boolean[] found;
+        /** 適用条件の評価順(適用条件のインデックスの並び) */
+        private final int[] order;
+        /** 置換結果のキャッシュのキーとする変数(キャッシュできない場合はnull) */
+        private final Segment[] cacheInputs;
+        /** 置換処理で使用中か否か */
+        private boolean inUse;
+
+        /**
+         * コンストラクタ。
+         * @param version    置換ルールの設定の版数
+         * @param pathMatcher パスのマッチャ
+         * @param conditions 適用条件
+         * @param order      適用条件の評価順
+         * @param cacheInputs 置換結果のキャッシュのキーとする変数
+         */
+        private BackReferences(int version, RewriteMatcher pathMatcher, List<Condition> conditions,
+                               int[] order, Segment[] cacheInputs) {
+            this.version = version;
+            this.order = order;
+            this.cacheInputs = cacheInputs;
+            this.pathMatcher = pathMatcher;
+            conditionMatchers = new RewriteMatcher[conditions.size()];
+            for (int i = 0; i < conditionMatchers.length; i++) {
+                conditionMatchers[i] = conditions.get(i).matcher();
             }
-            return found ^ invertMatch;
+            found = new boolean[conditionMatchers.length];
+        }
+    }
+    
+    /** {@link java.util.regex.Pattern}を使用するマッチャ */
+    private static final class RegexMatcher implements RewriteMatcher {
+        /** マッチャ */
+        private final Matcher matcher;
+
+        /**
+         * コンストラクタ。
+         * @param pattern パターン
+         */
+        private RegexMatcher(Pattern pattern) {
+            matcher = pattern.matcher("");
+        }
+
+        @Override
+        public boolean matches(String input) {
+            return matcher.reset(input).matches();
+        }
+
+        @Override
+        public boolean find(String input) {
+            return matcher.reset(input).find();
+        }
+
+        @Override
+        public String group(int group) {
+            return matcher.group(group);
         }
     }
     
@@ -78,8 +167,8 @@ public abstract class RewriteRule<TData, TSelf> {
         private final String paramType;
         /** 変数名 */
         private final String paramName;
-        /** パターン */
-        private final String paramValue;
+        /** 値のテンプレート */
+        private final Template paramValue;
         /**
          * コンストラクタ。
          * @param line 定義文字列
@@ -93,9 +182,154 @@ public abstract class RewriteRule<TData, TSelf> {
             }
             paramType  = (m.group(2) == null) ? "" : m.group(2);
             paramName  =  m.group(3);
-            paramValue =  m.group(4);
+            paramValue =  new Template(m.group(4));
+        }
+    }
+
+    /**
+     * 埋め込み変数を含む文字列を解析したテンプレート。
+     * <p/>
+     * 設定時に文字列を固定文字列と埋め込み変数の並びに分解しておき、
+     * 置換処理ではそれらを順に連結するだけで結果を作成する。
+     */
+    private static final class Template {
+        /** テンプレートを構成する要素 */
+        private final Segment[] segments;
+        /** 固定文字列の長さの合計 */
+        private final int literalLength;
+
+        /**
+         * コンストラクタ。
+         * @param str 埋め込み変数を含む文字列
+         */
+        private Template(String str) {
+            List<Segment> list = new ArrayList<Segment>();
+            Matcher placeHolder = PLACE_HOLDER.matcher(str);
+            int length = 0;
+            int last = 0;
+            while (placeHolder.find()) {
+                if (placeHolder.start() > last) {
+                    list.add(new Segment(Segment.LITERAL, str.substring(last, placeHolder.start()), null, null, 0));
+                    length += placeHolder.start() - last;
+                }
+                if (placeHolder.group(1) != null) {
+                    list.add(new Segment(Segment.PATH_BACK_REF, null, null, null,
+                                         Integer.parseInt(placeHolder.group(1))));
+                } else {
+                    String type = (placeHolder.group(2) == null) ? "" : placeHolder.group(2);
+                    String name = placeHolder.group(3);
+                    String backRefNum = placeHolder.group(4);
+                    list.add((backRefNum == null)
+                             ? new Segment(Segment.PARAM, null, type, name, 0)
+                             : new Segment(Segment.CONDITION_BACK_REF, null, type, name,
+                                           Integer.parseInt(backRefNum)));
+                }
+                last = placeHolder.end();
+            }
+            if (last < str.length()) {
+                list.add(new Segment(Segment.LITERAL, str.substring(last), null, null, 0));
+                length += str.length() - last;
+            }
+            segments = list.toArray(new Segment[list.size()]);
+            literalLength = length;
+        }
+    }
+
+    /** テンプレートを構成する要素 */
+    private static final class Segment {
+        /** 固定文字列 */
+        private static final int LITERAL = 0;
+        /** パスのバックリファレンス */
+        private static final int PATH_BACK_REF = 1;
+        /** 適用条件のバックリファレンス */
+        private static final int CONDITION_BACK_REF = 2;
+        /** 変数の値 */
+        private static final int PARAM = 3;
+
+        /** 要素の種類 */
+        private final int kind;
+        /** 固定文字列 */
+        private final String text;
+        /** 変数種別 */
+        private final String paramType;
+        /** 変数名 */
+        private final String paramName;
+        /** バックリファレンス番号 */
+        private final int group;
+
+        /**
+         * コンストラクタ。
+         * @param kind      要素の種類
+         * @param text      固定文字列
+         * @param paramType 変数種別
+         * @param paramName 変数名
+         * @param group     バックリファレンス番号
+         */
+        private Segment(int kind, String text, String paramType, String paramName, int group) {
+            this.kind = kind;
+            this.text = text;
+            this.paramType = paramType;
+            this.paramName = paramName;
+            this.group = group;
+        }
+    }
+
+    /** 置換結果のキャッシュのキー */
+    private static final class ResultKey {
+        /** 書き換え対象のパス */
+        private final String path;
+        /** 変数の値 */
+        private final String[] values;
+        /** ハッシュ値 */
+        private final int hash;
+
+        /**
+         * コンストラクタ。
+         * @param path   書き換え対象のパス
+         * @param values 変数の値
+         */
+        private ResultKey(String path, String[] values) {
+            this.path = path;
+            this.values = values;
+            this.hash = path.hashCode() * 31 + Arrays.hashCode(values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ResultKey)) {
+                return false;
+            }
+            ResultKey other = (ResultKey) obj;
+            return hash == other.hash && path.equals(other.path) && Arrays.equals(values, other.values);
+        }
+    }
+
+    /** キャッシュした置換結果 */
+    private static final class CachedResult {
+        /** 置換ルールが適用されなかったことを表す置換結果 */
+        private static final CachedResult NOT_REWRITTEN = new CachedResult(null, null);
+
+        /** 置換後のパス(置換ルールが適用されなかった場合はnull) */
+        private final String rewrittenPath;
+        /** 変数定義ごとの変数の値 */
+        private final String[] exportValues;
+
+        /**
+         * コンストラクタ。
+         * @param rewrittenPath 置換後のパス
+         * @param exportValues  変数定義ごとの変数の値
+         */
+        private CachedResult(String rewrittenPath, String[] exportValues) {
+            this.rewrittenPath = rewrittenPath;
+            this.exportValues = exportValues;
         }
     }
+
     /** 記述書式 */
     private static final Pattern COND_LINE_FORMAT = Pattern.compile(
       "^(!)?"                              // Capture#1 否定
@@ -112,8 +346,14 @@ public abstract class RewriteRule<TData, TSelf> {
     /** 処理対象パターン */
     private Pattern pattern;
     
-    /** 置換先文字列 */
-    private String rewriteTo;
+    /** 線形時間で評価する処理対象パターン(使用しない場合はnull) */
+    private LinearPattern linearPathPattern;
+    
+    /** パターンを線形時間で評価するか否か */
+    private boolean linearTimeMatching = false;
+    
+    /** 置換先文字列のテンプレート */
+    private Template rewriteTo;
     
     /** 適用条件 */
     private final List<Condition> conditions = new ArrayList<Condition>();
@@ -121,6 +361,18 @@ public abstract class RewriteRule<TData, TSelf> {
     /** 変数定義 */
     private final List<Export> exports = new ArrayList<Export>();
     
+    /** 適用条件より先にパスのパターンを評価するか否か */
+    private boolean pathFirst = false;
+    
+    /** パスのパターンおよび適用条件の設定の版数 */
+    private int version = 0;
+    
+    /** スレッドごとに再利用するバックリファレンス */
+    private final ThreadLocal<BackReferences> backReferences = new ThreadLocal<BackReferences>();
+    
+    /** 置換結果のキャッシュ(使用しない場合はnull) */
+    private volatile BoundedConcurrentCache<ResultKey, CachedResult> resultCache;
+    
     
     // ---------------------------------------------------- template methods
     /**
@@ -188,6 +440,53 @@ public abstract class RewriteRule<TData, TSelf> {
     }
     
     
+    /**
+     * 変数の取得コストの見積もりを返す。
+     * <p/>
+     * pathFirst プロパティがtrueの場合に、適用条件の評価順の決定に使用する。
+     * 値が小さいほど先に評価する。
+     * この実装では、以下の値を返す。
+     * <pre>
+     * ----------- ------------------------
+     * 種別名       コスト
+     * ----------- ------------------------
+     * request     1
+     * thread      1
+     * session     10 (外部のセッションストアへのアクセスを伴う場合があるため)
+     * 上記以外      5
+     * ----------- ------------------------
+     * </pre>
+     * 独自の変数種別を追加したサブクラスでは、必要に応じて本メソッドをオーバーライドすること。
+     * 
+     * @param scope 変数種別
+     * @return 変数の取得コストの見積もり
+     */
+    protected int getParamCost(String scope) {
+        return "request".equals(scope) ? 1
+             : "thread".equals(scope)  ? 1
+             : "session".equals(scope) ? 10
+             : 5;
+    }
+    
+    /**
+     * 変数の値を置換結果のキャッシュのキーとしてよいか否かを返す。
+     * <p/>
+     * 置換結果のキャッシュ(resultCacheSize プロパティ)を使用する場合に、
+     * 置換ルールが参照する全ての変数についてtrueを返す場合のみ、置換結果をキャッシュする。
+     * この実装では、リクエストスコープ変数(request)の場合のみtrueを返す。
+     * <p/>
+     * リクエストごとに値が異なり得る変数(リクエストIDなど)に対してtrueを返すと、
+     * キャッシュがほとんど再利用されないため注意すること。
+     * リクエストから導出される独自の変数種別を追加したサブクラスでは、必要に応じて本メソッドをオーバーライドすること。
+     * 
+     * @param scope 変数種別
+     * @return 置換結果のキャッシュのキーとしてよい場合はtrue
+     */
+    protected boolean isCacheableParam(String scope) {
+        return "request".equals(scope);
+    }
+    
+    
     // ------------------------------------------------------- main logic
     /**
      * このオブジェクトの設定に従ってパスの置換処理をおこない、
@@ -200,86 +499,339 @@ public abstract class RewriteRule<TData, TSelf> {
      *          行われなかった場合はnull。
      */
     public String rewrite(TData data, ExecutionContext context) {
+        BackReferences backRefs = acquireBackReferences();
+        try {
+            return rewrite(data, context, backRefs);
+        } finally {
+            backRefs.inUse = false;
+        }
+    }
+    
+    /**
+     * このオブジェクトの設定に従ってパスの置換処理をおこなう。
+     * 
+     * @param data     処理対象オブジェクト
+     * @param context  実行コンテキスト
+     * @param backRefs バックリファレンス
+     * @return 置換処理が行われた場合は置換後の文字列。
+     *          行われなかった場合はnull。
+     */
+    private String rewrite(TData data, ExecutionContext context, BackReferences backRefs) {
         String fromPath = getPathToRewrite(data);
-        String toPath   = rewriteTo;
+        BoundedConcurrentCache<ResultKey, CachedResult> cache = resultCache;
+        if (cache != null && backRefs.cacheInputs != null) {
+            return rewriteWithCache(fromPath, data, context, backRefs, cache);
+        }
         
-        Map<String, List<String>> backRefs = new HashMap<String, List<String>>();
+        if (!matches(fromPath, data, context, backRefs)) {
+            return null;
+        }
+        return applyRewrite(fromPath, data, context, backRefs, null);
+    }
+    
+    /**
+     * 適用条件およびパスのパターンに一致した置換ルールを適用する。
+     * <p/>
+     * 置換後のパスを処理対象オブジェクトに反映した後、変数定義を定義順に1つずつ評価し、変数を定義する。
+     * 後の変数定義では、先の変数定義で定義した変数を参照できる。
+     * 
+     * @param fromPath     書き換え対象のパス
+     * @param data         処理対象オブジェクト
+     * @param context      実行コンテキスト
+     * @param backRefs     バックリファレンス
+     * @param exportValues 定義した変数の値を格納する配列(格納しない場合はnull)
+     * @return 置換後の文字列
+     */
+    private String applyRewrite(String fromPath, TData data, ExecutionContext context,
+                                BackReferences backRefs, String[] exportValues) {
+        String rewrittenPath = (rewriteTo == null)
+                             ? fromPath
+                             : interpolate(rewriteTo, backRefs, data, context);
         
-        for (Condition cond : conditions) {
-            Object value = getParam(cond.paramType, cond.paramName, data, context);
-            if (!cond.satisfiedBy(value, backRefs)) {
+        applyRewrittenPath(rewrittenPath, data);
+
+        for (int i = 0; i < exports.size(); i++) {
+            Export export = exports.get(i);
+            String value = interpolate(export.paramValue, backRefs, data, context);
+            if (exportValues != null) {
+                exportValues[i] = value;
+            }
+            exportParam(export.paramType, export.paramName, value, data, context);
+        }
+        return rewrittenPath;
+    }
+    
+    /**
+     * 置換結果のキャッシュを使用して、パスの置換処理をおこなう。
+     * <p/>
+     * キャッシュに置換結果が存在しない場合は、キャッシュを使用しない場合と同じ手順で置換処理をおこない、
+     * その結果(置換後のパスおよび定義した変数の値)をキャッシュする。
+     * 置換ルールが適用されなかったという結果もキャッシュする。
+     * 
+     * @param fromPath 書き換え対象のパス
+     * @param data     処理対象オブジェクト
+     * @param context  実行コンテキスト
+     * @param backRefs バックリファレンス
+     * @param cache    置換結果のキャッシュ
+     * @return 置換処理が行われた場合は置換後の文字列。
+     *          行われなかった場合はnull。
+     */
+    private String rewriteWithCache(String fromPath, TData data, ExecutionContext context,
+                                    BackReferences backRefs,
+                                    BoundedConcurrentCache<ResultKey, CachedResult> cache) {
+        Segment[] inputs = backRefs.cacheInputs;
+        String[] values = new String[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            Object value = getParam(inputs[i].paramType, inputs[i].paramName, data, context);
+            values[i] = (value == null) ? "" : StringUtil.toString(value);
+        }
+        ResultKey key = new ResultKey(fromPath, values);
+        CachedResult result = cache.get(key);
+        if (result == null) {
+            if (!matches(fromPath, data, context, backRefs)) {
+                cache.put(key, CachedResult.NOT_REWRITTEN);
                 return null;
             }
+            String[] exportValues = new String[exports.size()];
+            String rewrittenPath = applyRewrite(fromPath, data, context, backRefs, exportValues);
+            cache.put(key, new CachedResult(rewrittenPath, exportValues));
+            return rewrittenPath;
         }
-        
-        Matcher m = pattern.matcher(fromPath);
-        if (!m.matches()) {
+        if (result.rewrittenPath == null) {
             return null;
         }
         
-        List<String> backRef = new ArrayList<String>(m.groupCount());
-        for (int i = 0; i <= m.groupCount(); i++) {
-            backRef.add(m.group(i));
-        }
-        backRefs.put("#", backRef);
+        applyRewrittenPath(result.rewrittenPath, data);
         
-        String rewrittenPath = (toPath == null)
-                             ? fromPath
-                             : interpolate(toPath, backRefs, data, context);
+        for (int i = 0; i < result.exportValues.length; i++) {
+            Export export = exports.get(i);
+            exportParam(export.paramType, export.paramName, result.exportValues[i], data, context);
+        }
+        return result.rewrittenPath;
+    }
+    
+    /**
+     * 適用条件およびパスのパターンを評価する。
+     * 
+     * @param fromPath 書き換え対象のパス
+     * @param data     処理対象オブジェクト
+     * @param context  実行コンテキスト
+     * @param backRefs バックリファレンス
+     * @return この置換ルールを適用する場合はtrue
+     */
+    private boolean matches(String fromPath, TData data, ExecutionContext context, BackReferences backRefs) {
+        if (pathFirst && !backRefs.pathMatcher.matches(fromPath)) {
+            return false;
+        }
         
-        applyRewrittenPath(rewrittenPath, data);
-
-        for (Export export : exports) {
-            exportParam(
-                export.paramType
-              , export.paramName
-              , interpolate(export.paramValue, backRefs, data, context)
-              , data
-              , context
-            );
+        for (int i : backRefs.order) {
+            Condition cond = conditions.get(i);
+            Object value = getParam(cond.paramType, cond.paramName, data, context);
+            boolean found = cond.find(value, backRefs.conditionMatchers[i]);
+            backRefs.found[i] = found;
+            if (!(found ^ cond.invertMatch)) {
+                return false;
+            }
         }
-        return rewrittenPath;
+        
+        return pathFirst || backRefs.pathMatcher.matches(fromPath);
     }
     
     
     // --------------------------------------------------------- helpers
     /**
      * 埋め込み文字列を反映する。
-     * @param str      処理対象文字列
+     * @param template テンプレート
      * @param backRefs バックリファレンス
      * @param data     処理対象オブジェクト
      * @param context  実行コンテキスト
      * @return 処理結果文字列
      */
-    private String interpolate(String                    str,
-                               Map<String, List<String>> backRefs,
-                               TData                     data,
-                               ExecutionContext          context) {
-        
-        Matcher placeHolder = PLACE_HOLDER.matcher(str);
-        String  result = str;
+    private String interpolate(Template         template,
+                               BackReferences   backRefs,
+                               TData            data,
+                               ExecutionContext context) {
         
-        while (placeHolder.find()) {
-            Object value;
-            if (placeHolder.group(1) != null) {
-                value = backRefs.get("#")
-                                .get(Integer.valueOf(placeHolder.group(1)));
-            } else {
-                String type = (placeHolder.group(2) == null) ? "" : placeHolder.group(2);
-                String name = placeHolder.group(3);
-                String backRefNum = placeHolder.group(4);
-                               
-                value = (backRefNum == null)
-                      ? getParam(type, name, data, context)
-                      : backRefs.get(type + ":" + name)
-                                .get(Integer.valueOf(backRefNum));
+        Segment[] segments = template.segments;
+        if (segments.length == 1 && segments[0].kind == Segment.LITERAL) {
+            return segments[0].text;
+        }
+        StringBuilder result = new StringBuilder(template.literalLength + 16 * segments.length);
+        for (Segment segment : segments) {
+            if (segment.kind == Segment.LITERAL) {
+                result.append(segment.text);
+                continue;
             }
-            result = result.replace(
-                placeHolder.group()
-              , (value == null) ? "" : StringUtil.toString(value)
-            );
+            Object value = (segment.kind == Segment.PATH_BACK_REF) ? backRefs.pathMatcher.group(segment.group)
+                         : (segment.kind == Segment.CONDITION_BACK_REF) ? getConditionBackReference(segment, backRefs)
+                         : getParam(segment.paramType, segment.paramName, data, context);
+            if (value != null) {
+                result.append(StringUtil.toString(value));
+            }
+        }
+        return result.toString();
+    }
+    
+    /**
+     * 適用条件のバックリファレンスを取得する。
+     * <p/>
+     * 同じ変数を判定対象とする適用条件が複数存在する場合は、
+     * 判定対象値がパターンを含んだ適用条件のうち、最後に定義されたものを使用する。
+     * 
+     * @param segment  バックリファレンスの要素
+     * @param backRefs バックリファレンス
+     * @return バックリファレンスの値
+     */
+    private String getConditionBackReference(Segment segment, BackReferences backRefs) {
+        for (int i = conditions.size() - 1; i >= 0; i--) {
+            if (backRefs.found[i] && conditions.get(i).isFor(segment.paramType, segment.paramName)) {
+                return backRefs.conditionMatchers[i].group(segment.group);
+            }
+        }
+        throw new IllegalStateException(
+            "back reference is not found in the conditions. : "
+          + segment.paramType + ":" + segment.paramName + ":" + segment.group
+        );
+    }
+    
+    /**
+     * 適用条件の評価順を決定する。
+     * <p/>
+     * pathFirst プロパティがtrueの場合は、変数の取得コスト({@link #getParamCost(String)})、
+     * パターンの長さの順に昇順で並べる。いずれも等しい場合は定義順とする。
+     * falseの場合は定義順とする。
+     * 
+     * @return 適用条件のインデックスの並び
+     */
+    private int[] sortConditions() {
+        List<Integer> indexes = new ArrayList<Integer>(conditions.size());
+        for (int i = 0; i < conditions.size(); i++) {
+            indexes.add(i);
+        }
+        if (pathFirst) {
+            final int[] costs = new int[conditions.size()];
+            for (int i = 0; i < costs.length; i++) {
+                costs[i] = getParamCost(conditions.get(i).paramType);
+            }
+            Collections.sort(indexes, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer left, Integer right) {
+                    int diff = compareInt(costs[left], costs[right]);
+                    return (diff != 0) ? diff
+                         : compareInt(conditions.get(left).pattern.pattern().length(),
+                                      conditions.get(right).pattern.pattern().length());
+                }
+            });
         }
-        return result;
+        int[] order = new int[indexes.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = indexes.get(i);
+        }
+        return order;
+    }
+    
+    /**
+     * 2つの整数を比較する。
+     * @param left  左辺
+     * @param right 右辺
+     * @return 左辺が小さい場合は負数、等しい場合は0、大きい場合は正数
+     */
+    private static int compareInt(int left, int right) {
+        return (left < right) ? -1 : ((left == right) ? 0 : 1);
+    }
+    
+    /**
+     * 置換結果のキャッシュのキーとする変数を収集する。
+     * <p/>
+     * 適用条件、置換先文字列、変数定義の順に、置換ルールが参照する変数を重複なく並べる。
+     * 
+     * @return キーとする変数。キャッシュのキーとできない変数を参照する場合はnull。
+     */
+    private Segment[] collectCacheInputs() {
+        List<Segment> inputs = new ArrayList<Segment>();
+        for (Condition cond : conditions) {
+            if (!addCacheInput(inputs, cond.paramType, cond.paramName)) {
+                return null;
+            }
+        }
+        List<Template> templates = new ArrayList<Template>();
+        if (rewriteTo != null) {
+            templates.add(rewriteTo);
+        }
+        for (Export export : exports) {
+            templates.add(export.paramValue);
+        }
+        for (Template template : templates) {
+            for (Segment segment : template.segments) {
+                if (segment.kind == Segment.PARAM && !addCacheInput(inputs, segment.paramType, segment.paramName)) {
+                    return null;
+                }
+            }
+        }
+        return inputs.toArray(new Segment[inputs.size()]);
+    }
+    
+    /**
+     * 置換結果のキャッシュのキーとする変数を追加する。
+     * 
+     * @param inputs キーとする変数
+     * @param type   変数種別
+     * @param name   変数名
+     * @return 変数がキャッシュのキーとできない場合はfalse
+     */
+    private boolean addCacheInput(List<Segment> inputs, String type, String name) {
+        if (!isCacheableParam(type)) {
+            return false;
+        }
+        for (Segment input : inputs) {
+            if (input.paramType.equals(type) && input.paramName.equals(name)) {
+                return true;
+            }
+        }
+        inputs.add(new Segment(Segment.PARAM, null, type, name, 0));
+        return true;
+    }
+    
+    /**
+     * 置換ルールの設定が変更されたことを記録する。
+     * <p/>
+     * 設定の版数を更新し、置換結果のキャッシュをクリアする。
+     */
+    private void configurationChanged() {
+        version++;
+        BoundedConcurrentCache<ResultKey, CachedResult> cache = resultCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+    
+    /**
+     * パスのパターンのマッチャを作成する。
+     * @return マッチャ
+     */
+    private RewriteMatcher createPathMatcher() {
+        return (linearPathPattern == null) ? new RegexMatcher(pattern) : linearPathPattern.matcher();
+    }
+    
+    /**
+     * 現在のスレッドで使用するバックリファレンスを取得する。
+     * <p/>
+     * 置換ルールの設定が変更された場合、および置換処理が再帰的に呼び出された場合は新たに作成する。
+     * 
+     * @return バックリファレンス
+     */
+    private BackReferences acquireBackReferences() {
+        BackReferences backRefs = backReferences.get();
+        if (backRefs == null || backRefs.version != version) {
+            backRefs = new BackReferences(version, createPathMatcher(), conditions,
+                                          sortConditions(), collectCacheInputs());
+            backReferences.set(backRefs);
+        } else if (backRefs.inUse) {
+            backRefs = new BackReferences(version, createPathMatcher(), conditions,
+                                          backRefs.order, backRefs.cacheInputs);
+        }
+        backRefs.inUse = true;
+        return backRefs;
     }
     
     /** 埋め込み変数のプレースホルダー */
@@ -297,6 +849,14 @@ public abstract class RewriteRule<TData, TSelf> {
     
     
     // ----------------------------------------------------------- accessors
+    /**
+     * この置換ルールが適用されるパスのパターンを取得する。
+     * @return この置換ルールが適用されるパスのパターン(未設定の場合はnull)
+     */
+    Pattern getPattern() {
+        return pattern;
+    }
+
     /**
      * この置換ルールが適用されるパスのパターンを正規表現で設定する。
      * @param  pattern この置換ルールが適用されるパスのパターン
@@ -309,13 +869,18 @@ public abstract class RewriteRule<TData, TSelf> {
                 "The property [pattern] must not be null or blank."
             );
         }
-        this.pattern = Pattern.compile(pattern.trim());
+        Pattern compiled = Pattern.compile(pattern.trim());
+        linearPathPattern = linearTimeMatching ? LinearPattern.compile(compiled.pattern(), false) : null;
+        this.pattern = compiled;
+        configurationChanged();
         return (TSelf) this;
     }
     
     /**
      * この置換ルールが適用された場合に置き換えられる文字列を指定する。
      * この文字列中では、以下の埋め込みパラメータを使用することができる。
+     * <p/>
+     * 埋め込みパラメータの解析は本メソッドの呼び出し時に行い、置換処理では解析結果を使用する。
      * 
      * @param  rewriteTo この置換ルールが適用された場合に置き換えられる文字列
      * @return このオブジェクト自体
@@ -327,7 +892,8 @@ public abstract class RewriteRule<TData, TSelf> {
                 "The property [rewriteTo] must not be null or blank."
             );
         }
-        this.rewriteTo = rewriteTo;
+        this.rewriteTo = new Template(rewriteTo);
+        configurationChanged();
         return (TSelf) this;
     }
     
@@ -342,6 +908,7 @@ public abstract class RewriteRule<TData, TSelf> {
     @SuppressWarnings("unchecked")
     public TSelf setExports(List<String> exportDefinitions) {
         exports.clear();
+        configurationChanged();
         for (String def : exportDefinitions) {
             addExport(def);
         }
@@ -359,6 +926,88 @@ public abstract class RewriteRule<TData, TSelf> {
     @SuppressWarnings("unchecked")
     public TSelf addExport(String exportDefinition) {
         exports.add(new Export(exportDefinition));
+        configurationChanged();
+        return (TSelf) this;
+    }
+
+    /**
+     * 適用条件より先にパスのパターンを評価するか否かを設定する。
+     * <p/>
+     * trueを設定した場合、パスのパターンを最初に評価し、パスが一致しない場合は適用条件を評価しない。
+     * また、適用条件は変数の取得コストの見積もり({@link #getParamCost(String)})が小さいものから評価する。
+     * 置換処理の結果およびバックリファレンスの値は、評価順によらず同じとなる。
+     * <p/>
+     * デフォルトはfalse(適用条件を定義順に評価した後に、パスのパターンを評価する)。
+     * 
+     * @param pathFirst 適用条件より先にパスのパターンを評価する場合はtrue
+     * @return このオブジェクト自体
+     */
+    @SuppressWarnings("unchecked")
+    public TSelf setPathFirst(boolean pathFirst) {
+        this.pathFirst = pathFirst;
+        configurationChanged();
+        return (TSelf) this;
+    }
+
+    /**
+     * パスのパターンおよび適用条件のパターンを、線形時間で評価するか否かを設定する。
+     * <p/>
+     * trueを設定した場合、パターンをバックトラックを行わない正規表現エンジン({@link LinearPattern})で評価し、
+     * 評価時間を対象文字列の長さに比例する時間に抑える。
+     * 攻撃者が制御できる値(リクエストパスやリクエストスコープ変数など)に対するパターンの評価で、
+     * スレッドが長時間占有されることを防止できる。
+     * <p/>
+     * 線形時間で評価できない構文(後方参照、先読み・後読みなど)を含むパターン、
+     * および捕捉結果が{@link Pattern}と異なり得るパターン(空文字列に一致し得る捕捉グループの繰り返し)が設定されている場合、
+     * ならびに本設定の後にそのようなパターンを設定した場合は、{@link IllegalArgumentException}を送出する。
+     * <p/>
+     * デフォルトはfalse({@link Pattern}で評価する)。
+     * 
+     * @param linearTimeMatching パターンを線形時間で評価する場合はtrue
+     * @return このオブジェクト自体
+     */
+    @SuppressWarnings("unchecked")
+    public TSelf setLinearTimeMatching(boolean linearTimeMatching) {
+        LinearPattern path = null;
+        List<LinearPattern> conds = new ArrayList<LinearPattern>();
+        if (linearTimeMatching) {
+            path = (pattern == null) ? null : LinearPattern.compile(pattern.pattern(), false);
+            for (Condition cond : conditions) {
+                conds.add(LinearPattern.compile(cond.pattern.pattern(), true));
+            }
+        }
+        for (int i = 0; i < conditions.size(); i++) {
+            conditions.get(i).linearPattern = linearTimeMatching ? conds.get(i) : null;
+        }
+        linearPathPattern = path;
+        this.linearTimeMatching = linearTimeMatching;
+        configurationChanged();
+        return (TSelf) this;
+    }
+
+    /**
+     * 置換結果のキャッシュの最大エントリ数を設定する。
+     * <p/>
+     * 1以上を設定した場合、書き換え対象のパスと、置換ルールが参照する変数の値の組み合わせごとに、
+     * 置換後のパスおよび定義する変数の値(置換ルールが適用されなかったという結果を含む)をキャッシュする。
+     * キャッシュに置換結果が存在する場合は、パターンの評価および埋め込み変数の反映を行わず、
+     * キャッシュした置換結果を処理対象オブジェクトに反映し、変数を定義する。
+     * エントリ数が上限を超えた場合は、最近参照されていないエントリから破棄する。
+     * <p/>
+     * 置換ルールが参照する変数に、キャッシュのキーとできない変数({@link #isCacheableParam(String)})が
+     * 含まれる場合は、キャッシュを使用しない。
+     * 置換ルールの設定を変更した場合、キャッシュはクリアされる。
+     * <p/>
+     * デフォルトは0(キャッシュを使用しない)。
+     * 
+     * @param resultCacheSize 置換結果のキャッシュの最大エントリ数(0以下の場合はキャッシュを使用しない)
+     * @return このオブジェクト自体
+     */
+    @SuppressWarnings("unchecked")
+    public TSelf setResultCacheSize(int resultCacheSize) {
+        resultCache = (resultCacheSize <= 0)
+                    ? null
+                    : new BoundedConcurrentCache<ResultKey, CachedResult>(resultCacheSize);
         return (TSelf) this;
     }
 
@@ -373,6 +1022,7 @@ public abstract class RewriteRule<TData, TSelf> {
     @SuppressWarnings("unchecked")
     public TSelf setConditions(List<String> conditions) {
         this.conditions.clear();
+        configurationChanged();
         for (String cond : conditions) {
             addCondition(cond);
         }
@@ -387,7 +1037,12 @@ public abstract class RewriteRule<TData, TSelf> {
      */
     @SuppressWarnings("unchecked")
     public TSelf addCondition(String condition) {
-        conditions.add(new Condition(condition));
+        Condition cond = new Condition(condition);
+        if (linearTimeMatching) {
+            cond.linearPattern = LinearPattern.compile(cond.pattern.pattern(), true);
+        }
+        conditions.add(cond);
+        configurationChanged();
         return (TSelf) this;
     }
 }
@@ -0,0 +1,281 @@
+package nablarch.fw.handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import nablarch.core.util.annotation.Published;
+import nablarch.fw.ExecutionContext;
+
+/**
+ * 複数の置換ルール({@link RewriteRule})をまとめて評価するクラス。
+ * <p/>
+ * 置換ルールを定義順に評価し、最初に適用された置換ルールの結果を返す。
+ * 以降の置換ルールは評価しない。
+ * <p/>
+ * 置換ルールの設定時に、各置換ルールのパスのパターンから、一致するパスの接頭辞となる固定文字列と、
+ * 一致するパスが必ず含む固定文字列を抽出しておく。
+ * 置換処理では、接頭辞を格納したトライ木をパスで1回だけ走査し、
+ * 接頭辞および固定文字列の条件を満たさない置換ルールは、適用条件およびパスのパターンを評価せずに読み飛ばす。
+ * 読み飛ばした置換ルールはパスに一致し得ないため、評価結果は全ての置換ルールを順に評価した場合と一致する。
+ * <p/>
+ * 置換ルールごとに、適用された件数、評価したが適用されなかった件数、および読み飛ばした件数を記録する。
+ * <p/>
+ * なお、書き換え対象のパスは置換ルールのクラスごとに1回だけ取得する。
+ * このため、同じクラスの置換ルールは、同じ処理対象オブジェクトに対して同じパスを返すこと。
+ *
+ * @param <TData> 処理対象オブジェクトの型
+ */
+@Published(tag = "architect")
+public class RewriteRuleSet<TData> {
+
+    /** 評価対象の置換ルール */
+    private volatile CompiledRules<TData> compiled = new CompiledRules<TData>(
+            Collections.<RewriteRule<TData, ?>>emptyList());
+
+    /**
+     * 置換ルールを設定する。
+     * <p/>
+     * 既存の設定および評価結果の件数はクリアされる。
+     *
+     * @param rules 置換ルール(評価順)
+     * @return このオブジェクト自体
+     */
+    public RewriteRuleSet<TData> setRules(List<? extends RewriteRule<TData, ?>> rules) {
+        compiled = new CompiledRules<TData>(new ArrayList<RewriteRule<TData, ?>>(rules));
+        return this;
+    }
+
+    /**
+     * 置換ルールを定義順に評価し、最初に適用された置換ルールの置換結果を返す。
+     *
+     * @param data    処理対象オブジェクト
+     * @param context 実行コンテキスト
+     * @return 置換処理が行われた場合は置換後の文字列。
+     *          いずれの置換ルールも適用されなかった場合はnull。
+     */
+    public String rewrite(TData data, ExecutionContext context) {
+        return compiled.rewrite(data, context);
+    }
+
+    /**
+     * 置換ルールの件数を取得する。
+     * @return 置換ルールの件数
+     */
+    public int getRuleCount() {
+        return compiled.rules.length;
+    }
+
+    /**
+     * 置換ルールが適用された件数を取得する。
+     * @param index 置換ルールのインデックス(定義順)
+     * @return 適用された件数
+     */
+    public long getHitCount(int index) {
+        return compiled.hits.get(index);
+    }
+
+    /**
+     * 置換ルールを評価したが、適用されなかった件数を取得する。
+     * @param index 置換ルールのインデックス(定義順)
+     * @return 評価したが適用されなかった件数
+     */
+    public long getMissCount(int index) {
+        return compiled.misses.get(index);
+    }
+
+    /**
+     * パスが一致し得ないため、置換ルールの評価を読み飛ばした件数を取得する。
+     * @param index 置換ルールのインデックス(定義順)
+     * @return 読み飛ばした件数
+     */
+    public long getSkipCount(int index) {
+        return compiled.skips.get(index);
+    }
+
+    /**
+     * 評価のための情報を作成した置換ルール。
+     *
+     * @param <TData> 処理対象オブジェクトの型
+     */
+    private static final class CompiledRules<TData> {
+
+        /** 置換ルール */
+        private final RewriteRule<TData, ?>[] rules;
+
+        /** 置換ルールの接頭辞に対応するトライ木のノード */
+        private final PrefixNode[] prefixNodes;
+
+        /** 置換ルールに一致するパスが必ず含む固定文字列(存在しない場合はnull) */
+        private final String[] requiredLiterals;
+
+        /** 接頭辞のトライ木の根 */
+        private final PrefixNode root = new PrefixNode();
+
+        /** 適用された件数 */
+        private final AtomicLongArray hits;
+
+        /** 評価したが適用されなかった件数 */
+        private final AtomicLongArray misses;
+
+        /** 読み飛ばした件数 */
+        private final AtomicLongArray skips;
+
+        /**
+         * コンストラクタ。
+         * @param ruleList 置換ルール
+         */
+        @SuppressWarnings("unchecked")
+        private CompiledRules(List<RewriteRule<TData, ?>> ruleList) {
+            rules = (RewriteRule<TData, ?>[]) ruleList.toArray(new RewriteRule<?, ?>[ruleList.size()]);
+            prefixNodes = new PrefixNode[rules.length];
+            requiredLiterals = new String[rules.length];
+            for (int i = 0; i < rules.length; i++) {
+                RewritePatternAnalyzer analyzer = (rules[i].getPattern() == null)
+                        ? RewritePatternAnalyzer.analyze("")
+                        : RewritePatternAnalyzer.analyze(rules[i].getPattern().pattern());
+                prefixNodes[i] = root.add(analyzer.getPrefix());
+                requiredLiterals[i] = analyzer.getRequiredLiteral().length() == 0
+                                    ? null : analyzer.getRequiredLiteral();
+            }
+            root.number(0);
+            hits = new AtomicLongArray(rules.length);
+            misses = new AtomicLongArray(rules.length);
+            skips = new AtomicLongArray(rules.length);
+        }
+
+        /**
+         * 置換ルールを定義順に評価する。
+         * @param data    処理対象オブジェクト
+         * @param context 実行コンテキスト
+         * @return 置換後の文字列。いずれの置換ルールも適用されなかった場合はnull。
+         */
+        private String rewrite(TData data, ExecutionContext context) {
+            Class<?> pathClass = null;
+            String path = null;
+            PrefixNode deepest = null;
+            for (int i = 0; i < rules.length; i++) {
+                RewriteRule<TData, ?> rule = rules[i];
+                if (rule.getClass() != pathClass) {
+                    pathClass = rule.getClass();
+                    path = rule.getPathToRewrite(data);
+                    deepest = root.findDeepest(path);
+                }
+                if (!prefixNodes[i].isAncestorOf(deepest)
+                        || (requiredLiterals[i] != null && !path.contains(requiredLiterals[i]))) {
+                    skips.incrementAndGet(i);
+                    continue;
+                }
+                String rewritten = rule.rewrite(data, context);
+                if (rewritten != null) {
+                    hits.incrementAndGet(i);
+                    return rewritten;
+                }
+                misses.incrementAndGet(i);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 置換ルールの接頭辞を格納するトライ木のノード。
+     * <p/>
+     * 行きがけ順の番号と、子孫に振られた番号の最大値を保持し、祖先・子孫の関係を定数時間で判定する。
+     */
+    private static final class PrefixNode {
+
+        /** 子ノードへの遷移文字 */
+        private char[] labels = new char[0];
+
+        /** 子ノード */
+        private PrefixNode[] children = new PrefixNode[0];
+
+        /** 行きがけ順の番号 */
+        private int enter;
+
+        /** 子孫に振られた番号の最大値 */
+        private int exit;
+
+        /**
+         * 接頭辞を追加する。
+         * @param prefix 接頭辞
+         * @return 接頭辞の終端のノード
+         */
+        private PrefixNode add(String prefix) {
+            PrefixNode node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                PrefixNode child = node.child(prefix.charAt(i));
+                if (child == null) {
+                    child = new PrefixNode();
+                    int size = node.labels.length;
+                    char[] labels = new char[size + 1];
+                    PrefixNode[] children = new PrefixNode[size + 1];
+                    System.arraycopy(node.labels, 0, labels, 0, size);
+                    System.arraycopy(node.children, 0, children, 0, size);
+                    labels[size] = prefix.charAt(i);
+                    children[size] = child;
+                    node.labels = labels;
+                    node.children = children;
+                }
+                node = child;
+            }
+            return node;
+        }
+
+        /**
+         * 指定された文字で遷移する子ノードを取得する。
+         * @param c 文字
+         * @return 子ノード(存在しない場合はnull)
+         */
+        private PrefixNode child(char c) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 行きがけ順の番号を振る。
+         * @param number このノードに振る番号
+         * @return 子孫に振られた番号の最大値
+         */
+        private int number(int number) {
+            enter = number;
+            int last = number;
+            for (PrefixNode child : children) {
+                last = child.number(last + 1);
+            }
+            exit = last;
+            return last;
+        }
+
+        /**
+         * パスの接頭辞をたどって到達できる最も深いノードを取得する。
+         * @param path パス
+         * @return 最も深いノード
+         */
+        private PrefixNode findDeepest(String path) {
+            PrefixNode node = this;
+            for (int i = 0; i < path.length(); i++) {
+                PrefixNode child = node.child(path.charAt(i));
+                if (child == null) {
+                    break;
+                }
+                node = child;
+            }
+            return node;
+        }
+
+        /**
+         * 指定されたノードの祖先(もしくは同一のノード)であるか否かを判定する。
+         * @param node ノード
+         * @return 祖先もしくは同一のノードであればtrue
+         */
+        private boolean isAncestorOf(PrefixNode node) {
+            return enter <= node.enter && node.enter <= exit;
+        }
+    }
+}
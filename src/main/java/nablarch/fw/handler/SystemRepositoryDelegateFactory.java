@@ -1,21 +1,50 @@
 package nablarch.fw.handler;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import nablarch.core.exception.IllegalConfigurationException;
 import nablarch.core.repository.SystemRepository;
 
 /**
  * {@link SystemRepository}から委譲対象クラスのインスタンスを取得する
  * デリゲートファクトリ（{@link DelegateFactory}）の実装クラス。
+ * <p/>
+ * {@link SystemRepository}から取得したインスタンスは委譲対象クラスをキーとしてキャッシュし、
+ * 以降の同一クラスに対する取得ではリポジトリの検索を行わない。
+ * <p/>
+ * キャッシュは本クラスのインスタンスが存在する間保持される。
+ * 本クラスをコンポーネント定義に記述している場合、リポジトリを再構築すると本クラスのインスタンスも新たに生成されるため、
+ * 再構築後のリポジトリからインスタンスが取得される。
+ * {@link SystemRepository}には再読み込みを通知する仕組みが存在しないため、
+ * 本クラスのインスタンスを残したまま(コンポーネント定義の外で生成したインスタンスを使い続けたまま)リポジトリを再構築する場合は、
+ * {@link #clearCache()}を呼び出してキャッシュを破棄すること。
  */
 public final class SystemRepositoryDelegateFactory implements DelegateFactory {
 
+    /** 委譲対象クラスをキーとした、{@link SystemRepository}から取得したインスタンスのキャッシュ */
+    private final ConcurrentMap<Class<?>, Object> cache = new ConcurrentHashMap<Class<?>, Object>();
+
     @Override
     public Object create(final Class<?> clazz) {
+        final Object cached = cache.get(clazz);
+        if (cached != null) {
+            return cached;
+        }
+
         final Object delegate = SystemRepository.get(clazz.getName());
         if (delegate == null) {
             throw new IllegalConfigurationException("specified " + clazz.getName() + " is not registered in SystemRepository.");
         }
+        cache.put(clazz, delegate);
 
         return delegate;
     }
+
+    /**
+     * {@link SystemRepository}から取得したインスタンスのキャッシュを破棄する。
+     */
+    public void clearCache() {
+        cache.clear();
+    }
 }
@@ -1,9 +1,11 @@
 package nablarch.common.handler.threadcontext;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.util.Map;
 
+import nablarch.common.util.RequestIdRegistry;
 import nablarch.core.repository.SystemRepository;
 import nablarch.fw.ExecutionContext;
 import nablarch.fw.Request;
@@ -35,6 +37,25 @@ public class RequestIdAttributeTest {
         assertEquals("/", resolver.getValue(new MockRequest("/"), null));
         assertEquals(null, resolver.getValue(new MockRequest(null), null));
     }
+
+    /**
+     * {@link RequestIdAttribute#getValue(Request, ExecutionContext)}のテスト。<br />
+     * レジストリを設定した場合、同じリクエストIDに対して同じ文字列インスタンスが返されること。
+     */
+    @Test
+    public void testResolveWithRegistry() {
+
+        RequestIdRegistry registry = new RequestIdRegistry();
+        RequestIdAttribute resolver = new InternalRequestIdAttribute();
+        resolver.setRequestIdRegistry(registry);
+
+        Object first = resolver.getValue(new MockRequest("/aaa/bbb?x=1"), null);
+        Object second = resolver.getValue(new MockRequest("/aaa/bbb?x=2"), null);
+        assertEquals("/aaa/bbb", first);
+        assertSame(first, second);
+        assertSame(registry.getRequestId(0), first);
+        assertEquals(null, resolver.getValue(new MockRequest(""), null));
+    }
     
     public static class MockRequest implements Request<String> {
 
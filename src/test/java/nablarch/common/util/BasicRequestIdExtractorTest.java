@@ -4,6 +4,10 @@ import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
 
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import org.junit.Test;
 
 /**
@@ -33,4 +37,34 @@ public class BasicRequestIdExtractorTest {
         assertThat(extractor.getRequestId("/a/b/cde?test=aaa#abc"), is("/a/b/cde"));
         assertThat(extractor.getRequestId("/a/b/cde.do"), is("/a/b/cde.do"));
     }
+
+    /**
+     * 正規表現を使用していた従来の実装と、同じ結果となること。
+     */
+    @Test
+    public void testSameResultAsRegex() {
+        String[] words = {
+            "/", "?", "#", "=", ".", "a", "cde", "do", " ", "\t", "\n", "\r", "\u0085", "\u2028", "\u2029", "\ud83d\ude00",
+        };
+        RequestIdExtractor extractor = new BasicRequestIdExtractor();
+        Random random = new Random(0L);
+        for (int n = 0; n < 100000; n++) {
+            StringBuilder path = new StringBuilder();
+            int length = random.nextInt(8);
+            for (int i = 0; i < length; i++) {
+                path.append(words[random.nextInt(words.length)]);
+            }
+            assertThat("path = " + path, extractor.getRequestId(path.toString()), is(getRequestIdByRegex(path.toString())));
+        }
+    }
+
+    /**
+     * 正規表現を使用していた従来の実装。
+     * @param path リクエストパス
+     * @return リクエストID
+     */
+    private static String getRequestIdByRegex(String path) {
+        Matcher m = Pattern.compile("^([^#\\?]+).*$").matcher(path.trim());
+        return m.matches() ? m.group(1) : null;
+    }
 }
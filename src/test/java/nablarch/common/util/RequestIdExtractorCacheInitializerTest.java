@@ -0,0 +1,83 @@
+package nablarch.common.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import nablarch.core.repository.ObjectLoader;
+import nablarch.core.repository.SystemRepository;
+import nablarch.core.repository.di.DiContainer;
+import nablarch.core.repository.di.config.xml.XmlComponentDefinitionLoader;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * {@link RequestIdExtractorCacheInitializer}のテスト。
+ */
+public class RequestIdExtractorCacheInitializerTest {
+
+    @After
+    public void tearDown() {
+        SystemRepository.clear();
+        RequestUtil.clearRequestIdExtractorCache();
+    }
+
+    /**
+     * リポジトリの構築(初期化対象のコンポーネントの初期化の後にリポジトリが登録される)を経ても、
+     * リポジトリに登録した{@link RequestIdExtractor}がキャッシュされ、使用されること。
+     */
+    @Test
+    public void testInitializeOnRepositoryBootstrap() {
+        SystemRepository.load(new DiContainer(new XmlComponentDefinitionLoader(
+                "nablarch/common/util/request-id-extractor-cache-initializer-test.xml")));
+
+        assertThat(RequestUtil.getRequestIdExtractor(),
+                   is(sameInstance(SystemRepository.<RequestIdExtractor>get("requestIdExtractor"))));
+        assertThat(RequestUtil.getRequestId("/app/ABC001.do"), is("ABC001"));
+
+        // キャッシュしているため、リポジトリの内容が変わっても参照しない。
+        SystemRepository.clear();
+        assertThat(RequestUtil.getRequestId("/app/ABC001.do"), is("ABC001"));
+    }
+
+    /**
+     * 廃棄時にキャッシュが破棄され、以降はリポジトリを参照すること。
+     */
+    @Test
+    public void testDispose() {
+        RequestIdExtractorCacheInitializer sut = new RequestIdExtractorCacheInitializer();
+        sut.setRequestIdExtractor(new ShortRequestIdExtractor());
+        sut.initialize();
+        assertThat(RequestUtil.getRequestId("/app/ABC001.do"), is("ABC001"));
+
+        sut.dispose();
+        final RequestIdExtractor basic = new BasicRequestIdExtractor();
+        SystemRepository.load(new ObjectLoader() {
+            @Override
+            public Map<String, Object> load() {
+                Map<String, Object> objects = new HashMap<String, Object>();
+                objects.put("requestIdExtractor", basic);
+                return objects;
+            }
+        });
+        assertThat(RequestUtil.getRequestIdExtractor(), is(sameInstance(basic)));
+    }
+
+    /**
+     * requestIdExtractor プロパティが設定されていない場合は、初期化時に例外が送出されること。
+     */
+    @Test
+    public void testExtractorNotSet() {
+        try {
+            new RequestIdExtractorCacheInitializer().initialize();
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("requestIdExtractor must be set."));
+        }
+    }
+}
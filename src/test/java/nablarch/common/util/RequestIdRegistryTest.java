@@ -0,0 +1,205 @@
+package nablarch.common.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * {@link RequestIdRegistry}のテスト。
+ */
+public class RequestIdRegistryTest {
+
+    /**
+     * 同じ内容のリクエストIDに対して同じインスタンスが返され、登録順に序数が割り当てられること。
+     */
+    @Test
+    public void testIntern() {
+        RequestIdRegistry sut = new RequestIdRegistry();
+        String first = sut.intern(new String("/app/list"));
+        String second = sut.intern(new String("/app/list"));
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(sut.getOrdinal(new String("/app/list")), is(0));
+        assertThat(sut.getOrdinal("/app/menu"), is(1));
+        assertThat(sut.getRequestId(0), is(sameInstance(first)));
+        assertThat(sut.getRequestId(1), is("/app/menu"));
+        assertThat(sut.size(), is(2));
+        assertThat(sut.getMaxSize(), is(4096));
+
+        assertThat(sut.intern(null), is(nullValue()));
+        assertThat(sut.getOrdinal(null), is(-1));
+        assertThat(sut.size(), is(2));
+    }
+
+    /**
+     * 上限に達した後のリクエストIDは登録されず、そのまま返されること。
+     */
+    @Test
+    public void testMaxSize() {
+        RequestIdRegistry sut = new RequestIdRegistry(2);
+        sut.intern("a");
+        sut.intern("b");
+
+        String overflow = new String("c");
+        assertThat(sut.intern(overflow), is(sameInstance(overflow)));
+        assertThat(sut.getOrdinal("c"), is(-1));
+        assertThat(sut.getOrdinal("b"), is(1));
+        assertThat(sut.size(), is(2));
+    }
+
+    /**
+     * 上限に達した後の未登録のリクエストIDの参照では、ロックを取得しないこと。
+     */
+    @Test
+    public void testNoLockAfterFull() throws Exception {
+        final RequestIdRegistry sut = new RequestIdRegistry(1);
+        sut.intern("a");
+        assertThat(sut.getOrdinal("b"), is(-1));
+
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    synchronized (sut) {
+                        locked.countDown();
+                        release.await(10, TimeUnit.SECONDS);
+                    }
+                    return null;
+                }
+            });
+            assertThat(locked.await(10, TimeUnit.SECONDS), is(true));
+            Future<Integer> ordinal = executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return sut.getOrdinal("c");
+                }
+            });
+            assertThat(ordinal.get(5, TimeUnit.SECONDS), is(-1));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 事前に登録したリクエストIDには指定した順に序数が割り当てられ、
+     * 未登録のリクエストIDを登録しない設定の場合は、事前に登録したリクエストID以外が登録されないこと。
+     */
+    @Test
+    public void testPreRegisteredAndFrozen() {
+        RequestIdRegistry sut = new RequestIdRegistry(3);
+        sut.setRequestIds(Arrays.asList("/app/list", "/app/menu", "/app/list"));
+        sut.setFrozen(true);
+        assertThat(sut.size(), is(2));
+        assertThat(sut.getOrdinal("/app/menu"), is(1));
+
+        // 存在しないリクエストパスが大量に送信されても、登録済みのリクエストIDのみが保持される。
+        for (int i = 0; i < 100; i++) {
+            String unknown = new String("/app/unknown" + i);
+            assertThat(sut.intern(unknown), is(sameInstance(unknown)));
+            assertThat(sut.getOrdinal(unknown), is(-1));
+        }
+        assertThat(sut.size(), is(2));
+        assertThat(sut.intern(new String("/app/list")), is(sameInstance(sut.getRequestId(0))));
+
+        // 設定を解除すると、未登録のリクエストIDが登録される。
+        sut.setFrozen(false);
+        assertThat(sut.getOrdinal("/app/detail"), is(2));
+    }
+
+    /**
+     * 事前に登録するリクエストIDが上限を超える場合は例外が送出されること。
+     */
+    @Test
+    public void testTooManyRequestIds() {
+        RequestIdRegistry sut = new RequestIdRegistry(2);
+        try {
+            sut.setRequestIds(Arrays.asList("a", "b", "c"));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("too many request ids. maxSize = 2"));
+        }
+    }
+
+    /**
+     * 登録されていない序数を指定した場合、および上限に不正な値を指定した場合は例外が送出されること。
+     */
+    @Test
+    public void testInvalidArguments() {
+        RequestIdRegistry sut = new RequestIdRegistry(2);
+        sut.intern("a");
+        try {
+            sut.getRequestId(1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertThat(e.getMessage(), is("request id is not registered. ordinal = 1"));
+        }
+        try {
+            sut.getRequestId(-1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertThat(e.getMessage(), is("request id is not registered. ordinal = -1"));
+        }
+        try {
+            new RequestIdRegistry(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("maxSize must be positive. maxSize = 0"));
+        }
+    }
+
+    /**
+     * 複数スレッドから同時に登録した場合も、リクエストIDごとに1つの序数が重複なく割り当てられること。
+     */
+    @Test
+    public void testConcurrentRegistration() throws Exception {
+        final RequestIdRegistry sut = new RequestIdRegistry(100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<int[]>> futures = new ArrayList<Future<int[]>>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(new Callable<int[]>() {
+                    @Override
+                    public int[] call() {
+                        int[] ordinals = new int[50];
+                        for (int i = 0; i < ordinals.length; i++) {
+                            ordinals[i] = sut.getOrdinal("/app/" + i);
+                        }
+                        return ordinals;
+                    }
+                }));
+            }
+            int[] expected = futures.get(0).get();
+            for (Future<int[]> future : futures) {
+                int[] actual = future.get();
+                for (int i = 0; i < actual.length; i++) {
+                    assertThat(actual[i], is(expected[i]));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(sut.size(), is(50));
+        for (int i = 0; i < 50; i++) {
+            String requestId = sut.getRequestId(i);
+            assertThat(sut.getOrdinal(requestId), is(i));
+        }
+    }
+}
@@ -23,6 +23,7 @@ public class RequestUtilTest {
     @After
     public void tearDown() throws Throwable {
         SystemRepository.clear();
+        RequestUtil.clearRequestIdExtractorCache();
     }
 
     /**
@@ -82,4 +83,43 @@ public class RequestUtilTest {
         assertThat(RequestUtil.getRequestId("/a/b/cde?test=aaa#abc"), is("/a/b/cde"));
         assertThat(RequestUtil.getRequestId(null), is(nullValue()));
     }
+
+    /**
+     * {@link RequestUtil#cacheRequestIdExtractor(RequestIdExtractor)}のテスト。<br />
+     * キャッシュした{@link RequestIdExtractor}が、リポジトリを参照せずに使用されること。
+     */
+    @Test
+    public void testCacheRequestIdExtractor() {
+
+        // リポジトリの登録前にキャッシュした場合も、キャッシュしたものが使用される。
+        RequestIdExtractor cached = new ShortRequestIdExtractor();
+        RequestUtil.cacheRequestIdExtractor(cached);
+        loadExtractor(new BasicRequestIdExtractor());
+        assertThat(RequestUtil.getRequestIdExtractor(), is(sameInstance(cached)));
+        assertThat(RequestUtil.getRequestId(" /a/b/cde/f.html "), is("f"));
+
+        // キャッシュを破棄した後は、リポジトリを参照する。
+        RequestUtil.clearRequestIdExtractorCache();
+        assertThat(RequestUtil.getRequestId("/a/b/cde?test=aaa#abc"), is("/a/b/cde"));
+    }
+
+    /**
+     * {@link RequestUtil#cacheRequestIdExtractor(RequestIdExtractor)}のテスト。<br />
+     * nullを指定した場合は例外が送出されること。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCacheNullRequestIdExtractor() {
+        RequestUtil.cacheRequestIdExtractor(null);
+    }
+
+    private static void loadExtractor(final RequestIdExtractor extractor) {
+        SystemRepository.load(new ObjectLoader() {
+            @Override
+            public Map<String, Object> load() {
+                Map<String, Object> objects = new HashMap<String, Object>();
+                objects.put("requestIdExtractor", extractor);
+                return objects;
+            }
+        });
+    }
 }
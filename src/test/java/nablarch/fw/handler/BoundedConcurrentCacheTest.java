@@ -0,0 +1,76 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * {@link BoundedConcurrentCache}のテスト。
+ */
+public class BoundedConcurrentCacheTest {
+
+    /**
+     * 登録した値が取得できること。
+     */
+    @Test
+    public void testGetAndPut() {
+        BoundedConcurrentCache<String, String> sut = new BoundedConcurrentCache<String, String>(10);
+        assertThat(sut.get("key"), is(nullValue()));
+
+        sut.put("key", "value");
+        assertThat(sut.get("key"), is("value"));
+        assertThat(sut.size(), is(1));
+
+        sut.remove("key");
+        assertThat(sut.get("key"), is(nullValue()));
+
+        sut.put("key", "value");
+        sut.clear();
+        assertThat(sut.size(), is(0));
+    }
+
+    /**
+     * 最大エントリ数を超えないこと。
+     */
+    @Test
+    public void testMaxSize() {
+        BoundedConcurrentCache<Integer, Integer> sut = new BoundedConcurrentCache<Integer, Integer>(5);
+        for (int i = 0; i < 100; i++) {
+            sut.put(i, i);
+            assertThat(sut.size() <= 5, is(true));
+        }
+        assertThat(sut.size(), is(5));
+    }
+
+    /**
+     * 参照されたエントリは、参照されていないエントリよりも後に追い出されること。
+     */
+    @Test
+    public void testReferencedEntryIsRetained() {
+        BoundedConcurrentCache<Integer, Integer> sut = new BoundedConcurrentCache<Integer, Integer>(3);
+        for (int i = 1; i <= 4; i++) {
+            sut.put(i, i);
+        }
+        // 追い出しによって、残ったエントリの参照フラグは全てクリアされている。
+        assertThat(sut.size(), is(3));
+        Integer referenced = null;
+        for (int i = 1; i <= 4 && referenced == null; i++) {
+            referenced = sut.get(i);
+        }
+
+        sut.put(5, 5);
+        assertThat(sut.size(), is(3));
+        assertThat(sut.get(referenced), is(referenced));
+        assertThat(sut.get(5), is(5));
+    }
+
+    /**
+     * 最大エントリ数に0以下を指定した場合は例外が送出されること。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxSize() {
+        new BoundedConcurrentCache<String, String>(0);
+    }
+}
@@ -0,0 +1,123 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+
+import nablarch.fw.ExecutionContext;
+
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * {@link CachedConstructorDelegateFactory}のテスト。
+ */
+public class CachedConstructorDelegateFactoryTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private final CachedConstructorDelegateFactory sut = new CachedConstructorDelegateFactory();
+
+    @Test
+    public void testCreate() throws Exception {
+        Object first = sut.create(Action.class);
+        Object second = sut.create(Action.class);
+
+        assertThat(first, instanceOf(Action.class));
+        assertThat(second, instanceOf(Action.class));
+        assertThat(second, not(sameInstance(first)));
+    }
+
+    @Test
+    public void testNoDefaultConstructor() throws Exception {
+        exception.expect(InstantiationException.class);
+        sut.create(NoDefaultConstructor.class);
+    }
+
+    @Test
+    public void testAbstractClass() throws Exception {
+        exception.expect(InstantiationException.class);
+        sut.create(AbstractAction.class);
+    }
+
+    @Test
+    public void testInterface() throws Exception {
+        exception.expect(InstantiationException.class);
+        sut.create(Runnable.class);
+    }
+
+    @Test
+    public void testPrivateConstructor() throws Exception {
+        exception.expect(IllegalAccessException.class);
+        sut.create(PrivateConstructor.class);
+    }
+
+    @Test
+    public void testNonPublicClass() throws Exception {
+        exception.expect(IllegalAccessException.class);
+        sut.create(NonPublicAction.class);
+    }
+
+    @Test
+    public void testConstructorThrowsRuntimeException() throws Exception {
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("runtime exception in constructor");
+        sut.create(ThrowsRuntimeException.class);
+    }
+
+    @Test
+    public void testConstructorThrowsCheckedException() throws Exception {
+        exception.expect(RuntimeException.class);
+        exception.expectCause(is(Matchers.<Throwable>instanceOf(IOException.class)));
+        sut.create(ThrowsCheckedException.class);
+    }
+
+    @Test
+    public void testUsedByDispatchHandler() {
+        DispatchHandlerTest.TestDispatchHandler handler =
+                new DispatchHandlerTest.TestDispatchHandler(DispatchHandlerTest.TestHandler.class);
+        handler.setDelegateFactory(sut);
+
+        assertThat(handler.handle("REQUEST", new ExecutionContext()), is("TEST_HANDLER"));
+    }
+
+    public static class Action {
+    }
+
+    public static class NoDefaultConstructor {
+        public NoDefaultConstructor(String arg) {
+        }
+    }
+
+    public abstract static class AbstractAction {
+    }
+
+    public static class PrivateConstructor {
+        private PrivateConstructor() {
+        }
+    }
+
+    static class NonPublicAction {
+        public NonPublicAction() {
+        }
+    }
+
+    public static class ThrowsRuntimeException {
+        public ThrowsRuntimeException() {
+            throw new IllegalStateException("runtime exception in constructor");
+        }
+    }
+
+    public static class ThrowsCheckedException {
+        public ThrowsCheckedException() throws IOException {
+            throw new IOException("checked exception in constructor");
+        }
+    }
+}
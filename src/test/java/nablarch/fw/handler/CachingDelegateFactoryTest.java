@@ -0,0 +1,190 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.handler.DispatchHandlerTest.TestDispatchHandler;
+
+import org.junit.Test;
+
+/**
+ * {@link CachingDelegateFactory}のテスト。
+ */
+public class CachingDelegateFactoryTest {
+
+    private final CachingDelegateFactory sut = new CachingDelegateFactory();
+
+    /**
+     * singletonTargetsにクラス名を指定した場合、同一のインスタンスが返されること。
+     */
+    @Test
+    public void testSingletonByClassName() throws Exception {
+        sut.setSingletonTargets(Collections.singletonList(StatelessAction.class.getName()));
+
+        Object first = sut.create(StatelessAction.class);
+        Object second = sut.create(StatelessAction.class);
+        assertThat(first, instanceOf(StatelessAction.class));
+        assertThat(second, sameInstance(first));
+
+        // 設定に合致しないクラスは都度生成される。
+        assertThat(sut.create(StatefulAction.class), not(sameInstance(sut.create(StatefulAction.class))));
+    }
+
+    /**
+     * singletonTargetsにパッケージを指定した場合、配下のクラスのインスタンスが共有されること。
+     */
+    @Test
+    public void testSingletonByPackage() throws Exception {
+        sut.setSingletonTargets(Collections.singletonList("nablarch.fw.*"));
+
+        assertThat(sut.create(StatelessAction.class), sameInstance(sut.create(StatelessAction.class)));
+        assertThat(sut.create(StatefulAction.class), sameInstance(sut.create(StatefulAction.class)));
+    }
+
+    /**
+     * pooledTargetsに指定したクラスは、返却されたインスタンスが初期化された上で再利用されること。
+     */
+    @Test
+    public void testPooled() throws Exception {
+        sut.setPooledTargets(Collections.singletonList(StatefulAction.class.getName()));
+
+        StatefulAction first = (StatefulAction) sut.create(StatefulAction.class);
+        first.value = "used";
+        StatefulAction second = (StatefulAction) sut.create(StatefulAction.class);
+        assertThat(second, not(sameInstance(first)));
+
+        sut.release(first);
+        assertThat(first.value, is("initial"));
+        assertThat(first.resetCount, is(1));
+
+        assertThat(sut.create(StatefulAction.class), sameInstance((Object) first));
+        assertThat(sut.create(StatefulAction.class), not(sameInstance((Object) first)));
+    }
+
+    /**
+     * プールの上限を超えて返却されたインスタンスは破棄されること。
+     */
+    @Test
+    public void testPoolSize() throws Exception {
+        sut.setPooledTargets(Collections.singletonList(StatefulAction.class.getName()));
+        sut.setPoolSize(1);
+
+        Object first = sut.create(StatefulAction.class);
+        Object second = sut.create(StatefulAction.class);
+        sut.release(first);
+        sut.release(second);
+
+        assertThat(sut.create(StatefulAction.class), sameInstance(first));
+        Object third = sut.create(StatefulAction.class);
+        assertThat(third, not(sameInstance(first)));
+        assertThat(third, not(sameInstance(second)));
+    }
+
+    /**
+     * 初期化に失敗したインスタンスは再利用されないこと。
+     */
+    @Test
+    public void testResetFailure() throws Exception {
+        sut.setPooledTargets(Collections.singletonList(StatefulAction.class.getName()));
+
+        StatefulAction action = (StatefulAction) sut.create(StatefulAction.class);
+        action.failOnReset = true;
+        sut.release(action);
+
+        assertThat(sut.create(StatefulAction.class), not(sameInstance((Object) action)));
+    }
+
+    /**
+     * 複数のパターンに合致する場合は、クラス名による指定、より長いパッケージ名による指定の順に優先されること。
+     */
+    @Test
+    public void testPriority() throws Exception {
+        sut.setSingletonTargets(Arrays.asList("nablarch.*", StatefulAction.class.getName()));
+        sut.setPooledTargets(Arrays.asList("nablarch.fw.handler.*"));
+
+        // 完全修飾名で指定したsingletonTargetsが優先される。
+        assertThat(sut.create(StatefulAction.class), sameInstance(sut.create(StatefulAction.class)));
+
+        // より長いパッケージ名で指定したpooledTargetsが優先される。
+        assertThat(sut.create(StatelessAction.class), not(sameInstance(sut.create(StatelessAction.class))));
+        Object pooled = sut.create(StatelessAction.class);
+        sut.release(pooled);
+        assertThat(sut.create(StatelessAction.class), sameInstance(pooled));
+    }
+
+    /**
+     * インスタンスの生成にdelegateFactoryに設定したデリゲートファクトリが使用されること。
+     */
+    @Test
+    public void testDelegateFactory() throws Exception {
+        final StatelessAction instance = new StatelessAction();
+        sut.setDelegateFactory(new DelegateFactory() {
+            @Override
+            public Object create(Class<?> clazz) {
+                return instance;
+            }
+        });
+        assertThat(sut.create(StatelessAction.class), sameInstance((Object) instance));
+    }
+
+    /**
+     * {@link DispatchHandler}から使用した場合に、処理が終了したインスタンスが返却されること。
+     */
+    @Test
+    public void testReleasedByDispatchHandler() {
+        sut.setPooledTargets(Collections.singletonList(StatefulAction.class.getName()));
+        TestDispatchHandler handler = new TestDispatchHandler(StatefulAction.class);
+        handler.setDelegateFactory(sut);
+
+        assertThat(handler.handle("first", new ExecutionContext()), is("first:initial"));
+        assertThat(handler.handle("second", new ExecutionContext()), is("second:initial"));
+        assertThat(StatefulAction.lastInstance.resetCount, is(2));
+    }
+
+    /**
+     * poolSizeに0以下を指定した場合は例外が送出されること。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPoolSize() {
+        sut.setPoolSize(0);
+    }
+
+    public static class StatelessAction implements Handler<String, String> {
+        @Override
+        public String handle(String s, ExecutionContext context) {
+            return s;
+        }
+    }
+
+    public static class StatefulAction implements Handler<String, String>, ResettableDelegate {
+        private static StatefulAction lastInstance;
+        private String value = "initial";
+        private int resetCount = 0;
+        private boolean failOnReset = false;
+
+        @Override
+        public String handle(String s, ExecutionContext context) {
+            lastInstance = this;
+            String result = s + ":" + value;
+            value = s;
+            return result;
+        }
+
+        @Override
+        public void reset() {
+            if (failOnReset) {
+                throw new IllegalStateException("reset failed.");
+            }
+            value = "initial";
+            resetCount++;
+        }
+    }
+}
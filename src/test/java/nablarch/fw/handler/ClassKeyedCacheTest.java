@@ -0,0 +1,86 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * {@link ClassKeyedCache}のテスト。
+ */
+public class ClassKeyedCacheTest {
+
+    /**
+     * クラスごとに登録した値が取得でき、登録済みの値は置き換えられないこと。
+     */
+    @Test
+    public void testGetAndPutIfAbsent() {
+        ClassKeyedCache<String> sut = new ClassKeyedCache<String>();
+        assertThat(sut.get(String.class), is(nullValue()));
+
+        assertThat(sut.putIfAbsent(String.class, "string"), is("string"));
+        assertThat(sut.putIfAbsent(Integer.class, "integer"), is("integer"));
+        assertThat(sut.get(String.class), is("string"));
+        assertThat(sut.get(Integer.class), is("integer"));
+        assertThat(sut.get(Long.class), is(nullValue()));
+
+        assertThat(sut.putIfAbsent(String.class, "other"), is("string"));
+        assertThat(sut.get(String.class), is("string"));
+    }
+
+    /**
+     * 複数のスレッドから並行に登録した場合も、クラスごとに全てのスレッドが同じ値を使用すること。
+     */
+    @Test
+    public void testConcurrentPutIfAbsent() throws Exception {
+        final Class<?>[] classes = {
+            String.class, Integer.class, Long.class, Short.class, Byte.class,
+            Double.class, Float.class, Character.class, Boolean.class, Object.class
+        };
+        final int threads = 8;
+        final ClassKeyedCache<Object> sut = new ClassKeyedCache<Object>();
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Object[]>> futures = new ArrayList<Future<Object[]>>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<Object[]>() {
+                    @Override
+                    public Object[] call() throws Exception {
+                        barrier.await(10, TimeUnit.SECONDS);
+                        Object[] used = new Object[classes.length];
+                        for (int j = 0; j < classes.length; j++) {
+                            Object value = sut.get(classes[j]);
+                            if (value == null) {
+                                value = sut.putIfAbsent(classes[j], new Object());
+                            }
+                            used[j] = value;
+                        }
+                        return used;
+                    }
+                }));
+            }
+            Object[] expected = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Object[]> future : futures) {
+                Object[] used = future.get(10, TimeUnit.SECONDS);
+                for (int j = 0; j < classes.length; j++) {
+                    assertThat(used[j], is(sameInstance(expected[j])));
+                    assertThat(sut.get(classes[j]), is(sameInstance(expected[j])));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
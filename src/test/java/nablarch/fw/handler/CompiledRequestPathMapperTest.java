@@ -0,0 +1,119 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * {@link CompiledRequestPathMapper}のテスト。
+ * <p/>
+ * 正規表現を使用した従来の変換処理({@link #mapByPattern(String, String, String, String, String)})と
+ * 結果が一致することを検証する。
+ */
+public class CompiledRequestPathMapperTest {
+
+    /** 従来の変換処理で使用していた正規表現 */
+    private static final Pattern MAPPING_RULE = Pattern.compile(
+    "((?:[_a-z][_a-zA-Z0-9]*\\.)*)([A-Z][_a-zA-Z0-9]*).*"
+    );
+
+    private static final String[] BASE_PATHS = {"", "/", "/app/", "/app", "app/action", "//"};
+
+    private static final String[] BASE_PACKAGES = {"", "pkg", "nablarch.fw.action", "a.B", "pkg."};
+
+    private static final String[][] AFFIXES = {{"", ""}, {"", "Action"}, {"B11A", ""}, {"W", "Impl"}};
+
+    /** ランダムなリクエストパスの生成に使用する文字 */
+    private static final char[] CHARS = {
+        'a', 'z', 'A', 'Z', '_', '0', '9', '.', '.', '/', '/', '-', '$', ' ', '\n', '\r', '\u2028', '\u0085', 'あ'
+    };
+
+    /**
+     * 典型的なリクエストパスの変換結果を検証する。
+     */
+    @Test
+    public void testTypicalPaths() {
+        CompiledRequestPathMapper sut = new CompiledRequestPathMapper("/app/", "", "Action");
+        assertThat(sut.map("/app/ss00A001/B11AC001", "nablarch.fw"), is("nablarch.fw.ss00A001.B11AC001Action"));
+        assertThat(sut.map("/app/user/Register/confirm", "biz"), is("biz.user.RegisterAction"));
+        assertThat(sut.map("/app/User.do", "biz"), is("biz.UserAction"));
+        assertThat(sut.map("/app/user//profile/", "biz"), is(nullValue()));
+        assertThat(sut.map("/app/", ""), is(nullValue()));
+        assertThat(sut.map("/app/1st/Foo", "biz"), is(nullValue()));
+        assertThat(sut.map("/app/Foo\nbar", "biz"), is(nullValue()));
+    }
+
+    /**
+     * 正規表現のメタ文字を含むベースパスは扱えないと判定されること。
+     */
+    @Test
+    public void testIsApplicable() {
+        assertThat(CompiledRequestPathMapper.isApplicable("/app/action/"), is(true));
+        assertThat(CompiledRequestPathMapper.isApplicable(""), is(true));
+        assertThat(CompiledRequestPathMapper.isApplicable("/app.v1/"), is(false));
+        assertThat(CompiledRequestPathMapper.isApplicable("/a+b/"), is(false));
+        assertThat(CompiledRequestPathMapper.isApplicablePackage("nablarch.fw"), is(true));
+        assertThat(CompiledRequestPathMapper.isApplicablePackage("a$b"), is(false));
+    }
+
+    /**
+     * ランダムに生成したリクエストパスについて、従来の変換処理と結果が一致すること。
+     */
+    @Test
+    public void testSameResultsAsPatternMatching() {
+        Random random = new Random(20261017L);
+        for (String basePath : BASE_PATHS) {
+            for (String basePackage : BASE_PACKAGES) {
+                for (String[] affix : AFFIXES) {
+                    CompiledRequestPathMapper sut = new CompiledRequestPathMapper(basePath, affix[0], affix[1]);
+                    for (int i = 0; i < 2000; i++) {
+                        String requestPath = basePath + randomPath(random);
+                        String expected = mapByPattern(requestPath, basePath, basePackage, affix[0], affix[1]);
+                        assertThat("basePath = [" + basePath + "], basePackage = [" + basePackage
+                                   + "], requestPath = [" + requestPath + "]",
+                                   sut.map(requestPath, basePackage), is(expected));
+                    }
+                }
+            }
+        }
+    }
+
+    private static String randomPath(Random random) {
+        StringBuilder path = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            // 識別子となり得る文字を多めに生成する
+            if (random.nextInt(3) == 0) {
+                path.append(CHARS[random.nextInt(CHARS.length)]);
+            } else {
+                path.append(CHARS[random.nextInt(11)]);
+            }
+        }
+        return path.toString();
+    }
+
+    /**
+     * 従来の{@link RequestPathJavaPackageMapping}の変換処理。
+     */
+    private static String mapByPattern(String requestPath, String basePath, String basePackage,
+                                       String classNamePrefix, String classNameSuffix) {
+        String mappedUri = requestPath
+                              .replaceFirst(basePath, basePackage + ".")
+                              .replaceAll("[./]+", ".")
+                              .replaceAll("^\\.|\\.$", "");
+
+        Matcher m = MAPPING_RULE.matcher(mappedUri);
+        if (!m.matches()) {
+            return null;
+        }
+        String packageName  = (m.group(1) == null) ? "" : m.group(1);
+        String className    = classNamePrefix + m.group(2) + classNameSuffix;
+        return packageName + className;
+    }
+}
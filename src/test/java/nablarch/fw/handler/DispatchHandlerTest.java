@@ -8,7 +8,12 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.Matchers.*;
@@ -39,6 +44,45 @@ public class DispatchHandlerTest {
         assertThat(returnValue, is("TEST_HANDLER"));
     }
 
+    @Test
+    public void testDirectInvocationBehavesSameAsQueueInsertion() {
+        ExecutionContext queueContext = new ExecutionContext().addHandler(new MockHandler("NEXT"));
+        queueContext.setCurrentRequestObject("PREVIOUS");
+        String queued = new TestDispatchHandler(QueueObservingHandler.class).handle("REQUEST", queueContext);
+
+        ExecutionContext directContext = new ExecutionContext().addHandler(new MockHandler("NEXT"));
+        directContext.setCurrentRequestObject("PREVIOUS");
+        String direct = new TestDispatchHandler(QueueObservingHandler.class)
+                .setDirectInvocation(true)
+                .handle("REQUEST", directContext);
+
+        assertThat(queued, is("queue=1, request=REQUEST, next=NEXT"));
+        assertThat(direct, is(queued));
+        assertThat(directContext.getCurrentRequestObject(), is((Object) "PREVIOUS"));
+        assertThat(directContext.getHandlerQueue().isEmpty(), is(true));
+
+        // handleメソッドに付与されたインターセプタも同様に適用されること。
+        String interceptedQueued = new TestDispatchHandler(InterceptedHandler.class)
+                .handle("REQUEST", new ExecutionContext());
+        String interceptedDirect = new TestDispatchHandler(InterceptedHandler.class)
+                .setDirectInvocation(true)
+                .handle("REQUEST", new ExecutionContext());
+
+        assertThat(interceptedQueued, is("intercepted(INTERCEPTED_HANDLER)"));
+        assertThat(interceptedDirect, is(interceptedQueued));
+    }
+
+    @Test
+    public void testDirectInvocationIsIgnoredIfNotImmediate() {
+        context.addHandler(new MockHandler("NEXT"));
+        String returnValue = new TestDispatchHandler(QueueObservingHandler.class)
+                .setDirectInvocation(true)
+                .setImmediate(false)
+                .handle("REQUEST", context);
+
+        assertThat(returnValue, is("NEXT"));
+    }
+
     @Test
     public void testThrowsExceptionIfHandlerClassNotFound() {
         DispatchHandler<String, String, ?> sut = new DispatchHandler<String, String, DispatchHandler<String, String, ?>>() {
@@ -141,6 +185,38 @@ public class DispatchHandlerTest {
         assertThat(returnValue, is("CREATE_BY_CUSTOM_DELEGATE_FACTORY"));
     }
 
+    @Test
+    public void testReleaseDelegateIfCreatingHandlerFails() {
+        final NotHandler delegate = new NotHandler();
+        final List<Object> released = new ArrayList<Object>();
+        TestDispatchHandler sut = new TestDispatchHandler(NotHandler.class);
+        sut.setDelegateFactory(new ReleasableDelegateFactory() {
+            @Override
+            public Object create(Class<?> clazz) {
+                return delegate;
+            }
+
+            @Override
+            public void release(Object delegate) {
+                released.add(delegate);
+            }
+        });
+        context.setMethodBinder(new MethodBinder<String, String>() {
+            @Override
+            public HandlerWrapper<String, String> bind(Object o) {
+                throw new IllegalStateException("bind failed.");
+            }
+        });
+
+        try {
+            sut.handle("REQUEST", context);
+            throw new AssertionError("IllegalStateException must be thrown.");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("bind failed."));
+        }
+        assertThat(released, contains((Object) delegate));
+    }
+
     @Test
     public void testMethodBinderCreateNextHandlerIfDelegateIsNotHandlerAndContextHasMethodBinder() {
         TestDispatchHandler sut = new TestDispatchHandler(NotHandler.class);
@@ -188,6 +264,51 @@ public class DispatchHandlerTest {
         assertThat(method, is(handleMethod));
     }
 
+    @Test
+    public void testHandleMethodIsCachedPerDelegateClass() throws Exception {
+        TestDispatchHandler sut = new TestDispatchHandler(TestHandler.class);
+        sut.handle("REQUEST", context);
+        Method first = context.getRequestScopedVar(MethodBinding.SCOPE_VAR_NAME_BOUND_METHOD);
+
+        ExecutionContext secondContext = new ExecutionContext();
+        sut.handle("REQUEST", secondContext);
+        Method second = secondContext.getRequestScopedVar(MethodBinding.SCOPE_VAR_NAME_BOUND_METHOD);
+
+        assertThat(second, sameInstance(first));
+        Class<TestHandler> clazz = secondContext.getRequestScopedVar(MethodBinding.SCOPE_VAR_NAME_BOUND_CLASS);
+        assertThat(clazz, sameInstance(TestHandler.class));
+    }
+
+    @Test
+    public void testNotFoundLogIsWrittenEveryTimeByDefault() {
+        TestDispatchHandler sut = new TestDispatchHandler(NotHandler.class);
+        for (int i = 0; i < 3; i++) {
+            try {
+                sut.handle("REQUEST", new ExecutionContext());
+            } catch (Result.NotFound ignored) {
+            }
+        }
+
+        List<String> memory = OnMemoryLogWriter.getMessages("writer.memory");
+        assertThat(memory, Matchers.<String>iterableWithSize(3));
+    }
+
+    @Test
+    public void testNotFoundLogIsRateLimited() {
+        TestDispatchHandler sut = new TestDispatchHandler(NotHandler.class);
+        sut.setNotFoundLogIntervalMillis(60000);
+        for (int i = 0; i < 3; i++) {
+            try {
+                sut.handle("REQUEST", new ExecutionContext());
+            } catch (Result.NotFound ignored) {
+            }
+        }
+
+        List<String> memory = OnMemoryLogWriter.getMessages("writer.memory");
+        assertThat(memory, Matchers.<String>iterableWithSize(1));
+        assertThat(memory.get(0), containsString("Couldn't instantiate handler.: " + NotHandler.class.getName()));
+    }
+
     public static class TestDispatchHandler extends DispatchHandler<String, String, TestDispatchHandler> {
         private final Class<?> handlerClass;
 
@@ -218,6 +339,35 @@ public class DispatchHandlerTest {
         }
     }
 
+    public static class QueueObservingHandler implements Handler<String, String> {
+        @Override
+        public String handle(String request, ExecutionContext context) {
+            return "queue=" + context.getHandlerQueue().size()
+                    + ", request=" + context.getCurrentRequestObject()
+                    + ", next=" + context.handleNext(request);
+        }
+    }
+
+    public static class InterceptedHandler implements Handler<String, String> {
+        @Override
+        @Intercepted
+        public String handle(String request, ExecutionContext context) {
+            return "INTERCEPTED_HANDLER";
+        }
+    }
+
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @Interceptor(Intercepted.Impl.class)
+    public @interface Intercepted {
+        class Impl extends Interceptor.Impl<String, String, Intercepted> {
+            @Override
+            public String handle(String request, ExecutionContext context) {
+                return "intercepted(" + getOriginalHandler().handle(request, context) + ")";
+            }
+        }
+    }
+
     public static class NoDefaultConstructor {
         public NoDefaultConstructor(String arg) {}
     }
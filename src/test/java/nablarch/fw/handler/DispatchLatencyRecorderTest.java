@@ -0,0 +1,107 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import nablarch.fw.ExecutionContext;
+
+import org.junit.Test;
+
+/**
+ * {@link DispatchLatencyRecorder}のテスト。
+ */
+public class DispatchLatencyRecorderTest {
+
+    /**
+     * ディスパッチ先クラスごとに処理時間が記録されること。
+     */
+    @Test
+    public void testRecord() {
+        DispatchLatencyRecorder sut = new DispatchLatencyRecorder();
+        for (int i = 1; i <= 100; i++) {
+            sut.record(String.class, i * 1000L);
+        }
+        sut.record(Integer.class, 5000000L);
+
+        assertThat(sut.getClassNames(), is(new String[] {"java.lang.Integer", "java.lang.String"}));
+        assertThat(sut.getCount("java.lang.String"), is(100L));
+        assertThat(sut.getValueAtPercentile("java.lang.String", 50), is(50L));
+        assertThat(sut.getMax("java.lang.String"), is(100L));
+        assertThat(sut.getSummary(), is(new String[] {
+                "java.lang.Integer count=1 p50=5000 p99=5000 p999=5000 max=5000",
+                "java.lang.String count=100 p50=50 p99=99 p999=100 max=100"}));
+
+        assertThat(sut.getCount("not.Recorded"), is(0L));
+        assertThat(sut.getValueAtPercentile("not.Recorded", 99), is(0L));
+        assertThat(sut.getMax("not.Recorded"), is(0L));
+
+        sut.reset();
+        assertThat(sut.getCount("java.lang.String"), is(0L));
+    }
+
+    /**
+     * {@link DispatchHandler}に設定した場合、ディスパッチ先クラスごとに処理時間が記録されること。
+     */
+    @Test
+    public void testRecordByDispatchHandler() {
+        DispatchLatencyRecorder sut = new DispatchLatencyRecorder();
+        DispatchHandlerTest.TestDispatchHandler handler =
+                new DispatchHandlerTest.TestDispatchHandler(DispatchHandlerTest.TestHandler.class);
+        handler.setLatencyRecorder(sut);
+        handler.handle("REQUEST", new ExecutionContext());
+        handler.setDirectInvocation(true).handle("REQUEST", new ExecutionContext());
+
+        assertThat(sut.getCount(DispatchHandlerTest.TestHandler.class.getName()), is(2L));
+
+        handler = new DispatchHandlerTest.TestDispatchHandler(DispatchHandlerTest.NotHandler.class);
+        handler.setLatencyRecorder(sut);
+        try {
+            handler.handle("REQUEST", new ExecutionContext());
+            fail();
+        } catch (RuntimeException ignored) {
+        }
+        assertThat(sut.getCount(DispatchHandlerTest.NotHandler.class.getName()), is(0L));
+    }
+
+    /**
+     * 初期化時にMBeanサーバに登録され、廃棄時に登録が解除されること。
+     */
+    @Test
+    public void testMBeanRegistration() throws Exception {
+        String name = "nablarch.fw.handler:type=DispatchLatencyRecorder,name=test";
+        DispatchLatencyRecorder sut = new DispatchLatencyRecorder();
+        sut.setObjectName(name);
+        sut.record(String.class, 1000L);
+        sut.initialize();
+        sut.initialize();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(name);
+            assertThat(server.isRegistered(objectName), is(true));
+            assertThat((String[]) server.getAttribute(objectName, "ClassNames"), is(new String[] {"java.lang.String"}));
+            assertThat((Long) server.invoke(objectName, "getCount",
+                    new Object[] {"java.lang.String"}, new String[] {String.class.getName()}), is(1L));
+
+            // 同一の名前では登録できないこと
+            DispatchLatencyRecorder duplicate = new DispatchLatencyRecorder();
+            duplicate.setObjectName(name);
+            try {
+                duplicate.initialize();
+                fail();
+            } catch (IllegalStateException e) {
+                assertThat(e.getMessage(), is("failed to register MBean. objectName = " + name));
+            }
+        } finally {
+            sut.dispose();
+        }
+        assertThat(server.isRegistered(new ObjectName(name)), is(false));
+        sut.dispose();
+    }
+}
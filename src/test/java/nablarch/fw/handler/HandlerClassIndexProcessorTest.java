@@ -0,0 +1,241 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.test.support.log.app.OnMemoryLogWriter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link HandlerClassIndexProcessor}のテスト。
+ */
+public class HandlerClassIndexProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File sourceDir;
+
+    private File outputDir;
+
+    private ClassLoader originalLoader;
+
+    @Before
+    public void setUp() throws Exception {
+        sourceDir = folder.newFolder("src");
+        outputDir = folder.newFolder("classes");
+        originalLoader = Thread.currentThread().getContextClassLoader();
+        OnMemoryLogWriter.clear();
+
+        writeSource("idx/action/IndexAction.java",
+                "package idx.action;",
+                "public class IndexAction implements nablarch.fw.Handler<Object, Object> {",
+                "    public Object handle(Object data, nablarch.fw.ExecutionContext ctx) {",
+                "        ctx.setRequestScopedVar(\"executeAction\", \"idx.action.IndexAction\");",
+                "        return null;",
+                "    }",
+                "}");
+        writeSource("idx/action/sub/SubAction.java",
+                "package idx.action.sub;",
+                "public class SubAction {}");
+        writeSource("idx/action/AbstractAction.java",
+                "package idx.action;",
+                "public abstract class AbstractAction {}");
+        writeSource("idx/action/Hidden.java",
+                "package idx.action;",
+                "class Hidden {}");
+        writeSource("idx/action/Outer.java",
+                "package idx.action;",
+                "public class Outer { public static class Inner {} }");
+        writeSource("idx/other/OtherAction.java",
+                "package idx.other;",
+                "public class OtherAction {}");
+    }
+
+    @After
+    public void tearDown() {
+        Thread.currentThread().setContextClassLoader(originalLoader);
+    }
+
+    /**
+     * 指定したパッケージ配下のpublicかつ具象のトップレベルクラスが索引に登録されること。
+     */
+    @Test
+    public void testGenerateIndex() throws Exception {
+        compile("-Anablarch.handlerClassIndex.packages=idx.action");
+
+        assertThat(new File(outputDir, "idx/action/GeneratedHandlerClassIndex.class").exists(), is(true));
+
+        List<String> classNames = getIndexedClassNames(newLoader());
+        assertThat(classNames, is(Arrays.asList(
+                "idx.action.IndexAction", "idx.action.Outer", "idx.action.sub.SubAction")));
+    }
+
+    /**
+     * 生成するクラス名および複数のパッケージを指定できること。
+     */
+    @Test
+    public void testGenerateIndexWithClassName() throws Exception {
+        compile("-Anablarch.handlerClassIndex.packages=idx.action.sub, idx.other",
+                "-Anablarch.handlerClassIndex.className=idx.HandlerIndex");
+
+        assertThat(new File(outputDir, "idx/HandlerIndex.class").exists(), is(true));
+
+        List<String> classNames = getIndexedClassNames(newLoader());
+        assertThat(classNames, is(Arrays.asList("idx.action.sub.SubAction", "idx.other.OtherAction")));
+    }
+
+    /**
+     * パッケージを指定しない場合は、索引が生成されないこと。
+     */
+    @Test
+    public void testNoPackages() throws Exception {
+        compile();
+
+        assertThat(new File(outputDir, "META-INF/services/" + HandlerClassIndex.class.getName()).exists(), is(false));
+    }
+
+    /**
+     * 索引がクラスパス上に存在する場合、{@link RequestPathJavaPackageMapping}が索引を使用してディスパッチすること。
+     */
+    @Test
+    public void testDispatchWithIndex() throws Exception {
+        compile("-Anablarch.handlerClassIndex.packages=idx.action");
+        Thread.currentThread().setContextClassLoader(newLoader());
+
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping("/", "idx.action");
+        ExecutionContext ctx = new ExecutionContext();
+        mapping.handle(new RequestPathJavaPackageMappingTest.MockRequest("/IndexAction"), ctx);
+
+        assertThat(ctx.<String>getRequestScopedVar("executeAction"), is("idx.action.IndexAction"));
+        assertThat(OnMemoryLogWriter.getMessages("writer.memory"),
+                hasItem(containsString("loaded handler class index. count = 3")));
+    }
+
+    /**
+     * useHandlerClassIndex プロパティにfalseを設定した場合は、索引を使用しないこと。
+     */
+    @Test
+    public void testDispatchWithoutIndex() throws Exception {
+        compile("-Anablarch.handlerClassIndex.packages=idx.action");
+        Thread.currentThread().setContextClassLoader(newLoader());
+
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping("/", "idx.action");
+        mapping.setUseHandlerClassIndex(false);
+        ExecutionContext ctx = new ExecutionContext();
+        mapping.handle(new RequestPathJavaPackageMappingTest.MockRequest("/IndexAction"), ctx);
+
+        assertThat(ctx.<String>getRequestScopedVar("executeAction"), is("idx.action.IndexAction"));
+        assertThat(OnMemoryLogWriter.getMessages("writer.memory"),
+                not(hasItem(containsString("loaded handler class index."))));
+    }
+
+    /**
+     * 事前ロードを行う場合、索引に含まれるクラスに加えて、クラスパスを走査して見つかったクラスも対象となること。
+     * <p/>
+     * 索引に登録されないクラス(抽象クラスなど)のみが走査で見つかった場合は、索引が不完全である旨のログを出力しないこと。
+     */
+    @Test
+    public void testPreloadWithIndex() throws Exception {
+        compile("-Anablarch.handlerClassIndex.packages=idx");
+        Thread.currentThread().setContextClassLoader(newLoader());
+
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping("/", "idx.action");
+        mapping.setClassNameSuffix("Action").setPreload(true);
+        mapping.initialize();
+
+        assertThat(OnMemoryLogWriter.getMessages("writer.memory"),
+                hasItem(containsString("preloaded handler classes. count = 3")));
+        assertThat(OnMemoryLogWriter.getMessages("writer.memory"),
+                not(hasItem(containsString("not in the handler class index"))));
+        ExecutionContext ctx = new ExecutionContext();
+        mapping.handle(new RequestPathJavaPackageMappingTest.MockRequest("/Index"), ctx);
+        assertThat(ctx.<String>getRequestScopedVar("executeAction"), is("idx.action.IndexAction"));
+    }
+
+    private void writeSource(String path, String... lines) throws IOException {
+        File file = new File(sourceDir, path);
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void compile(String... options) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        try {
+            List<File> sources = new ArrayList<File>();
+            collectSources(sourceDir, sources);
+            String classPath = new File(HandlerClassIndex.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                    + File.pathSeparator + System.getProperty("java.class.path");
+            List<String> args = new ArrayList<String>(Arrays.asList(
+                    "-d", outputDir.getPath(), "-classpath", classPath,
+                    "-processor", HandlerClassIndexProcessor.class.getName(),
+                    // 最終ラウンドでソースファイルを生成した場合の警告などで失敗させる。
+                    "-Werror"));
+            args.addAll(Arrays.asList(options));
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(sources);
+            assertThat(compiler.getTask(null, fileManager, null, args, null, units).call(), is(true));
+        } finally {
+            fileManager.close();
+        }
+    }
+
+    private void collectSources(File dir, List<File> sources) {
+        for (File file : dir.listFiles()) {
+            if (file.isDirectory()) {
+                collectSources(file, sources);
+            } else {
+                sources.add(file);
+            }
+        }
+    }
+
+    private ClassLoader newLoader() throws Exception {
+        return new URLClassLoader(new URL[] {outputDir.toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    private List<String> getIndexedClassNames(ClassLoader loader) {
+        Iterator<HandlerClassIndex> indexes = ServiceLoader.load(HandlerClassIndex.class, loader).iterator();
+        List<String> classNames = new ArrayList<String>();
+        for (Class<?> clazz : indexes.next().getHandlerClasses()) {
+            classNames.add(clazz.getName());
+        }
+        assertThat(indexes.hasNext(), is(false));
+        return classNames;
+    }
+}
@@ -0,0 +1,58 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * {@link HandlerClassScanner}のテスト。
+ */
+public class HandlerClassScannerTest {
+
+    private final ClassLoader loader = HandlerClassScannerTest.class.getClassLoader();
+
+    /**
+     * ディレクトリに配置されたクラスが、サブパッケージも含めて列挙されること。
+     */
+    @Test
+    public void testScanDirectory() throws Exception {
+        Set<String> classNames = HandlerClassScanner.scan(loader, "nablarch.fw.handler.dispatch");
+
+        assertThat(classNames, hasItem("nablarch.fw.handler.dispatch.test1.ss00A001.B11AC001Action"));
+        assertThat(classNames, hasItem("nablarch.fw.handler.dispatch.base.ss00A002.W11AC001Action"));
+        assertThat(classNames, hasItem("nablarch.fw.handler.dispatch.preload.PreloadAction"));
+        assertThat(classNames, not(hasItem("nablarch.fw.handler.HandlerClassScannerTest")));
+    }
+
+    /**
+     * JARファイルに配置されたクラスが列挙され、ネストしたクラスは列挙されないこと。
+     */
+    @Test
+    public void testScanJar() throws Exception {
+        Set<String> classNames = HandlerClassScanner.scan(loader, "org.junit.rules");
+
+        assertThat(classNames, hasItem("org.junit.rules.ExpectedException"));
+        for (String className : classNames) {
+            assertThat(className, className.contains("$"), is(false));
+        }
+    }
+
+    /**
+     * 複数のパッケージを指定できること。また、存在しないパッケージを指定した場合は何も列挙されないこと。
+     */
+    @Test
+    public void testScanPackages() throws Exception {
+        Set<String> classNames = HandlerClassScanner.scan(loader, Arrays.asList(
+                "nablarch.fw.handler.dispatch.test1", "nablarch.fw.handler.dispatch.test2", "not.exist"));
+
+        assertThat(classNames, hasItem("nablarch.fw.handler.dispatch.test1.ss00A001.B11AC001Action"));
+        assertThat(classNames, hasItem("nablarch.fw.handler.dispatch.test2.ss00A001.B11AC001Action"));
+        assertThat(classNames.size(), is(4));
+    }
+}
@@ -0,0 +1,157 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+
+import org.junit.Test;
+
+/**
+ * {@link HandlerMethodVerifier}のテスト。
+ */
+public class HandlerMethodVerifierTest {
+
+    /**
+     * 問題のないクラスの場合、問題が報告されないこと。
+     */
+    @Test
+    public void testValidClass() {
+        assertThat(HandlerMethodVerifier.verify(ValidAction.class, null, false), is(empty()));
+        assertThat(HandlerMethodVerifier.verify(
+                ValidAction.class, interceptorsOrder(InterceptorChainTest.First.class), false),
+                   is(empty()));
+    }
+
+    /**
+     * ディスパッチ先とならないpublicメソッドは問題として報告されないこと。
+     */
+    @Test
+    public void testPublicMethodsWhichAreNotHandlerMethods() {
+        assertThat(HandlerMethodVerifier.verify(HelperAction.class, null, false), is(empty()));
+    }
+
+    /**
+     * 厳密な検証を行う場合、ディスパッチ先とならないメソッドが問題として報告されること。
+     */
+    @Test
+    public void testStrict() {
+        List<String> problems = HandlerMethodVerifier.verify(HelperAction.class, null, true);
+
+        assertThat(problems, hasSize(3));
+        for (String problem : problems) {
+            assertThat(problem, containsString("not a handler method."));
+        }
+        assertThat(HandlerMethodVerifier.verify(ValidAction.class, null, true), hasSize(1));
+    }
+
+    /**
+     * 引数の実行順に従ったインターセプタの構成がキャッシュされ、リポジトリを参照せずに使用されること。
+     */
+    @Test
+    public void testInterceptorChainIsPrepared() throws Exception {
+        InterceptorChain.clearCache();
+        try {
+            assertThat(HandlerMethodVerifier.verify(InterceptorChainTest.Action.class, interceptorsOrder(
+                    InterceptorChainTest.First.class, InterceptorChainTest.Second.class), false), is(empty()));
+
+            Method method = InterceptorChainTest.Action.class.getMethod(
+                    "intercepted", String.class, ExecutionContext.class);
+            ExecutionContext context = new ExecutionContext();
+            List<String> trace = new ArrayList<String>();
+            context.setRequestScopedVar("trace", trace);
+            InterceptorChain.of(method).wrap(new Handler<String, Object>() {
+                @Override
+                public Object handle(String request, ExecutionContext context) {
+                    return null;
+                }
+            }).handle("REQUEST", context);
+
+            assertThat(trace, contains("first", "second"));
+        } finally {
+            InterceptorChain.clearCache();
+        }
+    }
+
+    /**
+     * インターセプタの構成が不正な場合に、リポジトリを参照せずに問題として報告されること。
+     */
+    @Test
+    public void testInvalidInterceptors() {
+        List<String> problems = HandlerMethodVerifier.verify(
+                ValidAction.class, interceptorsOrder(InterceptorChainTest.Second.class), false);
+
+        assertThat(problems, hasSize(1));
+        assertThat(problems.get(0), containsString("ValidAction.doIndex("));
+        assertThat(problems.get(0), containsString(
+                "invalid interceptors. cause = interceptor is undefined in the interceptorsOrder."));
+    }
+
+    /**
+     * {@link Handler}を実装したクラスは検証対象外であること。
+     */
+    @Test
+    public void testHandlerIsIgnored() {
+        assertThat(HandlerMethodVerifier.verify(HandlerAction.class, interceptorsOrder(), true), is(empty()));
+    }
+
+    private static List<String> interceptorsOrder(Class<?>... interceptors) {
+        List<String> order = new ArrayList<String>();
+        for (Class<?> interceptor : interceptors) {
+            order.add(interceptor.getName());
+        }
+        return order;
+    }
+
+    public static class ValidAction {
+        @InterceptorChainTest.First
+        public Object doIndex(String request, ExecutionContext context) {
+            return null;
+        }
+
+        public Object doPlain(String request, ExecutionContext context) {
+            return null;
+        }
+
+        private void setUp(String request, ExecutionContext context) {
+        }
+    }
+
+    public static class HelperAction {
+        protected Object doProtected(String request, ExecutionContext context) {
+            return null;
+        }
+
+        public static Object doStatic(String request, ExecutionContext context) {
+            return null;
+        }
+
+        public Object doReversed(ExecutionContext context, String request) {
+            return null;
+        }
+
+        public Object helper(String request) {
+            return null;
+        }
+    }
+
+    public static class HandlerAction implements Handler<String, Object> {
+        @Override
+        public Object handle(String request, ExecutionContext context) {
+            return null;
+        }
+
+        public static Object doStatic(String request, ExecutionContext context) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nablarch.core.repository.ObjectLoader;
+import nablarch.core.repository.SystemRepository;
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.Interceptor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * {@link InterceptorChain}のテスト。
+ */
+public class InterceptorChainTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Before
+    public void setUp() {
+        InterceptorChain.clearCache();
+    }
+
+    @After
+    public void tearDown() {
+        SystemRepository.clear();
+        InterceptorChain.clearCache();
+    }
+
+    /**
+     * 実行順が定義されていない場合、{@link Interceptor.Factory}と同じ順序でインターセプタが実行されること。
+     */
+    @Test
+    public void testSameOrderAsFactoryWithoutInterceptorsOrder() throws Exception {
+        Method method = Action.class.getMethod("intercepted", String.class, ExecutionContext.class);
+
+        assertThat(invoke(InterceptorChain.of(method).wrap(new Terminal())), is(invoke(
+                Interceptor.Factory.wrap(new Terminal(), method.getAnnotations()))));
+        assertThat(invoke(InterceptorChain.of(method).wrap(new Terminal())), contains("second", "first", "handler"));
+    }
+
+    /**
+     * 実行順が定義されている場合、{@link Interceptor.Factory}と同じ順序でインターセプタが実行されること。
+     */
+    @Test
+    public void testSameOrderAsFactoryWithInterceptorsOrder() throws Exception {
+        loadInterceptorsOrder(First.class, Second.class);
+        Method method = Action.class.getMethod("intercepted", String.class, ExecutionContext.class);
+
+        assertThat(invoke(InterceptorChain.of(method).wrap(new Terminal())), is(invoke(
+                Interceptor.Factory.wrap(new Terminal(), method.getAnnotations()))));
+        assertThat(invoke(InterceptorChain.of(method).wrap(new Terminal())), contains("first", "second", "handler"));
+    }
+
+    /**
+     * インターセプタの構成がキャッシュされ、キャッシュが破棄されるまでリポジトリの実行順を参照しないこと。
+     */
+    @Test
+    public void testChainIsCachedUntilCacheIsCleared() throws Exception {
+        Method method = Action.class.getMethod("intercepted", String.class, ExecutionContext.class);
+        InterceptorChain chain = InterceptorChain.of(method);
+        assertThat(InterceptorChain.of(method), is(sameInstance(chain)));
+
+        loadInterceptorsOrder(First.class, Second.class);
+        assertThat(InterceptorChain.of(method), is(sameInstance(chain)));
+        assertThat(invoke(chain.wrap(new Terminal())), contains("second", "first", "handler"));
+
+        MethodBinding.clearInterceptorChainCache();
+        InterceptorChain reordered = InterceptorChain.of(method);
+        assertThat(reordered, is(not(sameInstance(chain))));
+        assertThat(InterceptorChain.of(method), is(sameInstance(reordered)));
+        assertThat(invoke(reordered.wrap(new Terminal())), contains("first", "second", "handler"));
+    }
+
+    /**
+     * インターセプタが付与されていないメソッドの構成は、キャッシュが破棄されても作り直されないこと。
+     */
+    @Test
+    public void testChainWithoutInterceptorsIsKept() throws Exception {
+        Method method = Action.class.getMethod("plain", String.class, ExecutionContext.class);
+        InterceptorChain chain = InterceptorChain.of(method);
+
+        loadInterceptorsOrder(First.class, Second.class);
+        InterceptorChain.clearCache();
+        assertThat(InterceptorChain.of(method), is(sameInstance(chain)));
+    }
+
+    /**
+     * インターセプタが付与されていない場合は、ハンドラがそのまま返されること。
+     */
+    @Test
+    public void testNoInterceptors() throws Exception {
+        InterceptorChain chain = InterceptorChain.of(
+                Action.class.getMethod("plain", String.class, ExecutionContext.class));
+        Terminal handler = new Terminal();
+
+        assertThat(chain.isEmpty(), is(true));
+        assertThat(chain.wrap(handler), is(sameInstance((Handler<String, List<String>>) handler)));
+    }
+
+    /**
+     * 実行順に定義されていないインターセプタが付与されている場合は、例外が送出されること。
+     */
+    @Test
+    public void testUndefinedInterceptor() throws Exception {
+        loadInterceptorsOrder(First.class);
+
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("interceptor is undefined in the interceptorsOrder. undefined interceptors=");
+        InterceptorChain.of(Action.class.getMethod("intercepted", String.class, ExecutionContext.class));
+    }
+
+    /**
+     * {@link MethodBinding}がキャッシュしたインターセプタの構成を使用すること。
+     */
+    @Test
+    public void testMethodBinding() {
+        final List<String> trace = new ArrayList<String>();
+        ExecutionContext context = new ExecutionContext();
+        context.setRequestScopedVar("trace", trace);
+        MethodBinding<String, Object> binding = new MethodBinding<String, Object>(new Action()) {
+            @Override
+            protected Method getMethodBoundTo(String data, ExecutionContext ctx) {
+                return getHandleMethod(data);
+            }
+        };
+
+        binding.handle("intercepted", context);
+        binding.handle("plain", context);
+
+        assertThat(trace, contains("second", "first", "intercepted", "plain"));
+    }
+
+    private static void loadInterceptorsOrder(Class<?>... interceptors) {
+        final List<String> order = new ArrayList<String>();
+        for (Class<?> interceptor : interceptors) {
+            order.add(interceptor.getName());
+        }
+        SystemRepository.load(new ObjectLoader() {
+            @Override
+            public Map<String, Object> load() {
+                Map<String, Object> objects = new HashMap<String, Object>();
+                objects.put("interceptorsOrder", order);
+                return objects;
+            }
+        });
+    }
+
+    private static List<String> invoke(Handler<String, List<String>> handler) {
+        ExecutionContext context = new ExecutionContext();
+        context.setRequestScopedVar("trace", new ArrayList<String>());
+        return handler.handle("REQUEST", context);
+    }
+
+    private static class Terminal implements Handler<String, List<String>> {
+        @Override
+        public List<String> handle(String request, ExecutionContext context) {
+            List<String> trace = context.getRequestScopedVar("trace");
+            trace.add("handler");
+            return trace;
+        }
+    }
+
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @Interceptor(First.Impl.class)
+    public @interface First {
+        class Impl extends Interceptor.Impl<String, Object, First> {
+            @Override
+            public Object handle(String request, ExecutionContext context) {
+                context.<List<String>>getRequestScopedVar("trace").add("first");
+                return getOriginalHandler().handle(request, context);
+            }
+        }
+    }
+
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @Interceptor(Second.Impl.class)
+    public @interface Second {
+        class Impl extends Interceptor.Impl<String, Object, Second> {
+            @Override
+            public Object handle(String request, ExecutionContext context) {
+                context.<List<String>>getRequestScopedVar("trace").add("second");
+                return getOriginalHandler().handle(request, context);
+            }
+        }
+    }
+
+    public static class Action {
+        @First
+        @Second
+        public Object intercepted(String request, ExecutionContext context) {
+            context.<List<String>>getRequestScopedVar("trace").add("intercepted");
+            return null;
+        }
+
+        public Object plain(String request, ExecutionContext context) {
+            context.<List<String>>getRequestScopedVar("trace").add("plain");
+            return null;
+        }
+    }
+}
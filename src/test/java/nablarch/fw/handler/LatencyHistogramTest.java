@@ -0,0 +1,115 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * {@link LatencyHistogram}のテスト。
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * バケットのインデックスと上限値が連続しており、相対誤差が上限以内であること。
+     */
+    @Test
+    public void testBucketBoundaries() {
+        int previousIndex = -1;
+        for (long value = 0; value < 100000; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index == previousIndex || index == previousIndex + 1);
+            long highest = LatencyHistogram.highestValueOf(index);
+            assertTrue("value = " + value, highest >= value);
+            assertTrue("value = " + value, highest - value <= value / 64);
+            previousIndex = index;
+        }
+        assertThat(LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(LatencyHistogram.MAX_VALUE)),
+                   is(LatencyHistogram.MAX_VALUE));
+    }
+
+    /**
+     * パーセンタイルの値が取得できること。
+     */
+    @Test
+    public void testPercentile() {
+        LatencyHistogram sut = new LatencyHistogram();
+        assertThat(sut.getValueAtPercentile(50), is(0L));
+
+        for (long value = 1; value <= 1000; value++) {
+            sut.record(value);
+        }
+        assertThat(sut.getCount(), is(1000L));
+        assertThat(sut.getMax(), is(1000L));
+        assertNear(sut.getValueAtPercentile(50), 500);
+        assertNear(sut.getValueAtPercentile(99), 990);
+        assertNear(sut.getValueAtPercentile(99.9), 999);
+        assertThat(sut.getValueAtPercentile(100), is(1000L));
+    }
+
+    /**
+     * 範囲外の値は、0もしくは最大値として記録されること。
+     */
+    @Test
+    public void testOutOfRange() {
+        LatencyHistogram sut = new LatencyHistogram();
+        sut.record(-1);
+        sut.record(Long.MAX_VALUE);
+
+        assertThat(sut.getValueAtPercentile(50), is(0L));
+        assertThat(sut.getMax(), is(LatencyHistogram.MAX_VALUE));
+        assertThat(sut.getValueAtPercentile(100), is(LatencyHistogram.MAX_VALUE));
+    }
+
+    /**
+     * 記録をリセットできること。
+     */
+    @Test
+    public void testReset() {
+        LatencyHistogram sut = new LatencyHistogram();
+        sut.record(100);
+        sut.reset();
+
+        assertThat(sut.getCount(), is(0L));
+        assertThat(sut.getMax(), is(0L));
+        assertThat(sut.getValueAtPercentile(99), is(0L));
+    }
+
+    /**
+     * パーセンタイルに範囲外の値を指定した場合は例外が送出されること。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        new LatencyHistogram().getValueAtPercentile(0);
+    }
+
+    /**
+     * 並行して記録しても件数が失われないこと。
+     */
+    @Test
+    public void testConcurrentRecord() throws Exception {
+        final LatencyHistogram sut = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        sut.record(j);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(sut.getCount(), is(40000L));
+        assertThat(sut.getMax(), is(9999L));
+    }
+
+    private static void assertNear(long actual, long expected) {
+        assertTrue("actual = " + actual, actual >= expected && actual <= expected + expected / 64);
+    }
+}
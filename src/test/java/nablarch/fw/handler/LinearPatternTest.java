@@ -0,0 +1,202 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import nablarch.fw.handler.LinearPattern.LinearMatcher;
+
+import org.junit.Test;
+
+/**
+ * {@link LinearPattern}のテスト。
+ */
+public class LinearPatternTest {
+
+    /** 比較に使用するパターン */
+    private static final String[] PATTERNS = {
+        "^/app/(\\w+)/(\\w+)$",
+        "/app/(\\w+)(?:/(\\d+))?",
+        "(a|ab)(c|bcd)(d*)",
+        "(a+)(a*)",
+        "(a+?)(a*)",
+        "(a*?)b",
+        "(a|b)*",
+        "(a|b)*?b",
+        "((a)|b)+",
+        "(a{2,3})(a{1,2}?)",
+        "a{2}(b{1,})c{0,1}",
+        "[^/]+/(.*)\\.(css|js)",
+        "[a-c-]+",
+        "[-x\\d]+",
+        "[\\w.]+@[\\w.]+",
+        "\\s*(\\S+)\\s*",
+        "(\\W)(\\D)",
+        "(?<name>ab)(c)?",
+        "x*",
+        "()",
+        "(|a)b",
+        "a|",
+        "\\.\\*\\[\\]",
+        "\\x41\\u0042\\x{43}",
+        ".+",
+        "a$",
+        "^a",
+        "(a*)b*",
+        "(ab|a)*",
+        "b}",
+        "(?:a*)*b",
+        "(?:x?)+(\\w)",
+        "(a*b)*",
+        "(a?)b",
+    };
+
+    /** 比較に使用する文字列を構成する要素 */
+    private static final String[] WORDS = {
+        "a", "b", "c", "d", "ab", "/", "app", "x", "1", "2", " ", "-", ".", "css", "@", "\n", "\r\n",
+        " ", "ABC", "]", "}", "*", "😀", "_",
+    };
+
+    /**
+     * {@link java.util.regex.Pattern}と一致の判定およびグループの捕捉結果が同じであること。
+     */
+    @Test
+    public void testSameResultAsJavaRegex() {
+        Random random = new Random(0L);
+        for (String regex : PATTERNS) {
+            Pattern expected;
+            try {
+                expected = Pattern.compile(regex);
+            } catch (RuntimeException e) {
+                continue;
+            }
+            LinearMatcher actual = LinearPattern.compile(regex, false).matcher();
+            Matcher matcher = expected.matcher("");
+            for (int n = 0; n < 3000; n++) {
+                String input = randomInput(random);
+                assertSameResult(regex, input, matcher.reset(input).matches(), matcher, actual.matches(input), actual);
+                assertSameResult(regex, input, matcher.reset(input).find(), matcher, actual.find(input), actual);
+            }
+        }
+    }
+
+    /**
+     * 空白およびコメントを無視する場合も、{@link java.util.regex.Pattern}と同じ結果となること。
+     */
+    @Test
+    public void testComments() {
+        String[] patterns = {"^ (\\w+) - v (\\d) # version", "[ a b ]+ \\  c", "a # comment\n b"};
+        String[] inputs = {"mobile-v2", "mobile - v 2", "ab c", "a b  c", "ab", "a b", "abab"};
+        for (String regex : patterns) {
+            Matcher matcher = Pattern.compile(regex, Pattern.COMMENTS).matcher("");
+            LinearMatcher actual = LinearPattern.compile(regex, true).matcher();
+            for (String input : inputs) {
+                assertSameResult(regex, input, matcher.reset(input).find(), matcher, actual.find(input), actual);
+            }
+        }
+    }
+
+    /**
+     * 線形時間で評価できない構文を含むパターンは拒否されること。
+     */
+    @Test
+    public void testUnsupportedSyntax() {
+        String[] patterns = {
+            "(a)\\1", "a(?=b)", "(?<=a)b", "(?!a)b", "(?i)a", "(?>a)", "a*+", "a++", "[a&&b]", "[a[b]]",
+            "\\p{Alpha}", "\\bword", "\\Qa\\E", "a{2000}", "a{3,2}", "(a", "a)", "*a", "[a", "\\", "\\x4",
+            "\\0101", "[]", "[]]", "[z-a]", "a{", "^*",
+            "(a*)*b", "a{0,1}(.*)*", "(.*?){2}", "(x?)+", "(a|)+", "(?:(a)|b*){2}", "(^)*",
+        };
+        for (String regex : patterns) {
+            try {
+                LinearPattern.compile(regex, false);
+                fail("must be rejected. pattern = " + regex);
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage().startsWith("pattern cannot be evaluated in linear time."), is(true));
+            }
+        }
+    }
+
+    /**
+     * 命令数が上限を超えるパターンは拒否されること。
+     */
+    @Test
+    public void testTooLargePattern() {
+        try {
+            LinearPattern.compile("((a{1000}){1000})", false);
+            fail("must be rejected.");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is(
+                    "pattern cannot be evaluated in linear time. pattern is too large. pattern = ((a{1000}){1000})"));
+        }
+    }
+
+    /**
+     * バックトラックで評価時間が爆発するパターンでも、短時間で評価が終わること。
+     */
+    @Test(timeout = 5000)
+    public void testCatastrophicPattern() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            input.append('a');
+        }
+        input.append('!');
+        LinearMatcher matcher = LinearPattern.compile("(a+)+$", false).matcher();
+
+        long start = System.nanoTime();
+        assertThat(matcher.find(input.toString()), is(false));
+        assertThat(matcher.matches(input.toString()), is(false));
+        assertThat(System.nanoTime() - start, is(lessThan(3000000000L)));
+    }
+
+    /**
+     * 一致しなかった場合、および存在しないグループを指定した場合は例外が送出されること。
+     */
+    @Test
+    public void testGroupErrors() {
+        LinearMatcher matcher = LinearPattern.compile("(a)(b)?", false).matcher();
+        assertThat(matcher.matches("x"), is(false));
+        try {
+            matcher.group(0);
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("No match found"));
+        }
+        assertThat(matcher.matches("a"), is(true));
+        assertThat(matcher.group(2), is(nullValue()));
+        try {
+            matcher.group(3);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertThat(e.getMessage(), is("No group 3"));
+        }
+    }
+
+    private static String randomInput(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(7);
+        for (int i = 0; i < length; i++) {
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static void assertSameResult(String regex, String input,
+                                         boolean expectedResult, Matcher expected,
+                                         boolean actualResult, LinearMatcher actual) {
+        String reason = "pattern = " + regex + ", input = " + input;
+        assertThat(reason, actualResult, is(expectedResult));
+        if (!expectedResult) {
+            return;
+        }
+        for (int i = 0; i <= expected.groupCount(); i++) {
+            assertThat(reason + ", group = " + i, actual.group(i), is(expected.group(i)));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * {@link LogRateLimiter}のテスト。
+ */
+public class LogRateLimiterTest {
+
+    /**
+     * 出力間隔が0の場合は、全ての出力要求が許可されること。
+     */
+    @Test
+    public void testNoLimit() {
+        LogRateLimiter sut = new LogRateLimiter(0);
+        for (int i = 0; i < 3; i++) {
+            assertThat(sut.acquire(), is(0));
+        }
+    }
+
+    /**
+     * 出力間隔内の出力要求は抑止され、次回の出力時に抑止した件数が返されること。
+     */
+    @Test
+    public void testLimit() throws Exception {
+        LogRateLimiter sut = new LogRateLimiter(50);
+        assertThat(sut.acquire(), is(0));
+        assertThat(sut.acquire(), is(LogRateLimiter.SUPPRESSED));
+        assertThat(sut.acquire(), is(LogRateLimiter.SUPPRESSED));
+
+        Thread.sleep(100);
+        assertThat(sut.acquire(), is(2));
+        assertThat(sut.acquire(), is(LogRateLimiter.SUPPRESSED));
+    }
+
+    /**
+     * 出力間隔に負数を指定した場合は例外が送出されること。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeInterval() {
+        new LogRateLimiter(-1);
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.rules.ExpectedException;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.List;
 
 import static org.hamcrest.Matchers.*;
@@ -115,6 +116,47 @@ public class MethodBindingTest {
         assertThat(handleMethod, is(nullValue()));
     }
 
+    @Test
+    public void testHandleMethodIsIndexedPerDelegateClass() throws Exception {
+        Method first = new TestMethodBinding(delegate).getHandleMethod("hello");
+        Method second = new TestMethodBinding(new MockAction("OTHER")).getHandleMethod("Hello");
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(first, is(MockAction.class.getMethod("hello", String.class, ExecutionContext.class)));
+    }
+
+    @Test
+    public void testQualifiedMethodIsFoundAmongMethodsWithSameName() throws Exception {
+        MethodBinding<String, String> sut = new TestMethodBinding(new OverloadedAction());
+
+        Method handleMethod = sut.getHandleMethod("EXECUTE");
+
+        assertThat(handleMethod, is(OverloadedAction.class.getMethod("execute", String.class, ExecutionContext.class)));
+        assertThat(sut.getHandleMethod("notHandleMethod"), is(nullValue()));
+    }
+
+    @Test
+    public void testHandleMethodIsIndexedPerMethodBindingClass() throws Exception {
+        MethodBinding<String, String> sut = new TestMethodBinding(delegate) {
+            @Override
+            protected boolean qualifiesAsHandler(Method method) {
+                return super.qualifiesAsHandler(method) && !method.getName().equals("hello");
+            }
+        };
+
+        assertThat(sut.getHandleMethod("hello"), is(nullValue()));
+        assertThat(new TestMethodBinding(delegate).getHandleMethod("hello"), is(notNullValue()));
+    }
+
+    @Test
+    public void testPreparedHandleMethodIsUsed() throws Exception {
+        Collection<Method> prepared = MethodBinding.prepareHandleMethods(PreparedAction.class);
+        assertThat(prepared, contains(PreparedAction.class.getMethod("prepared", String.class, ExecutionContext.class)));
+
+        Method handleMethod = new TestMethodBinding(new PreparedAction()).getHandleMethod("prepared");
+        assertThat(handleMethod, is(sameInstance(prepared.iterator().next())));
+    }
+
     @Test
     public void testHandleMethodOfAnonymousClassBecomeToAccessible() {
         Object delegate = new Object() {
@@ -239,6 +281,26 @@ public class MethodBindingTest {
         }
     }
 
+    public static class OverloadedAction {
+        public String execute(String request) {
+            return null;
+        }
+
+        public String execute(String request, ExecutionContext context) {
+            return null;
+        }
+
+        public String Execute(String request, int integer) {
+            return null;
+        }
+    }
+
+    public static class PreparedAction {
+        public String prepared(String request, ExecutionContext context) {
+            return null;
+        }
+    }
+
     public static class HandleMethodPatternTestAction {
         public static String staticMethod(String request, ExecutionContext context) {
             return null;
@@ -0,0 +1,226 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.handler.RewriteRuleTest.Path;
+import nablarch.fw.handler.RewriteRuleTest.PathRewriteRule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link ReloadableRewriteRuleSet}のテスト。
+ */
+public class ReloadableRewriteRuleSetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    private PathRewriteRuleSet ruleSet;
+
+    @Before
+    public void setUp() throws Exception {
+        file = folder.newFile("rewrite-rules.txt");
+        ruleSet = new PathRewriteRuleSet();
+        ruleSet.setFilePath(file.getPath());
+    }
+
+    @After
+    public void tearDown() {
+        ruleSet.dispose();
+    }
+
+    /**
+     * 初期化時に定義ファイルの置換ルールが読み込まれること。
+     */
+    @Test
+    public void testInitialize() throws Exception {
+        write(file, 1000L,
+              "# comment",
+              "",
+              "pattern    ^/app/(\\w+)$",
+              "condition  %{request:device} ^(phone|tablet)$",
+              "rewriteTo  /sp/${1}",
+              "export     %{request:original} ${0}",
+              "",
+              "pattern    ^/legacy/(.*)$",
+              "rewriteTo  /app/${1}");
+        ruleSet.setCheckInterval(0);
+        ruleSet.initialize();
+
+        assertThat(ruleSet.getRuleCount(), is(2));
+        ExecutionContext context = new ExecutionContext();
+        context.setRequestScopedVar("device", "phone");
+        assertThat(ruleSet.rewrite(new Path("/app/list"), context), is("/sp/list"));
+        assertThat(context.<String>getRequestScopedVar("original"), is("/app/list"));
+        assertThat(ruleSet.rewrite(new Path("/legacy/top"), new ExecutionContext()), is("/app/top"));
+        assertThat(ruleSet.rewrite(new Path("/app/list"), new ExecutionContext()), is(nullValue()));
+    }
+
+    /**
+     * 定義ファイルが更新された場合のみ、読み込み直されること。
+     */
+    @Test
+    public void testReloadIfModified() throws Exception {
+        write(file, 1000L, "pattern ^/app/(\\w+)$", "rewriteTo /v1/${1}");
+        ruleSet.setCheckInterval(0);
+        ruleSet.initialize();
+        assertThat(ruleSet.reloadIfModified(), is(false));
+        assertThat(ruleSet.rewrite(new Path("/app/list"), new ExecutionContext()), is("/v1/list"));
+
+        write(file, 2000L, "pattern ^/app/(\\w+)$", "rewriteTo /v2/${1}");
+        assertThat(ruleSet.reloadIfModified(), is(true));
+        assertThat(ruleSet.rewrite(new Path("/app/list"), new ExecutionContext()), is("/v2/list"));
+        assertThat(ruleSet.reloadIfModified(), is(false));
+    }
+
+    /**
+     * 読み込み直す前に取得した置換ルールは、読み込み直した後も変更されないこと。
+     */
+    @Test
+    public void testPreviousRulesAreNotChanged() throws Exception {
+        write(file, 1000L, "pattern ^/app/(\\w+)$", "rewriteTo /v1/${1}");
+        ruleSet.setCheckInterval(0);
+        ruleSet.initialize();
+        RewriteRule<Path, ?> before = ruleSet.createdRule;
+
+        write(file, 2000L, "pattern ^/app/(\\w+)$", "rewriteTo /v2/${1}");
+        ruleSet.reload();
+
+        assertThat(before.rewrite(new Path("/app/list"), new ExecutionContext()), is("/v1/list"));
+        assertThat(ruleSet.rewrite(new Path("/app/list"), new ExecutionContext()), is("/v2/list"));
+    }
+
+    /**
+     * 誤りのある定義ファイルに更新された場合は例外が送出され、それまでの置換ルールが使われ続けること。
+     */
+    @Test
+    public void testInvalidFileKeepsPreviousRules() throws Exception {
+        write(file, 1000L, "pattern ^/app/(\\w+)$", "rewriteTo /v1/${1}");
+        ruleSet.setCheckInterval(0);
+        ruleSet.initialize();
+
+        write(file, 2000L, "pattern ^/app/(\\w+)$", "rewriteTo /v2/${1}", "pattern ^/app/(\\w+$");
+        try {
+            ruleSet.reloadIfModified();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("invalid rewrite rule file. file = " + file.getPath()
+                                                    + ", line = 3, cause = "));
+        }
+        assertThat(ruleSet.rewrite(new Path("/app/list"), new ExecutionContext()), is("/v1/list"));
+        assertThat("not reloaded until modified again", ruleSet.reloadIfModified(), is(false));
+    }
+
+    /**
+     * 定義ファイルの書式に誤りがある場合は、初期化時に例外が送出されること。
+     */
+    @Test
+    public void testInvalidFormat() throws Exception {
+        String[][] contents = {
+            {"rewriteTo /v1"},
+            {"pattern"},
+            {"pattern ^/app", "redirect /v1"},
+            {"pattern ^/app", "condition request:mode ^pc"},
+        };
+        String[] causes = {
+            "line = 1, cause = pattern must be specified first.",
+            "line = 1, cause = value is not specified.",
+            "line = 2, cause = unknown setting name. name = redirect",
+            "line = 2, cause = invalid rewrite rule condition : request:mode ^pc",
+        };
+        for (int i = 0; i < contents.length; i++) {
+            write(file, 1000L * (i + 1), contents[i]);
+            try {
+                ruleSet.reload();
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage(), containsString(causes[i]));
+            }
+        }
+    }
+
+    /**
+     * 定義ファイルが存在しない場合、およびパスが設定されていない場合は例外が送出されること。
+     */
+    @Test
+    public void testFileNotFound() {
+        ruleSet.setFilePath(new File(folder.getRoot(), "notfound.txt").getPath());
+        try {
+            ruleSet.initialize();
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("failed to read rewrite rule file."));
+        }
+
+        ruleSet.setFilePath(null);
+        try {
+            ruleSet.reload();
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("filePath must be set."));
+        }
+    }
+
+    /**
+     * バックグラウンドのスレッドで定義ファイルの更新が検知され、読み込み直されること。
+     */
+    @Test(timeout = 10000)
+    public void testWatcherReloadsModifiedFile() throws Exception {
+        write(file, 1000L, "pattern ^/app/(\\w+)$", "rewriteTo /v1/${1}");
+        ruleSet.setCheckInterval(10);
+        ruleSet.initialize();
+        assertThat(ruleSet.rewrite(new Path("/app/list"), new ExecutionContext()), is("/v1/list"));
+
+        write(file, 2000L, "pattern ^/app/(\\w+)$", "rewriteTo /v2/${1}");
+        while (!"/v2/list".equals(ruleSet.rewrite(new Path("/app/list"), new ExecutionContext()))) {
+            Thread.sleep(10);
+        }
+
+        ruleSet.dispose();
+        write(file, 3000L, "pattern ^/app/(\\w+)$", "rewriteTo /v3/${1}");
+        Thread.sleep(100);
+        assertThat("not reloaded after disposed",
+                   ruleSet.rewrite(new Path("/app/list"), new ExecutionContext()), is("/v2/list"));
+    }
+
+    private static void write(File file, long lastModified, String... lines) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write("\n");
+            }
+        } finally {
+            writer.close();
+        }
+        file.setLastModified(lastModified);
+    }
+
+    /** テスト用の置換ルールセット */
+    private static class PathRewriteRuleSet extends ReloadableRewriteRuleSet<Path> {
+        private RewriteRule<Path, ?> createdRule;
+
+        @Override
+        protected RewriteRule<Path, ?> createRule() {
+            createdRule = new PathRewriteRule();
+            return createdRule;
+        }
+    }
+}
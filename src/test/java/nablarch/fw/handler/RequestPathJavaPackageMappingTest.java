@@ -2,8 +2,21 @@ package nablarch.fw.handler;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
-
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
 
 import nablarch.core.repository.SystemRepository;
@@ -14,6 +27,8 @@ import nablarch.fw.ExecutionContext;
 import nablarch.fw.Request;
 import nablarch.fw.RequestHandlerEntry;
 import nablarch.fw.Result;
+import nablarch.fw.handler.dispatch.test4.ss00A001.B11AC001Action;
+import nablarch.test.support.log.app.OnMemoryLogWriter;
 
 import org.junit.Test;
 
@@ -77,6 +92,25 @@ public class RequestPathJavaPackageMappingTest {
     }
 
 
+    /**
+     * ベースパスに正規表現のメタ文字が含まれる場合も、従来どおりディスパッチされることのテスト。
+     */
+    @Test
+    public void testBasePathWithRegexMetaCharacters() {
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping(
+                "/app.v1/", "nablarch.fw.handler.dispatch.base");
+        ExecutionContext ctx = new ExecutionContext();
+        mapping.handle(new MockRequest("/app.v1/ss00A002/B11AC001Action"), ctx);
+        assertThat(ctx.<String>getRequestScopedVar("executeAction"), is("base.B11AC001Action"));
+
+        try {
+            mapping.handle(new MockRequest("/app.v1/ss00A002/"), new ExecutionContext());
+            fail();
+        } catch (Result.NotFound e) {
+            assertThat(e.getMessage(), is("Couldn't map request.: nablarch.fw.handler.dispatch.base.ss00A002"));
+        }
+    }
+
     /**
      * mappingEntriesが設定されていない場合に通常のベースパスが使用されることのテスト。
      */
@@ -184,11 +218,445 @@ public class RequestPathJavaPackageMappingTest {
         assertThat(ctx.<String>getRequestScopedVar("executeAction"), is("base.B11AC001Action"));
     }
 
-    private static class MockRequest implements Request<String> {
+    /**
+     * 一度解決した委譲先クラスがキャッシュから取得され、
+     * キャッシュから取得した場合もディスパッチ先クラスのログ出力が行われることのテスト。
+     */
+    @Test
+    public void testClassCache() {
+        final List<String> dispatched = new ArrayList<String>();
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping() {
+            @Override
+            protected void writeDispatchingClassLog(Request<?> data, ExecutionContext context, String fqn) {
+                dispatched.add(fqn);
+            }
+        };
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.base");
+
+        ExecutionContext ctx = new ExecutionContext();
+        mapping.handle(new MockRequest("ss00A002/B11AC001Action"), ctx);
+        assertThat(ctx.<String>getRequestScopedVar("executeAction"), is("base.B11AC001Action"));
+
+        ctx = new ExecutionContext();
+        mapping.handle(new MockRequest("ss00A002/B11AC001Action"), ctx);
+        assertThat(ctx.<String>getRequestScopedVar("executeAction"), is("base.B11AC001Action"));
+
+        assertThat(dispatched.size(), is(2));
+        assertThat(dispatched.get(0), is("nablarch.fw.handler.dispatch.base.ss00A002.B11AC001Action"));
+        assertThat(dispatched.get(1), is("nablarch.fw.handler.dispatch.base.ss00A002.B11AC001Action"));
+    }
+
+    /**
+     * 委譲先クラス名の算出に関わる設定を変更した場合に、キャッシュが破棄されることのテスト。
+     */
+    @Test
+    public void testClassCacheIsClearedWhenPropertyChanged() {
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.base");
+        mapping.setClassNamePrefix("B11A");
+
+        ExecutionContext ctx = new ExecutionContext();
+        mapping.handle(new MockRequest("ss00A002/C001Action"), ctx);
+        assertThat(ctx.<String>getRequestScopedVar("executeAction"), is("base.B11AC001Action"));
+
+        mapping.setClassNamePrefix("W11A");
+        ctx = new ExecutionContext();
+        mapping.handle(new MockRequest("ss00A002/C001Action"), ctx);
+        assertThat(ctx.<String>getRequestScopedVar("executeAction"), is("base.W11AC001Action"));
+    }
+
+    /**
+     * コンテキストクラスローダが異なる場合は、キャッシュを使用せずに委譲先クラスを解決することのテスト。
+     */
+    @Test
+    public void testClassCacheDependsOnContextClassLoader() throws Exception {
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.base");
+
+        final Thread current = Thread.currentThread();
+        final ClassLoader original = current.getContextClassLoader();
+        final ClassLoader emptyLoader = new URLClassLoader(new URL[0], null);
+
+        ExecutionContext ctx = new ExecutionContext();
+        mapping.handle(new MockRequest("ss00A002/B11AC001Action"), ctx);
+        assertThat(ctx.<String>getRequestScopedVar("executeAction"), is("base.B11AC001Action"));
+
+        current.setContextClassLoader(emptyLoader);
+        try {
+            mapping.handle(new MockRequest("ss00A002/B11AC001Action"), new ExecutionContext());
+            fail("委譲先クラスが見つからないこと");
+        } catch (Result.NotFound e) {
+            assertThat(e.getCause(), instanceOf(ClassNotFoundException.class));
+        } finally {
+            current.setContextClassLoader(original);
+        }
+    }
+
+    /**
+     * classCacheSizeに0を設定した場合も、委譲先クラスが正しく解決されることのテスト。
+     */
+    @Test
+    public void testClassCacheDisabled() {
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.base");
+        mapping.setClassCacheSize(0);
+
+        for (int i = 0; i < 2; i++) {
+            ExecutionContext ctx = new ExecutionContext();
+            mapping.handle(new MockRequest("ss00A002/W11AC001Action"), ctx);
+            assertThat(ctx.<String>getRequestScopedVar("executeAction"), is("base.W11AC001Action"));
+        }
+    }
+
+    /**
+     * classCacheSizeに負数を設定した場合は例外が送出されること。
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeClassCacheSize() {
+        new RequestPathJavaPackageMapping().setClassCacheSize(-1);
+    }
+
+    /**
+     * 委譲先クラスが存在しないリクエストパスが、有効期間内はキャッシュされることのテスト。
+     */
+    @Test
+    public void testNotFoundCache() throws Exception {
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.base");
+        mapping.setNotFoundCacheExpirationMillis(60000);
+
+        assertThat(getNotFoundCause(mapping, "ss00A002/NotExistAction").getMessage(),
+                is("nablarch.fw.handler.dispatch.base.ss00A002.NotExistAction"));
+        assertThat(getNotFoundCause(mapping, "ss00A002/NotExistAction").getMessage(),
+                is("nablarch.fw.handler.dispatch.base.ss00A002.NotExistAction (cached)"));
+
+        // 有効期限が切れた場合は、再度クラスのロードを行う。
+        mapping.setNotFoundCacheExpirationMillis(1);
+        getNotFoundCause(mapping, "ss00A002/OtherAction");
+        Thread.sleep(10);
+        assertThat(getNotFoundCause(mapping, "ss00A002/OtherAction").getMessage(),
+                is("nablarch.fw.handler.dispatch.base.ss00A002.OtherAction"));
+    }
+
+    /**
+     * 委譲先クラスの完全修飾名に変換できなかったリクエストパスもキャッシュされることのテスト。
+     */
+    @Test
+    public void testNotFoundCacheForUnmappablePath() throws Exception {
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.base");
+        mapping.setNotFoundCacheExpirationMillis(60000);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                mapping.handle(new MockRequest("ss00A002/"), new ExecutionContext());
+                fail();
+            } catch (Result.NotFound e) {
+                assertThat(e.getMessage(), is("Couldn't map request.: nablarch.fw.handler.dispatch.base.ss00A002"));
+            }
+            assertThat(getNotFoundCache(mapping).size(), is(1));
+        }
+    }
+
+    /**
+     * notFoundCacheSizeに0を設定した場合はキャッシュせず、負数を設定した場合は例外が送出されることのテスト。
+     */
+    @Test
+    public void testNotFoundCacheSize() throws Exception {
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.base");
+        mapping.setNotFoundCacheExpirationMillis(60000);
+        mapping.setNotFoundCacheSize(0);
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(getNotFoundCause(mapping, "ss00A002/NotExistAction").getMessage(),
+                    is("nablarch.fw.handler.dispatch.base.ss00A002.NotExistAction"));
+        }
+        assertThat(getNotFoundCache(mapping), is(nullValue()));
+
+        try {
+            mapping.setNotFoundCacheSize(-1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("notFoundCacheSize must not be negative."));
+        }
+    }
+
+    /**
+     * notFoundCacheExpirationMillisを設定しない場合は、委譲先クラスが存在しないリクエストパスをキャッシュしないことのテスト。
+     */
+    @Test
+    public void testNotFoundCacheDisabledByDefault() throws Exception {
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.base");
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(getNotFoundCause(mapping, "ss00A002/NotExistAction").getMessage(),
+                    is("nablarch.fw.handler.dispatch.base.ss00A002.NotExistAction"));
+        }
+    }
+
+    /**
+     * 事前ロードを行った場合に、委譲先となり得るクラスのみが初期化時にロード・初期化されることのテスト。
+     */
+    @Test
+    public void testPreload() {
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.preload")
+               .setClassNameSuffix("Action")
+               .setPreload(true);
+        assertThat(System.getProperty("nablarch.fw.handler.dispatch.preload.PreloadAction"), is(nullValue()));
+
+        mapping.initialize();
+        assertThat(System.getProperty("nablarch.fw.handler.dispatch.preload.PreloadAction"), is("initialized"));
+        assertThat(System.getProperty("nablarch.fw.handler.dispatch.preload.MethodAction"), is("initialized"));
+        assertThat(System.getProperty("nablarch.fw.handler.dispatch.preload.PreloadHelper"), is(nullValue()));
+        // ハンドラでないクラスはロードのみ行い、初期化しない。
+        assertThat(System.getProperty("nablarch.fw.handler.dispatch.preload.ConstantsAction"), is(nullValue()));
+
+        ExecutionContext ctx = new ExecutionContext();
+        mapping.handle(new MockRequest("Preload"), ctx);
+        assertThat(ctx.<String>getRequestScopedVar("executeAction"), is("preload.PreloadAction"));
+    }
+
+    /**
+     * 事前ロード時にoptionalPackageMappingEntriesのマッピング先Javaパッケージも対象となることのテスト。
+     */
+    @Test
+    public void testPreloadWithMappingEntries() {
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+        @SuppressWarnings("serial")
+        ArrayList<JavaPackageMappingEntry> list =
+                new ArrayList<JavaPackageMappingEntry>() {{
+                    add(new JavaPackageMappingEntry()
+                            .setRequestPattern("/ss00A001//")
+                            .setBasePackage("nablarch.fw.handler.dispatch.test3"));
+                }};
+        mapping.setOptionalPackageMappingEntries(list);
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.base");
+        mapping.setPreload(true);
+        mapping.setPreloadThreads(2);
+        mapping.initialize();
+
+        ExecutionContext ctx = new ExecutionContext();
+        mapping.handle(new MockRequest("ss00A001/B11AC002Action"), ctx);
+        assertThat(ctx.<String>getRequestScopedVar("executeAction"), is("test3.B11AC002Action"));
+
+        ctx = new ExecutionContext();
+        mapping.handle(new MockRequest("ss00A002/W11AC001Action"), ctx);
+        assertThat(ctx.<String>getRequestScopedVar("executeAction"), is("base.W11AC001Action"));
+    }
+
+    /**
+     * 事前ロードが設定した時間内に完了しない場合は例外が送出されることのテスト。
+     */
+    @Test
+    public void testPreloadTimeout() {
+        final ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(new ClassLoader(original) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (name.startsWith("nablarch.fw.handler.dispatch.base.")) {
+                    try {
+                        Thread.sleep(5000L);
+                    } catch (InterruptedException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                }
+                return super.loadClass(name, resolve);
+            }
+        });
+        try {
+            RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+            mapping.setBasePackage("nablarch.fw.handler.dispatch.base")
+                   .setPreload(true)
+                   .setPreloadTimeout(100L);
+            mapping.initialize();
+            fail("例外が送出されること");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("preloading handler classes timed out. timeout = 100ms"));
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+
+        try {
+            new RequestPathJavaPackageMapping().setPreloadTimeout(0L);
+            fail("例外が送出されること");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("preloadTimeout must be positive."));
+        }
+    }
+
+    /**
+     * 委譲先クラスの索引が不完全な場合も、索引に含まれないクラスが事前ロードされることのテスト。
+     */
+    @Test
+    public void testPreloadWithIncompleteIndex() throws Exception {
+        final File services = File.createTempFile("handler-class-index", ".txt");
+        services.deleteOnExit();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(services), "UTF-8");
+        try {
+            writer.write(IncompleteIndex.class.getName());
+        } finally {
+            writer.close();
+        }
+        final ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(new ClassLoader(original) {
+            @Override
+            public Enumeration<URL> getResources(String name) throws IOException {
+                if (name.equals("META-INF/services/" + HandlerClassIndex.class.getName())) {
+                    return Collections.enumeration(Collections.singletonList(services.toURI().toURL()));
+                }
+                return super.getResources(name);
+            }
+        });
+        OnMemoryLogWriter.clear();
+        try {
+            RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+            mapping.setBasePackage("nablarch.fw.handler.dispatch.test4")
+                   .setPreload(true);
+            mapping.initialize();
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+
+        List<String> messages = OnMemoryLogWriter.getMessages("writer.memory");
+        assertThat(messages.toString(), containsString("loaded handler class index. count = 1"));
+        assertThat(messages.toString(), containsString(
+                "found preload target classes which are not in the handler class index. the index may be incomplete. count = 1"));
+        assertThat(messages.toString(), containsString("preloaded handler classes. count = 2"));
+    }
+
+    /**
+     * 事前ロード時にクラスの初期化に失敗した場合は例外が送出されることのテスト。
+     */
+    @Test
+    public void testPreloadFailure() {
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.broken").setPreload(true);
+        try {
+            mapping.initialize();
+            fail("例外が送出されること");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("failed to preload handler class. class = nablarch.fw.handler.dispatch.broken.BrokenAction"));
+            assertThat(e.getCause(), instanceOf(ExceptionInInitializerError.class));
+        }
+    }
+
+    /**
+     * メソッドの検証を行う場合に、問題がなければ初期化に成功することのテスト。
+     */
+    @Test
+    public void testVerifyHandlerMethods() {
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.verified")
+               .setClassNameSuffix("Action")
+               .setPreload(true)
+               .setVerifyHandlerMethods(true);
+        mapping.initialize();
+    }
+
+    /**
+     * メソッドの検証で問題を検出した場合は、全ての問題を含む例外が送出されることのテスト。
+     * <p/>
+     * インターセプタの実行順はリポジトリではなくプロパティから取得すること。
+     */
+    @Test
+    public void testVerifyHandlerMethodsFailure() {
+        List<String> interceptorsOrder = new ArrayList<String>();
+        interceptorsOrder.add(InterceptorChainTest.Second.class.getName());
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.unverified")
+               .setClassNameSuffix("Action")
+               .setPreload(true)
+               .setVerifyHandlerMethods(true)
+               .setInterceptorsOrder(interceptorsOrder);
+        try {
+            mapping.initialize();
+            fail("例外が送出されること");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), startsWith("invalid handler methods were found. count = 1"));
+            assertThat(e.getMessage(), containsString("UnverifiedAction.doIndex("));
+            assertThat(e.getMessage(), containsString("interceptor is undefined in the interceptorsOrder."));
+        }
+
+        // 実行順に定義したインターセプタのみが付与されている場合は初期化に成功する。
+        interceptorsOrder.add(InterceptorChainTest.First.class.getName());
+        mapping.initialize();
+
+        // 検証を行わない場合は初期化に成功する。
+        interceptorsOrder.clear();
+        mapping.setVerifyHandlerMethods(false);
+        mapping.initialize();
+    }
+
+    /**
+     * 厳密な検証を行う場合は、ディスパッチ先とならないメソッドも問題として報告されることのテスト。
+     */
+    @Test
+    public void testStrictHandlerMethods() {
+        List<String> interceptorsOrder = new ArrayList<String>();
+        interceptorsOrder.add(InterceptorChainTest.Second.class.getName());
+        interceptorsOrder.add(InterceptorChainTest.First.class.getName());
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.unverified")
+               .setClassNameSuffix("Action")
+               .setPreload(true)
+               .setVerifyHandlerMethods(true)
+               .setStrictHandlerMethods(true)
+               .setInterceptorsOrder(interceptorsOrder);
+        try {
+            mapping.initialize();
+            fail("例外が送出されること");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), startsWith("invalid handler methods were found. count = 2"));
+            assertThat(e.getMessage(), containsString("UnverifiedAction.doStatic("));
+            assertThat(e.getMessage(), containsString("UnverifiedAction.doReversed("));
+        }
+
+        // 厳密な検証を行わない場合は初期化に成功する。
+        mapping.setStrictHandlerMethods(false);
+        mapping.initialize();
+    }
+
+    /**
+     * preloadを設定しない場合は、初期化時に何も行わないことのテスト。
+     */
+    @Test
+    public void testInitializeWithoutPreload() {
+        RequestPathJavaPackageMapping mapping = new RequestPathJavaPackageMapping();
+        mapping.setBasePackage("nablarch.fw.handler.dispatch.broken");
+        mapping.initialize();
+    }
+
+    private static BoundedConcurrentCache<?, ?> getNotFoundCache(RequestPathJavaPackageMapping mapping) throws Exception {
+        Field field = RequestPathJavaPackageMapping.class.getDeclaredField("notFoundCache");
+        field.setAccessible(true);
+        return (BoundedConcurrentCache<?, ?>) field.get(mapping);
+    }
+
+    private static Throwable getNotFoundCause(RequestPathJavaPackageMapping mapping, String path) {
+        try {
+            mapping.handle(new MockRequest(path), new ExecutionContext());
+        } catch (Result.NotFound e) {
+            assertThat(e.getCause(), instanceOf(ClassNotFoundException.class));
+            return e.getCause();
+        }
+        throw new AssertionError("Result.NotFound must be thrown.");
+    }
+
+    public static class IncompleteIndex implements HandlerClassIndex {
+        @Override
+        public Collection<Class<?>> getHandlerClasses() {
+            return Collections.<Class<?>>singletonList(B11AC001Action.class);
+        }
+    }
+
+    static class MockRequest implements Request<String> {
 
         private final String requestPath;
 
-        private MockRequest(final String requestPath) {
+        MockRequest(final String requestPath) {
             this.requestPath = requestPath;
         }
 
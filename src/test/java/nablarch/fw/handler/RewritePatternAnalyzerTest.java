@@ -0,0 +1,80 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * {@link RewritePatternAnalyzer}のテスト。
+ */
+public class RewritePatternAnalyzerTest {
+
+    /**
+     * 先頭の固定文字列が接頭辞、それ以外の最長の固定文字列が必須文字列として抽出されること。
+     */
+    @Test
+    public void testPrefixAndRequiredLiteral() {
+        assertAnalyzed("^/app/(\\w+)/detail\\.html$", "/app/", "/detail.html");
+        assertAnalyzed("/app/user/list", "/app/user/list", "");
+        assertAnalyzed("\\/api\\/v1\\/.*", "/api/v1/", "");
+        assertAnalyzed(".*\\.css", "", ".css");
+        assertAnalyzed("/a/[^/]+/bc/[a-z]*/defg", "/a/", "/defg");
+    }
+
+    /**
+     * 量指定子が付与された文字は固定文字列に含まれないこと。
+     */
+    @Test
+    public void testQuantifiers() {
+        assertAnalyzed("/apps?/list", "/app", "/list");
+        assertAnalyzed("/ab*c", "/a", "c");
+        assertAnalyzed("/ab{2}c", "/a", "c");
+        assertAnalyzed("/ab+c", "/ab", "c");
+        assertAnalyzed("/ab*?cd", "/a", "cd");
+    }
+
+    /**
+     * グループ内の文字列は固定文字列に含まれないこと。
+     */
+    @Test
+    public void testGroups() {
+        assertAnalyzed("/app(/admin)?/menu", "/app", "/menu");
+        assertAnalyzed("/app/(?:a|b)/menu", "/app/", "/menu");
+        assertAnalyzed("/app/(x(y)z)+/menu", "/app/", "/menu");
+        assertAnalyzed("/app/[(|]/menu", "/app/", "/menu");
+        assertAnalyzed("/app/[]a]/menu", "/app/", "/menu");
+    }
+
+    /**
+     * 固定文字列を判定できない構文が含まれる場合は、固定文字列が抽出されないこと。
+     */
+    @Test
+    public void testUnsupportedSyntax() {
+        assertAnalyzed("/app/a|/app/b", "", "");
+        assertAnalyzed("(?i)/app/menu", "", "");
+        assertAnalyzed("/app/(?i)menu", "", "");
+        assertAnalyzed("\\Q/app\\E/menu", "", "");
+        assertAnalyzed("/app/[abc", "", "");
+    }
+
+    /**
+     * 英数字のエスケープは固定文字列とみなさないこと。
+     */
+    @Test
+    public void testEscapes() {
+        assertAnalyzed("/app\\d/menu", "/app", "/menu");
+        assertAnalyzed("/app\\x2f/menu", "/app", "/menu");
+        assertAnalyzed("/app\\u002f/menu", "/app", "/menu");
+        assertAnalyzed("/app\\p{Alpha}/menu", "/app", "/menu");
+        assertAnalyzed("/app\\pL/menu", "/app", "/menu");
+        assertAnalyzed("/(a)\\1/menu", "/", "/menu");
+        assertAnalyzed("/app\\$/menu", "/app$/menu", "");
+    }
+
+    private static void assertAnalyzed(String regex, String prefix, String required) {
+        RewritePatternAnalyzer analyzer = RewritePatternAnalyzer.analyze(regex);
+        assertThat(regex, analyzer.getPrefix(), is(prefix));
+        assertThat(regex, analyzer.getRequiredLiteral(), is(required));
+    }
+}
@@ -0,0 +1,103 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.handler.RewriteRuleTest.Path;
+import nablarch.fw.handler.RewriteRuleTest.PathRewriteRule;
+
+import org.junit.Test;
+
+/**
+ * {@link RewriteRuleSet}のテスト。
+ */
+public class RewriteRuleSetTest {
+
+    /**
+     * 定義順で最初に適用された置換ルールの結果が返されること。
+     */
+    @Test
+    public void testFirstMatch() {
+        RewriteRuleSet<Path> ruleSet = new RewriteRuleSet<Path>().setRules(Arrays.asList(
+                new PathRewriteRule().setPattern("^/app/admin/.*").setRewriteTo("/admin"),
+                new PathRewriteRule().setPattern("^/app/(\\w+)/.*").setRewriteTo("/user/${1}"),
+                new PathRewriteRule().setPattern("^/app/user/.*").setRewriteTo("/never")));
+
+        Path path = new Path("/app/user/list");
+        assertThat(ruleSet.rewrite(path, new ExecutionContext()), is("/user/user"));
+        assertThat(path.value, is("/user/user"));
+
+        assertThat(ruleSet.getRuleCount(), is(3));
+        assertThat(ruleSet.getSkipCount(0), is(1L));
+        assertThat(ruleSet.getHitCount(1), is(1L));
+        assertThat(ruleSet.getHitCount(2) + ruleSet.getMissCount(2) + ruleSet.getSkipCount(2), is(0L));
+    }
+
+    /**
+     * いずれの置換ルールも適用されない場合はnullを返し、件数が記録されること。
+     */
+    @Test
+    public void testNoRuleApplied() {
+        RewriteRuleSet<Path> ruleSet = new RewriteRuleSet<Path>().setRules(Arrays.asList(
+                new PathRewriteRule().setPattern("^/app/admin/.*").setRewriteTo("/admin"),
+                new PathRewriteRule().setPattern(".*\\.css").setRewriteTo("/static"),
+                new PathRewriteRule().setPattern("/app/[a-z]+").setRewriteTo("/menu")));
+
+        assertThat(ruleSet.rewrite(new Path("/app/user/list"), new ExecutionContext()), is(nullValue()));
+        assertThat(ruleSet.getSkipCount(0), is(1L));
+        assertThat(ruleSet.getSkipCount(1), is(1L));
+        assertThat(ruleSet.getMissCount(2), is(1L));
+    }
+
+    /**
+     * 置換ルールを設定していない場合はnullを返すこと。
+     */
+    @Test
+    public void testEmpty() {
+        assertThat(new RewriteRuleSet<Path>().rewrite(new Path("/app"), new ExecutionContext()), is(nullValue()));
+    }
+
+    /**
+     * ランダムなパスについて、全ての置換ルールを順に評価した場合と結果が一致すること。
+     */
+    @Test
+    public void testSameResultAsSequentialEvaluation() {
+        List<PathRewriteRule> rules = new ArrayList<PathRewriteRule>();
+        String[] patterns = {
+            "^/app/admin/(\\w+)$", "/app/(\\w+)/edit", "/app/\\w+/list/?", "/app/a|/app/b",
+            "/ap+/x", "/static/.*\\.(css|js)", ".*/index\\.html", "(?i)/APP/c", "/app/c{2}",
+            "/app/(admin)?/top", "/b/[ab]+/c", "/", "/app",
+        };
+        for (int i = 0; i < patterns.length; i++) {
+            rules.add(new PathRewriteRule().setPattern(patterns[i]).setRewriteTo("/rule" + i + "${0}"));
+        }
+        RewriteRuleSet<Path> ruleSet = new RewriteRuleSet<Path>().setRules(rules);
+
+        String[] words = {"/", "app", "admin", "edit", "list", "a", "b", "c", "p", "x", "static",
+                          ".css", ".js", "index.html", "APP", "top", "cc"};
+        Random random = new Random(0L);
+        for (int n = 0; n < 20000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(8);
+            for (int i = 0; i < length; i++) {
+                sb.append(words[random.nextInt(words.length)]);
+            }
+            String path = sb.toString();
+            String expected = null;
+            for (PathRewriteRule rule : rules) {
+                expected = rule.rewrite(new Path(path), new ExecutionContext());
+                if (expected != null) {
+                    break;
+                }
+            }
+            assertThat(path, ruleSet.rewrite(new Path(path), new ExecutionContext()), is(expected));
+        }
+    }
+}
@@ -0,0 +1,589 @@
+package nablarch.fw.handler;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import nablarch.core.ThreadContext;
+import nablarch.fw.ExecutionContext;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * {@link RewriteRule}のテスト。
+ */
+public class RewriteRuleTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @After
+    public void tearDown() {
+        ThreadContext.clear();
+    }
+
+    /**
+     * パスが一致した場合、バックリファレンスを埋め込んだパスに置換されること。
+     */
+    @Test
+    public void testRewriteWithBackReferences() {
+        PathRewriteRule rule = new PathRewriteRule()
+                .setPattern("^/app/(\\w+)/(\\w+)$")
+                .setRewriteTo("/action/${2}/${1}/${0}");
+        Path path = new Path("/app/user/list");
+
+        assertThat(rule.rewrite(path, new ExecutionContext()), is("/action/list/user//app/user/list"));
+        assertThat(path.value, is("/action/list/user//app/user/list"));
+    }
+
+    /**
+     * パスが一致しない場合はnullを返し、パスを変更しないこと。
+     */
+    @Test
+    public void testNotMatched() {
+        PathRewriteRule rule = new PathRewriteRule()
+                .setPattern("^/app/(\\w+)$")
+                .setRewriteTo("/action/${1}");
+        Path path = new Path("/other/user");
+
+        assertThat(rule.rewrite(path, new ExecutionContext()), is(nullValue()));
+        assertThat(path.value, is("/other/user"));
+    }
+
+    /**
+     * 置換先文字列を設定しない場合は、パスをそのまま返すこと。
+     */
+    @Test
+    public void testWithoutRewriteTo() {
+        PathRewriteRule rule = new PathRewriteRule().setPattern("^/app/.*$");
+
+        assertThat(rule.rewrite(new Path("/app/user"), new ExecutionContext()), is("/app/user"));
+    }
+
+    /**
+     * 置換先文字列に埋め込みパラメータが含まれない場合は、置換先文字列をそのまま返すこと。
+     */
+    @Test
+    public void testLiteralRewriteTo() {
+        PathRewriteRule rule = new PathRewriteRule()
+                .setPattern("^/app/.*$")
+                .setRewriteTo("/maintenance.html");
+
+        assertThat(rule.rewrite(new Path("/app/user"), new ExecutionContext()), is("/maintenance.html"));
+    }
+
+    /**
+     * 適用条件のバックリファレンスおよび変数の値を埋め込めること。
+     */
+    @Test
+    public void testConditionBackReferencesAndParams() {
+        ExecutionContext context = new ExecutionContext();
+        context.setRequestScopedVar("mode", "mobile-v2");
+        context.setSessionScopedVar("user", "taro");
+        ThreadContext.setObject("lang", "ja");
+
+        PathRewriteRule rule = new PathRewriteRule()
+                .setPattern("^/app/(\\w+)$")
+                .setConditions(Arrays.asList("%{request:mode} ^(\\w+)-v(\\d)"))
+                .setRewriteTo("/${request:mode:1}/${request:mode:2}/${1}/${thread:lang}/${session:user}/${request:none}");
+
+        assertThat(rule.rewrite(new Path("/app/list"), context), is("/mobile/2/list/ja/taro/"));
+    }
+
+    /**
+     * 同じ埋め込みパラメータが複数回含まれる場合は、全て置換されること。
+     */
+    @Test
+    public void testSamePlaceHolderAppearsTwice() {
+        PathRewriteRule rule = new PathRewriteRule()
+                .setPattern("^/(\\w+)$")
+                .setRewriteTo("/${1}/${1}.html");
+
+        assertThat(rule.rewrite(new Path("/top"), new ExecutionContext()), is("/top/top.html"));
+    }
+
+    /**
+     * 適用条件を満たさない場合はnullを返すこと。
+     */
+    @Test
+    public void testConditionNotSatisfied() {
+        ExecutionContext context = new ExecutionContext();
+        context.setRequestScopedVar("mode", "pc");
+
+        PathRewriteRule rule = new PathRewriteRule()
+                .setPattern("^/app/(\\w+)$")
+                .setConditions(Arrays.asList("%{request:mode} ^mobile"))
+                .setRewriteTo("/mobile/${1}");
+        assertThat(rule.rewrite(new Path("/app/list"), context), is(nullValue()));
+
+        rule.setConditions(Arrays.asList("!%{request:mode} ^mobile"));
+        assertThat(rule.rewrite(new Path("/app/list"), context), is("/mobile/list"));
+    }
+
+    /**
+     * 変数定義に従って変数が設定されること。
+     */
+    @Test
+    public void testExports() {
+        ExecutionContext context = new ExecutionContext();
+        PathRewriteRule rule = new PathRewriteRule()
+                .setPattern("^/app/(\\w+)/(\\w+)$")
+                .setRewriteTo("/app/${1}")
+                .setExports(Arrays.asList(
+                        "%{request:action} ${2}",
+                        "%{session:lastPath} ${0}",
+                        "%{thread:fixed} constant"));
+
+        rule.rewrite(new Path("/app/user/list"), context);
+
+        assertThat(context.<String>getRequestScopedVar("action"), is("list"));
+        assertThat(context.<String>getSessionScopedVar("lastPath"), is("/app/user/list"));
+        assertThat((String) ThreadContext.getObject("fixed"), is("constant"));
+    }
+
+    /**
+     * 同じ変数を判定対象とする適用条件が複数ある場合は、パターンを含んだ最後の適用条件のバックリファレンスが使用されること。
+     */
+    @Test
+    public void testBackReferenceOfLastFoundCondition() {
+        ExecutionContext context = new ExecutionContext();
+        context.setRequestScopedVar("mode", "mobile-v2");
+
+        PathRewriteRule rule = new PathRewriteRule()
+                .setPattern("^/app/(\\w+)$")
+                .setConditions(Arrays.asList(
+                        "%{request:mode} ^(\\w+)",
+                        "%{request:mode} -(v\\d)",
+                        "!%{request:mode} pc(\\d)"))
+                .setRewriteTo("/${request:mode:1}/${1}");
+
+        assertThat(rule.rewrite(new Path("/app/list"), context), is("/v2/list"));
+    }
+
+    /**
+     * パターンを含まなかった適用条件のバックリファレンスを参照した場合は例外が送出されること。
+     */
+    @Test
+    public void testBackReferenceOfNotFoundCondition() {
+        PathRewriteRule rule = new PathRewriteRule()
+                .setPattern("^/app/(\\w+)$")
+                .setConditions(Arrays.asList("!%{request:mode} ^(mobile)"))
+                .setRewriteTo("/${request:mode:1}/${1}");
+
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("back reference is not found in the conditions. : request:mode:1");
+        rule.rewrite(new Path("/app/list"), new ExecutionContext());
+    }
+
+    /**
+     * 置換処理の後に設定を変更した場合も、変更後の設定で置換されること。
+     */
+    @Test
+    public void testReconfigureAfterRewrite() {
+        ExecutionContext context = new ExecutionContext();
+        context.setRequestScopedVar("mode", "mobile");
+        PathRewriteRule rule = new PathRewriteRule()
+                .setPattern("^/app/(\\w+)$")
+                .setRewriteTo("/${1}");
+        assertThat(rule.rewrite(new Path("/app/list"), context), is("/list"));
+
+        rule.setPattern("^/(\\w+)/(\\w+)$")
+            .setConditions(Arrays.asList("%{request:mode} ^(\\w+)"))
+            .setRewriteTo("/${request:mode:1}/${2}");
+        assertThat(rule.rewrite(new Path("/app/list"), context), is("/mobile/list"));
+    }
+
+    /**
+     * 置換処理が再帰的に呼び出された場合も、それぞれのバックリファレンスが使用されること。
+     */
+    @Test
+    public void testReentrantRewrite() {
+        PathRewriteRule rule = new PathRewriteRule() {
+            @Override
+            protected void applyRewrittenPath(String rewrittenPath, Path data) {
+                super.applyRewrittenPath(rewrittenPath, data);
+                if (rewrittenPath.equals("/app/list")) {
+                    rewrite(new Path("/app/other"), new ExecutionContext());
+                }
+            }
+        };
+        rule.setPattern("^/app/(\\w+)$").setExports(Arrays.asList("%{request:action} ${1}"));
+        ExecutionContext context = new ExecutionContext();
+
+        assertThat(rule.rewrite(new Path("/app/list"), context), is("/app/list"));
+        assertThat(context.<String>getRequestScopedVar("action"), is("list"));
+    }
+
+    /**
+     * 適用されない置換ルールの評価では、オブジェクトが生成されないこと。
+     */
+    @Test
+    public void testNoAllocationIfNotMatched() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+        ExecutionContext context = new ExecutionContext();
+        context.setRequestScopedVar("mode", "mobile-v2");
+        PathRewriteRule rule = new PathRewriteRule()
+                .setPattern("^/app/(\\w+)/(\\w+)$")
+                .setConditions(Arrays.asList("%{request:mode} ^(\\w+)-v(\\d)"))
+                .setRewriteTo("/${request:mode:1}/${2}");
+        Path path = new Path("/other/user/list");
+        for (int i = 0; i < 20000; i++) {
+            rule.rewrite(path, context);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10000; i++) {
+            rule.rewrite(path, context);
+        }
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        // 計測処理自体の割り当てを許容する。
+        assertThat(allocated, is(lessThan(10000L)));
+    }
+
+    /**
+     * パスを先に評価する場合、パスが一致しなければ変数を取得しないこと。
+     */
+    @Test
+    public void testPathFirst() {
+        RecordingRewriteRule rule = new RecordingRewriteRule();
+        rule.setPattern("^/app/(\\w+)$")
+            .setConditions(Arrays.asList("%{session:user} ^(\\w+)"))
+            .setRewriteTo("/${session:user:1}/${1}");
+        ExecutionContext context = new ExecutionContext();
+        context.setSessionScopedVar("user", "taro");
+
+        assertThat(rule.rewrite(new Path("/other/list"), context), is(nullValue()));
+        assertThat(rule.params, contains("session:user"));
+
+        rule.params.clear();
+        rule.setPathFirst(true);
+        assertThat(rule.rewrite(new Path("/other/list"), context), is(nullValue()));
+        assertThat(rule.params, is(empty()));
+        assertThat(rule.rewrite(new Path("/app/list"), context), is("/taro/list"));
+        assertThat(rule.params, contains("session:user"));
+    }
+
+    /**
+     * パスを先に評価する場合、適用条件が変数の取得コストの順に評価されること。
+     */
+    @Test
+    public void testConditionsAreEvaluatedInCostOrder() {
+        RecordingRewriteRule rule = new RecordingRewriteRule();
+        rule.setPattern("^/app/(\\w+)$")
+            .setConditions(Arrays.asList(
+                    "%{session:user} ^(\\w+)",
+                    "%{custom:value} .*",
+                    "%{request:mode} ^(mobile|pc)$",
+                    "%{thread:lang} ^(\\w+)",
+                    "%{request:device} ^(\\w+)"))
+            .setPathFirst(true);
+        ExecutionContext context = new ExecutionContext();
+        context.setSessionScopedVar("user", "taro");
+        context.setRequestScopedVar("mode", "mobile");
+        context.setRequestScopedVar("device", "phone");
+        ThreadContext.setObject("lang", "ja");
+
+        assertThat(rule.rewrite(new Path("/app/list"), context), is("/app/list"));
+        assertThat(rule.params, contains(
+                "thread:lang", "request:device", "request:mode", "custom:value", "session:user"));
+    }
+
+    /**
+     * パスを先に評価する場合も、置換結果およびバックリファレンスが定義順に評価した場合と同じであること。
+     */
+    @Test
+    public void testPathFirstReturnsSameResult() {
+        List<String> conditions = Arrays.asList(
+                "%{session:user} ^(\\w+)",
+                "%{request:mode} ^(\\w+)",
+                "!%{request:mode} ^(pc)",
+                "%{request:mode} -(v\\d)");
+        String[] paths = {"/app/list", "/app/", "/other/list"};
+        String[] modes = {"mobile-v2", "pc-v1", "tablet", null};
+        for (boolean pathFirst : new boolean[] {false, true}) {
+            PathRewriteRule rule = new PathRewriteRule()
+                    .setPattern("^/app/(\\w*)$")
+                    .setConditions(conditions)
+                    .setRewriteTo("/${session:user:1}/${request:mode:1}/${1}")
+                    .setPathFirst(pathFirst);
+            List<String> results = new ArrayList<String>();
+            for (String path : paths) {
+                for (String mode : modes) {
+                    ExecutionContext context = new ExecutionContext();
+                    context.setSessionScopedVar("user", "taro");
+                    context.setRequestScopedVar("mode", mode);
+                    results.add(rule.rewrite(new Path(path), context));
+                }
+            }
+            assertThat(results, contains(
+                    "/taro/v2/list", null, null, null, "/taro/v2/", null, null, null, null, null, null, null));
+        }
+    }
+
+    /**
+     * パターンを線形時間で評価する場合も、置換結果およびバックリファレンスが{@link java.util.regex.Pattern}で評価した場合と同じであること。
+     */
+    @Test
+    public void testLinearTimeMatchingReturnsSameResult() {
+        List<String> conditions = Arrays.asList(
+                "%{session:user} ^(\\w+)",
+                "%{request:mode} ^(\\w+) - (v\\d)",
+                "!%{request:mode} ^(pc)");
+        String[] paths = {"/app/list", "/app/", "/other/list"};
+        String[] modes = {"mobile-v2", "pc-v1", "tablet", null};
+        for (boolean linearTimeMatching : new boolean[] {false, true}) {
+            PathRewriteRule rule = new PathRewriteRule()
+                    .setPattern("^/app/(\\w*)$")
+                    .setConditions(conditions)
+                    .setRewriteTo("/${session:user:1}/${request:mode:2}/${1}")
+                    .setLinearTimeMatching(linearTimeMatching);
+            List<String> results = new ArrayList<String>();
+            for (String path : paths) {
+                for (String mode : modes) {
+                    ExecutionContext context = new ExecutionContext();
+                    context.setSessionScopedVar("user", "taro");
+                    context.setRequestScopedVar("mode", mode);
+                    results.add(rule.rewrite(new Path(path), context));
+                }
+            }
+            assertThat(results, contains(
+                    "/taro/v2/list", null, null, null, "/taro/v2/", null, null, null, null, null, null, null));
+        }
+    }
+
+    /**
+     * 線形時間で評価する設定を解除した場合は、{@link java.util.regex.Pattern}で評価されること。
+     */
+    @Test
+    public void testDisableLinearTimeMatching() {
+        PathRewriteRule rule = new PathRewriteRule()
+                .setPattern("^/app/(\\w+)$")
+                .setRewriteTo("/action/${1}")
+                .setLinearTimeMatching(true);
+        assertThat(rule.rewrite(new Path("/app/list"), new ExecutionContext()), is("/action/list"));
+
+        rule.setLinearTimeMatching(false).setPattern("^/app/(\\w+)/\\1$");
+        assertThat(rule.rewrite(new Path("/app/list/list"), new ExecutionContext()), is("/action/list"));
+    }
+
+    /**
+     * 線形時間で評価する場合、線形時間で評価できないパスのパターンは拒否されること。
+     */
+    @Test
+    public void testLinearTimeMatchingRejectsPathPattern() {
+        PathRewriteRule rule = new PathRewriteRule().setLinearTimeMatching(true);
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("pattern cannot be evaluated in linear time.");
+        rule.setPattern("^/app/(\\w+)/\\1$");
+    }
+
+    /**
+     * 線形時間で評価できない適用条件が設定されている場合、線形時間で評価する設定は拒否され、設定前の状態が維持されること。
+     */
+    @Test
+    public void testLinearTimeMatchingRejectsCondition() {
+        PathRewriteRule rule = new PathRewriteRule()
+                .setPattern("^/app/(\\w+)$")
+                .addCondition("%{request:mode} ^mobile")
+                .addCondition("%{request:mode} (?=pc)")
+                .setRewriteTo("/action/${1}");
+        try {
+            rule.setLinearTimeMatching(true);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is(
+                    "pattern cannot be evaluated in linear time. special group is not supported. pattern = (?=pc)"));
+        }
+        ExecutionContext context = new ExecutionContext();
+        context.setRequestScopedVar("mode", "mobile");
+        assertThat(rule.rewrite(new Path("/app/list"), context), is(nullValue()));
+    }
+
+    /**
+     * 置換結果のキャッシュを使用する場合、同じパスおよび変数の値の組み合わせでは、
+     * キャッシュした置換結果が反映され、変数が定義されること。
+     */
+    @Test
+    public void testResultCache() {
+        RecordingRewriteRule rule = new RecordingRewriteRule();
+        rule.setPattern("^/app/(\\w+)$")
+            .addCondition("%{request:mode} ^(\\w+)-v(\\d)$")
+            .setRewriteTo("/${request:mode:1}/${1}")
+            .addExport("%{request:version} ${request:mode:2}")
+            .setResultCacheSize(10);
+
+        for (int i = 0; i < 3; i++) {
+            rule.params.clear();
+            ExecutionContext context = new ExecutionContext();
+            context.setRequestScopedVar("mode", "mobile-v2");
+            Path path = new Path("/app/list");
+            assertThat(rule.rewrite(path, context), is("/mobile/list"));
+            assertThat(path.value, is("/mobile/list"));
+            assertThat(context.<String>getRequestScopedVar("version"), is("2"));
+            if (i == 0) {
+                assertThat("key and conditions", rule.params, contains("request:mode", "request:mode"));
+            } else {
+                assertThat("key only", rule.params, contains("request:mode"));
+            }
+        }
+
+        ExecutionContext context = new ExecutionContext();
+        context.setRequestScopedVar("mode", "pc-v1");
+        assertThat(rule.rewrite(new Path("/app/list"), context), is("/pc/list"));
+        assertThat(context.<String>getRequestScopedVar("version"), is("1"));
+        assertThat(rule.rewrite(new Path("/app/menu"), context), is("/pc/menu"));
+    }
+
+    /**
+     * 置換ルールが適用されなかったという結果もキャッシュされること。
+     */
+    @Test
+    public void testResultCacheOfNotRewritten() {
+        RecordingRewriteRule rule = new RecordingRewriteRule();
+        rule.setPattern("^/app/(\\w+)$")
+            .addCondition("%{request:mode} ^pc")
+            .setRewriteTo("/pc/${1}")
+            .setResultCacheSize(10);
+        ExecutionContext context = new ExecutionContext();
+        context.setRequestScopedVar("mode", "mobile");
+
+        Path path = new Path("/app/list");
+        assertThat(rule.rewrite(path, context), is(nullValue()));
+        rule.params.clear();
+        assertThat(rule.rewrite(path, context), is(nullValue()));
+        assertThat(path.value, is("/app/list"));
+        assertThat(rule.params, contains("request:mode"));
+    }
+
+    /**
+     * 置換結果のキャッシュを使用する場合も、後の変数定義が先の変数定義で定義した変数を参照できること。
+     */
+    @Test
+    public void testResultCacheWithExportReferringPreviousExport() {
+        for (int cacheSize : new int[] {0, 10}) {
+            PathRewriteRule rule = new PathRewriteRule()
+                    .setPattern("^/app/(\\w+)$")
+                    .setRewriteTo("/action/${1}")
+                    .addExport("%{request:xx} ${1}")
+                    .addExport("%{request:yy} [${request:xx}]")
+                    .setResultCacheSize(cacheSize);
+            for (int i = 0; i < 3; i++) {
+                ExecutionContext context = new ExecutionContext();
+                assertThat(rule.rewrite(new Path("/app/foo"), context), is("/action/foo"));
+                assertThat(context.<String>getRequestScopedVar("xx"), is("foo"));
+                assertThat("cacheSize = " + cacheSize + ", count = " + i,
+                           context.<String>getRequestScopedVar("yy"), is("[foo]"));
+            }
+        }
+    }
+
+    /**
+     * キャッシュのキーとできない変数を参照する置換ルールでは、置換結果のキャッシュが使用されないこと。
+     */
+    @Test
+    public void testResultCacheNotUsedForNonCacheableParam() {
+        RecordingRewriteRule rule = new RecordingRewriteRule();
+        rule.setPattern("^/app/(\\w+)$")
+            .addCondition("%{request:mode} ^pc")
+            .setRewriteTo("/${session:user}/${1}")
+            .setResultCacheSize(10);
+        ExecutionContext context = new ExecutionContext();
+        context.setRequestScopedVar("mode", "pc");
+
+        context.setSessionScopedVar("user", "taro");
+        assertThat(rule.rewrite(new Path("/app/list"), context), is("/taro/list"));
+        context.setSessionScopedVar("user", "hanako");
+        assertThat(rule.rewrite(new Path("/app/list"), context), is("/hanako/list"));
+        assertThat(rule.params, contains("request:mode", "session:user", "request:mode", "session:user"));
+    }
+
+    /**
+     * 置換ルールの設定を変更した場合は、置換結果のキャッシュがクリアされること。
+     */
+    @Test
+    public void testResultCacheIsClearedOnReconfiguration() {
+        PathRewriteRule rule = new PathRewriteRule()
+                .setPattern("^/app/(\\w+)$")
+                .setRewriteTo("/v1/${1}")
+                .setResultCacheSize(10);
+        assertThat(rule.rewrite(new Path("/app/list"), new ExecutionContext()), is("/v1/list"));
+
+        rule.setRewriteTo("/v2/${1}");
+        assertThat(rule.rewrite(new Path("/app/list"), new ExecutionContext()), is("/v2/list"));
+
+        rule.addExport("%{request:original} ${0}");
+        ExecutionContext context = new ExecutionContext();
+        assertThat(rule.rewrite(new Path("/app/list"), context), is("/v2/list"));
+        assertThat(context.<String>getRequestScopedVar("original"), is("/app/list"));
+
+        rule.setPattern("^/other/(\\w+)$");
+        assertThat(rule.rewrite(new Path("/app/list"), new ExecutionContext()), is(nullValue()));
+
+        rule.setResultCacheSize(0);
+        assertThat(rule.rewrite(new Path("/other/list"), new ExecutionContext()), is("/v2/list"));
+    }
+
+    /**
+     * 不正な適用条件を設定した場合は例外が送出されること。
+     */
+    @Test
+    public void testInvalidCondition() {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("invalid rewrite rule condition : request:mode ^mobile");
+        new PathRewriteRule().addCondition("request:mode ^mobile");
+    }
+
+    /** パスを保持するオブジェクト */
+    static class Path {
+        String value;
+
+        Path(String value) {
+            this.value = value;
+        }
+    }
+
+    /** 変数の取得を記録する置換ルール */
+    static class RecordingRewriteRule extends PathRewriteRule {
+        final List<String> params = new ArrayList<String>();
+
+        @Override
+        protected Object getParam(String scope, String name, Path data, ExecutionContext context) {
+            params.add(scope + ":" + name);
+            return "custom".equals(scope) ? "value" : super.getParam(scope, name, data, context);
+        }
+    }
+
+    /** テスト用の置換ルール */
+    static class PathRewriteRule extends RewriteRule<Path, PathRewriteRule> {
+        @Override
+        protected String getPathToRewrite(Path data) {
+            return data.value;
+        }
+
+        @Override
+        protected void applyRewrittenPath(String rewrittenPath, Path data) {
+            data.value = rewrittenPath;
+        }
+    }
+}
@@ -11,6 +11,8 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class SystemRepositoryDelegateFactoryTest {
     SystemRepositoryDelegateFactory sut = new SystemRepositoryDelegateFactory();
@@ -42,4 +44,24 @@ public class SystemRepositoryDelegateFactoryTest {
         SystemRepository.load(container);
         sut.create(SystemRepositoryDelegateFactory.class);
     }
-}
\ No newline at end of file
+
+    /**
+     * 一度取得したインスタンスがキャッシュされ、キャッシュの破棄後はリポジトリから再取得されること。
+     */
+    @Test
+    public void testCache() {
+        SystemRepository.load(new DiContainer(new XmlComponentDefinitionLoader(
+                "nablarch/fw/handler/system-repository-delegate-factory-test.xml")));
+        Object first = sut.create(DummyComponent.class);
+
+        // リポジトリを再構築しても、キャッシュ破棄前は同一のインスタンスが返されること
+        SystemRepository.load(new DiContainer(new XmlComponentDefinitionLoader(
+                "nablarch/fw/handler/system-repository-delegate-factory-test.xml")));
+        assertSame(first, sut.create(DummyComponent.class));
+
+        sut.clearCache();
+        Object reloaded = sut.create(DummyComponent.class);
+        assertNotSame(first, reloaded);
+        assertSame(SystemRepository.get(DummyComponent.class.getName()), reloaded);
+    }
+}
@@ -0,0 +1,20 @@
+package nablarch.fw.handler.dispatch.broken;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Request;
+
+/**
+ * クラスの初期化に失敗するクラス。
+ */
+public class BrokenAction {
+
+    static {
+        if (Boolean.TRUE) {
+            throw new IllegalStateException("broken action.");
+        }
+    }
+
+    public String doIndex(Request<String> data, ExecutionContext context) {
+        return "broken.BrokenAction";
+    }
+}
@@ -0,0 +1,11 @@
+package nablarch.fw.handler.dispatch.preload;
+
+/**
+ * クラス名の接尾辞は委譲先クラスの条件に合致するが、ハンドラメソッドを持たないため、事前ロード時に初期化されないクラス。
+ */
+public class ConstantsAction {
+
+    static {
+        System.setProperty(ConstantsAction.class.getName(), "initialized");
+    }
+}
@@ -0,0 +1,18 @@
+package nablarch.fw.handler.dispatch.preload;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Request;
+
+/**
+ * ハンドラメソッドを持つため、事前ロード時に初期化されるクラス。
+ */
+public class MethodAction {
+
+    static {
+        System.setProperty(MethodAction.class.getName(), "initialized");
+    }
+
+    public String doIndex(Request<String> data, ExecutionContext context) {
+        return "preload.MethodAction";
+    }
+}
@@ -0,0 +1,17 @@
+package nablarch.fw.handler.dispatch.preload;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Handler;
+import nablarch.fw.Request;
+
+public class PreloadAction implements Handler<Request<String>, String> {
+
+    static {
+        System.setProperty(PreloadAction.class.getName(), "initialized");
+    }
+
+    public String handle(Request<String> data, ExecutionContext context) {
+        context.setRequestScopedVar("executeAction", "preload.PreloadAction");
+        return "preload.PreloadAction";
+    }
+}
@@ -0,0 +1,11 @@
+package nablarch.fw.handler.dispatch.preload;
+
+/**
+ * クラス名の接尾辞が委譲先クラスの条件に合致しないため、事前ロードされないクラス。
+ */
+public class PreloadHelper {
+
+    static {
+        System.setProperty(PreloadHelper.class.getName(), "initialized");
+    }
+}
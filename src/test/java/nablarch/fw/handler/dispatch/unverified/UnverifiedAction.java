@@ -0,0 +1,30 @@
+package nablarch.fw.handler.dispatch.unverified;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Request;
+import nablarch.fw.handler.InterceptorChainTest;
+
+/**
+ * インターセプタの実行順に定義されていないインターセプタが付与されている場合に、検証で問題として報告されるクラス。
+ */
+public class UnverifiedAction {
+
+    @InterceptorChainTest.First
+    public String doIndex(Request<String> data, ExecutionContext context) {
+        return "index";
+    }
+
+    @InterceptorChainTest.Second
+    public String doDetail(Request<String> data, ExecutionContext context) {
+        return "detail";
+    }
+
+    // ディスパッチ先とならないが、ヘルパーメソッドの可能性があるため問題としない(厳密な検証を行う場合は問題とする)。
+    public static String doStatic(Request<String> data, ExecutionContext context) {
+        return "static";
+    }
+
+    public String doReversed(ExecutionContext context, Request<String> data) {
+        return "reversed";
+    }
+}
@@ -0,0 +1,16 @@
+package nablarch.fw.handler.dispatch.verified;
+
+import nablarch.fw.ExecutionContext;
+import nablarch.fw.Request;
+
+public class VerifiedAction {
+
+    public String doIndex(Request<String> data, ExecutionContext context) {
+        context.setRequestScopedVar("executeAction", "verified.VerifiedAction");
+        return "verified.VerifiedAction";
+    }
+
+    private void setUp(Request<String> data, ExecutionContext context) {
+        // ヘルパーメソッドは検証で問題としない。
+    }
+}